@@ -0,0 +1,133 @@
+package bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code BenchmarkData} class generates the texts and files the benchmarks encrypt and decrypt.
+ *
+ * Three character mixes are available:
+ *  - {@code ASCII}: printable ASCII characters, letters and everything else alike
+ *  - {@code PROSE}: English-like mixed-case words, punctuation and line breaks
+ *  - {@code UNICODE}: prose where about a third of the characters are accented letters, Cyrillic, CJK or emoji
+ *
+ * The data only depends on the mix and the size, so every run measures the same input.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class BenchmarkData {
+    private static final String[] WORDS = {
+            "the", "Quick", "brown", "fox", "JUMPS", "over", "a", "lazy", "dog", "while", "Encryption",
+            "keeps", "secrets", "in", "files", "and", "logs", "of", "our", "Service", "every", "night"
+    };
+    private static final String[] FOREIGN = {
+            "é", "à", "ü", "ß", "É", "Ω", "ж", "Ж", "中", "文", "😀", "ñ", "ç"
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Parses a size such as "1KB", "64MB" or "1GB".
+     *
+     * @param size the size with its unit
+     * @return the size in bytes
+     */
+    public static long bytes(String size) {
+        long unit = switch (size.substring(size.length() - 2)) {
+            case "KB" -> 1024L;
+            case "MB" -> 1024L * 1024;
+            case "GB" -> 1024L * 1024 * 1024;
+            default -> throw new IllegalArgumentException("Unknown size " + size);
+        };
+        return Long.parseLong(size.substring(0, size.length() - 2)) * unit;
+    }
+
+    /**
+     * Generates a text of about {@code bytes} bytes once encoded in UTF-8.
+     *
+     * @param mix   the character mix
+     * @param bytes the size of the text in UTF-8
+     * @return the text
+     */
+    public static String text(String mix, long bytes) {
+        StringBuilder text = new StringBuilder((int) Math.min(bytes, Integer.MAX_VALUE - 8));
+        Random random = new Random(42);
+        long length = 0;
+        while (length < bytes) {
+            String piece = piece(mix, random);
+            text.append(piece);
+            length += piece.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes a file of about {@code bytes} bytes in UTF-8, reusing it if it was already generated.
+     *
+     * @param directory the directory of the file
+     * @param mix       the character mix
+     * @param bytes     the size of the file
+     * @return the file
+     * @throws IOException if the file cannot be written
+     */
+    public static Path file(Path directory, String mix, long bytes) throws IOException {
+        Path file = directory.resolve(mix + "-" + bytes + ".txt");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path temporary = Files.createTempFile(directory, mix, ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            Random random = new Random(42);
+            long length = 0;
+            while (length < bytes) {
+                String piece = piece(mix, random);
+                writer.write(piece);
+                length += piece.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return Files.move(temporary, file);
+    }
+
+    /**
+     * @return the next few characters of the given mix
+     */
+    private static String piece(String mix, Random random) {
+        return switch (mix) {
+            case "ASCII" -> String.valueOf((char) (' ' + random.nextInt(95)));
+            case "PROSE" -> word(random);
+            case "UNICODE" -> random.nextInt(3) == 0 ? FOREIGN[random.nextInt(FOREIGN.length)] : word(random);
+            default -> throw new IllegalArgumentException("Unknown mix " + mix);
+        };
+    }
+
+    /**
+     * @return a word followed by a space, a punctuation mark or a line break
+     */
+    private static String word(Random random) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        return switch (random.nextInt(12)) {
+            case 0 -> word + ".\n";
+            case 1 -> word + ", ";
+            default -> word + " ";
+        };
+    }
+}
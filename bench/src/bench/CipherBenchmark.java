@@ -0,0 +1,107 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.util.concurrent.TimeUnit;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Benchmarks the {@code Cipher} library API, writing into buffers allocated once per trial.
+ *
+ * The forks add the incubating Vector API module, {@code vector=false} measures the scalar tables instead.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class CipherBenchmark {
+    @Param({"1KB", "1MB", "64MB"})
+    public String size;
+
+    @Param({"ASCII", "PROSE", "UNICODE"})
+    public String mix;
+
+    @Param({"unicode", "shift"})
+    public String alg;
+
+    @Param({"enc", "dec"})
+    public String mode;
+
+    @Param({"3", "25"})
+    public int key;
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    public String charset;
+
+    @Param({"true", "false"})
+    public String vector;
+
+    private String text;
+    private char[] chars;
+    private ByteBuffer src;
+    private ByteBuffer dst;
+    private MethodHandle applyText;
+    private MethodHandle applyBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // read once, when the first table is built
+        System.setProperty("cipher.vector", this.vector);
+        this.text = BenchmarkData.text(this.mix, BenchmarkData.bytes(this.size));
+        this.chars = new char[this.text.length()];
+        byte[] bytes = this.text.getBytes(Charset.forName(this.charset));
+        this.src = ByteBuffer.wrap(bytes);
+        this.dst = ByteBuffer.allocate(bytes.length * 3 + 16);
+        Object cipher = Ciphers.cipher(this.alg, this.mode, this.key, Charset.forName(this.charset));
+        this.applyText = Ciphers.applyText(cipher);
+        this.applyBytes = Ciphers.applyBytes(cipher);
+    }
+
+    @Benchmark
+    public char[] text(Throughput throughput) throws Throwable {
+        int length = (int) this.applyText.invokeExact((CharSequence) this.text, this.chars, 0);
+        throughput.add(length);
+        return this.chars;
+    }
+
+    @Benchmark
+    public ByteBuffer bytes(Throughput throughput) throws Throwable {
+        this.src.clear();
+        this.dst.clear();
+        CoderResult result = (CoderResult) this.applyBytes.invokeExact(this.src, this.dst, true);
+        throughput.add(this.src.position());
+        return this.dst;
+    }
+}
@@ -0,0 +1,141 @@
+package bench;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Ciphers} class gives the benchmarks access to the {@code Encryption}, {@code Decryption}
+ * and {@code Cipher} classes.
+ *
+ * The application lives in the default package, which cannot be imported from a named package, and JMH refuses
+ * benchmarks in the default package. The classes are therefore looked up by name and their methods are called
+ * through method handles bound to an instance, which costs a few nanoseconds per call.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class Ciphers {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private Ciphers() {
+    }
+
+    /**
+     * An operation of the application, such as {@code Encryption.shiftFileEncryption()}.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Throwable;
+    }
+
+    /**
+     * @param alg  "unicode" or "shift"
+     * @param mode "enc" or "dec"
+     * @param text the text to transform
+     * @param key  the key
+     * @return the text method of the algorithm, bound to a new instance
+     */
+    public static Operation text(String alg, String mode, String text, int key) {
+        Object cipher = create(mode, MethodType.methodType(void.class, String.class, int.class), text, key);
+        return bind(cipher, alg + (mode.equals("enc") ? "TextEncryption" : "TextDecryption"));
+    }
+
+    /**
+     * @param alg    "unicode" or "shift"
+     * @param mode   "enc" or "dec"
+     * @param input  the file to read
+     * @param output the file to write
+     * @param key    the key
+     * @return the file method of the algorithm, bound to a new instance
+     */
+    public static Operation file(String alg, String mode, File input, File output, int key) {
+        Object cipher = create(mode, MethodType.methodType(void.class, File.class, File.class, int.class), input, output, key);
+        return bind(cipher, alg + (mode.equals("enc") ? "FileEncryption" : "FileDecryption"));
+    }
+
+    /**
+     * @param alg     "unicode" or "shift"
+     * @param mode    "enc" or "dec"
+     * @param key     the key
+     * @param charset the charset of the bytes given to the cipher
+     * @return a new {@code Cipher}
+     */
+    public static Object cipher(String alg, String mode, int key, Charset charset) {
+        try {
+            Class<?> type = Class.forName("Cipher");
+            return LOOKUP.findStatic(type, "of", MethodType.methodType(type, String.class, int.class, boolean.class, Charset.class))
+                    .invoke(alg, key, mode.equals("enc"), charset);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create the cipher", e);
+        }
+    }
+
+    /**
+     * @param cipher a {@code Cipher}
+     * @return {@code Cipher.apply(CharSequence, char[], int)} bound to the cipher
+     */
+    public static MethodHandle applyText(Object cipher) {
+        return find(cipher, "apply", MethodType.methodType(int.class, CharSequence.class, char[].class, int.class));
+    }
+
+    /**
+     * @param cipher a {@code Cipher}
+     * @return {@code Cipher.apply(ByteBuffer, ByteBuffer, boolean)} bound to the cipher
+     */
+    public static MethodHandle applyBytes(Object cipher) {
+        return find(cipher, "apply", MethodType.methodType(CoderResult.class, ByteBuffer.class, ByteBuffer.class, boolean.class));
+    }
+
+    private static MethodHandle find(Object cipher, String name, MethodType type) {
+        try {
+            return LOOKUP.findVirtual(cipher.getClass(), name, type).bindTo(cipher);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot find " + name, e);
+        }
+    }
+
+    /**
+     * @return a new {@code Encryption} or {@code Decryption}
+     */
+    private static Object create(String mode, MethodType constructor, Object... arguments) {
+        try {
+            Class<?> type = Class.forName(mode.equals("enc") ? "Encryption" : "Decryption");
+            return LOOKUP.findConstructor(type, constructor).invokeWithArguments(arguments);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create the cipher", e);
+        }
+    }
+
+    /**
+     * @return the method of the given name bound to the cipher
+     */
+    private static Operation bind(Object cipher, String name) {
+        try {
+            MethodHandle method = LOOKUP.findVirtual(cipher.getClass(), name, MethodType.methodType(void.class))
+                    .bindTo(cipher);
+            return () -> {
+                method.invokeExact();
+            };
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot find " + name, e);
+        }
+    }
+}
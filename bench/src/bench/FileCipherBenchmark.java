@@ -0,0 +1,94 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Benchmarks the file methods of {@code Encryption} and {@code Decryption}.
+ *
+ * The input files are generated once in {@code target/bench-data} (or the directory given by the
+ * {@code bench.data} system property) and reused by later runs. The largest sizes take a while to
+ * generate and to measure, pick the sizes of a run with {@code -p size=1MB,64MB}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8"})
+public class FileCipherBenchmark {
+    @Param({"1KB", "1MB", "64MB", "1GB"})
+    public String size;
+
+    @Param({"ASCII", "PROSE", "UNICODE"})
+    public String mix;
+
+    @Param({"unicode", "shift"})
+    public String alg;
+
+    @Param({"enc", "dec"})
+    public String mode;
+
+    @Param({"3", "25"})
+    public int key;
+
+    private Ciphers.Operation cipher;
+    private long bytes;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path directory = Paths.get(System.getProperty("bench.data", "target/bench-data"));
+        Files.createDirectories(directory);
+        Path input = BenchmarkData.file(directory, this.mix, BenchmarkData.bytes(this.size));
+        this.bytes = Files.size(input);
+        this.output = Files.createTempFile(directory, "output", ".txt");
+        this.cipher = Ciphers.file(this.alg, this.mode, input.toFile(), this.output.toFile(), this.key);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.output);
+    }
+
+    @Benchmark
+    public File file(Throughput throughput) throws Throwable {
+        this.cipher.run();
+        throughput.add(this.bytes);
+        return this.output.toFile();
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Benchmarks the text methods of {@code Encryption} and {@code Decryption}.
+ *
+ * The text methods print their result, so the standard output is sent to a null stream while they run;
+ * the cost of encoding the printed result is part of what is measured.
+ * {@code parallel} is the length from which a text is transformed in parallel, the largest value keeping every
+ * text on one thread as by default: comparing the two on a multi-core host tells whether, and from which length,
+ * {@code Cipher.PARALLEL_THRESHOLD} should be set.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dfile.encoding=UTF-8", "-Xmx4g"})
+public class TextCipherBenchmark {
+    @Param({"1KB", "1MB", "64MB"})
+    public String size;
+
+    @Param({"ASCII", "PROSE", "UNICODE"})
+    public String mix;
+
+    @Param({"unicode", "shift"})
+    public String alg;
+
+    @Param({"enc", "dec"})
+    public String mode;
+
+    @Param({"3", "25"})
+    public int key;
+
+    @Param({"65536", "2147483647"})
+    public String parallel;
+
+    private Ciphers.Operation cipher;
+    private long bytes;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // read once, when the Cipher class is loaded by the first text transformed
+        System.setProperty("cipher.parallel", this.parallel);
+        this.bytes = BenchmarkData.bytes(this.size);
+        String text = BenchmarkData.text(this.mix, this.bytes);
+        this.cipher = Ciphers.text(this.alg, this.mode, text, this.key);
+        this.out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void text(Throughput throughput) throws Throwable {
+        this.cipher.run();
+        throughput.add(this.bytes);
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Throughput} class reports how many megabytes a benchmark transformed per second,
+ * next to the operations per second JMH reports by itself.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    /**
+     * The number of megabytes transformed during the iteration, reported by JMH as MB/s.
+     */
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        this.megabytes = 0;
+    }
+
+    /**
+     * @param bytes the number of bytes transformed by one operation
+     */
+    public void add(long bytes) {
+        this.megabytes += bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * An {@code Algorithm} turns a key, as given on the command line, into the {@link CipherTable} that encrypts or
+ * decrypts with it. Algorithms are registered by name in {@link Algorithms}, which the menu dispatches through.
+ *
+ * The table is what every engine applies, so an algorithm supports texts, streams and chunked, pipelined or
+ * parallel files as soon as it can express itself as a table: a substitution of characters, or a
+ * {@link KeySchedule} whose shifts only depend on the position in the text.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public interface Algorithm {
+
+    /**
+     * @return the name of the algorithm, as given to -alg
+     */
+    String name();
+
+    /**
+     * @param key     the key, as given to -key
+     * @param encrypt {@code true} for the encryption table, {@code false} for the decryption table
+     * @param charset the charset of the files and streams the table is applied to
+     * @return the table of the key
+     * @throws IOException              if the key is stored in a file that cannot be read
+     * @throws IllegalArgumentException if the key is not valid for this algorithm or the charset is not supported
+     */
+    CipherTable table(String key, boolean encrypt, Charset charset) throws IOException;
+
+    /**
+     * Checks a key before anything is read, and gives the form it is used in.
+     *
+     * @param key the key, as given to -key
+     * @return the key in its canonical form, the key itself by default
+     * @throws IllegalArgumentException if the key can never be valid for this algorithm
+     */
+    default String normalize(String key) {
+        return key;
+    }
+}
@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Algorithms} class is the registry of the algorithms the program knows, by name:
+ *  - "unicode" and "shift": the original algorithms, the key is an integer
+ *  - "vigenere": every letter of the key, a word, shifts the letters of the text in turn
+ *  - "runningkey": the same with the letters of a text file as the key, the key is the path of that file
+ *
+ * Other algorithms can be added with {@link #register(Algorithm)}. Asking for an unknown name gives the shift
+ * algorithm, which has always been the default of the menu.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class Algorithms {
+    private static final Map<String, Algorithm> ALGORITHMS = new ConcurrentSkipListMap<>();
+
+    /**
+     * The algorithm used when the name given is not registered.
+     */
+    public static final String DEFAULT = "shift";
+
+    static {
+        register(new Substitution("unicode"));
+        register(new Substitution("shift"));
+        register(new Schedule("vigenere", key -> key));
+        register(new Schedule("runningkey", key -> Files.readString(Path.of(key), StandardCharsets.ISO_8859_1)));
+    }
+
+    private Algorithms() {
+    }
+
+    /**
+     * Registers an algorithm, replacing the one of the same name if any.
+     *
+     * @param algorithm the algorithm to register
+     */
+    public static void register(Algorithm algorithm) {
+        ALGORITHMS.put(algorithm.name(), algorithm);
+    }
+
+    /**
+     * @param name the name of the algorithm, as given to -alg
+     * @return the algorithm, or the {@link #DEFAULT} one if no algorithm has that name
+     */
+    public static Algorithm get(String name) {
+        Algorithm algorithm = ALGORITHMS.get(name);
+        return algorithm != null ? algorithm : ALGORITHMS.get(DEFAULT);
+    }
+
+    /**
+     * @return the names of the registered algorithms, in alphabetical order
+     */
+    public static Set<String> names() {
+        return ALGORITHMS.keySet();
+    }
+
+    /**
+     * The unicode and shift algorithms, whose key is an integer taken modulo 26 by {@link CipherTable}.
+     */
+    private record Substitution(String name) implements Algorithm {
+        @Override
+        public CipherTable table(String key, boolean encrypt, Charset charset) {
+            return CipherTable.of(this.name, Integer.parseInt(normalize(key)), encrypt, charset);
+        }
+
+        @Override
+        public String normalize(String key) {
+            try {
+                return String.valueOf(Math.floorMod(Integer.parseInt(key.trim()), 26));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("The key of the " + this.name + " algorithm must be an integer, not " + key + ".");
+            }
+        }
+    }
+
+    /**
+     * Reads the letters of a key schedule from the key given on the command line.
+     */
+    @FunctionalInterface
+    private interface KeySource {
+        CharSequence letters(String key) throws IOException;
+    }
+
+    /**
+     * The algorithms whose key is a schedule of shifts.
+     */
+    private record Schedule(String name, KeySource source) implements Algorithm {
+        @Override
+        public CipherTable table(String key, boolean encrypt, Charset charset) throws IOException {
+            return CipherTable.of(KeySchedule.of(this.source.letters(key), encrypt), charset);
+        }
+    }
+}
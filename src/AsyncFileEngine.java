@@ -0,0 +1,258 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code AsyncFileEngine} class encrypts or decrypts a file with {@link AsynchronousFileChannel}s, keeping up to
+ * a queue depth of chunks read or written at the same time, so that storage with a high latency, like a network
+ * volume, is kept busy instead of being waited on one request at a time.
+ *
+ * No thread waits for a chunk: each read completes in a handler, which transforms the chunks that are complete in
+ * order and starts their writes, and each write completes in a handler, which starts the next read.
+ * Reads may complete in any order, the chunks are transformed in order so that a UTF-8 character cut between two
+ * chunks is put back together, and the position of their result in the output file is known.
+ *
+ * The channels complete their requests on a shared pool of daemon threads. Some platforms, Linux among them,
+ * serve file requests from the threads of that pool, so the pool grows with the queue depth there.
+ *
+ * Only the single-byte charsets and UTF-8 are transformed as bytes, other charsets are streamed by the
+ * {@link ChunkedFileEngine}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class AsyncFileEngine {
+    /**
+     * The size in bytes of the buffers the chunks are read into, taken from the {@link BufferPool}.
+     */
+    public static final int CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * The room left at the start of every chunk read, for the end of a character cut by the previous chunk.
+     */
+    private static final int HEADROOM = Utf8Transcoder.MIN_CAPACITY;
+
+    /**
+     * The number of bytes of the input read in each chunk, so that a chunk and its headroom fill a buffer exactly.
+     */
+    private static final int STRIDE = CHUNK_SIZE - HEADROOM;
+
+    private static final ExecutorService IO = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "cipher-async-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final AsynchronousFileChannel in;
+    private final AsynchronousFileChannel out;
+    private final CipherTable table;
+    private final long size;
+    private final int chunks;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    // the next chunk to read, changed by the handlers
+    private final AtomicInteger nextRead = new AtomicInteger();
+    // the chunks read and not transformed yet, guarded by the lock of this object like the fields below
+    private final Map<Integer, ByteBuffer> completed = new HashMap<>();
+    private int nextTransform;
+    private final ByteBuffer carry = ByteBuffer.allocate(HEADROOM);
+    private long position;
+    private long outputPosition;
+    // the writes started and not completed yet
+    private int writing;
+
+    private AsyncFileEngine(AsynchronousFileChannel in, AsynchronousFileChannel out, CipherTable table) throws IOException {
+        this.in = in;
+        this.out = out;
+        this.table = table;
+        this.size = in.size();
+        this.chunks = (int) ((this.size + STRIDE - 1) / STRIDE);
+    }
+
+    /**
+     * Transforms the input file into the output file with up to {@code queueDepth} chunks read or written at a time.
+     *
+     * @param inputFile  the file to read
+     * @param outputFile the file to write, it is created or truncated
+     * @param table      the substitution applied to every character
+     * @param queueDepth the number of chunks in flight
+     * @throws IOException if there is an error reading or writing the files
+     */
+    public static void transform(File inputFile, File outputFile, CipherTable table, int queueDepth) throws IOException {
+        if (!PipelinedFileEngine.supports(table)) {
+            ChunkedFileEngine.transform(inputFile, outputFile, table);
+            return;
+        }
+        ChunkedFileEngine.run(inputFile, outputFile, (input, output) -> run(input, output, table, Math.max(1, queueDepth)));
+    }
+
+    /**
+     * Starts the first reads and waits for the last write.
+     */
+    private static void run(Path input, Path output, CipherTable table, int queueDepth) throws IOException {
+        try (AsynchronousFileChannel in = AsynchronousFileChannel.open(input, EnumSet.of(StandardOpenOption.READ), IO);
+             AsynchronousFileChannel out = AsynchronousFileChannel.open(output, EnumSet.of(StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), IO)) {
+            AsyncFileEngine engine = new AsyncFileEngine(in, out, table);
+            if (engine.chunks == 0) {
+                return;
+            }
+            for (int i = 0; i < queueDepth; i++) {
+                engine.read();
+            }
+            try {
+                engine.done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while transforming the file", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Starts reading the next chunk, if any is left.
+     */
+    private void read() {
+        int index = this.nextRead.getAndIncrement();
+        if (index >= this.chunks || this.done.isDone()) {
+            return;
+        }
+        long offset = (long) index * STRIDE;
+        int length = (int) Math.min(STRIDE, this.size - offset);
+        ByteBuffer buffer = BufferPool.acquire(HEADROOM + length);
+        buffer.position(HEADROOM);
+        read(index, buffer, offset);
+    }
+
+    private void read(int index, ByteBuffer buffer, long offset) {
+        long start = Metrics.start();
+        this.in.read(buffer, offset + buffer.position() - HEADROOM, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer read, Void attachment) {
+                Metrics.read(start, read);
+                if (read == -1) {
+                    fail(new IOException("The file was truncated while it was transformed."));
+                } else if (buffer.hasRemaining()) {
+                    read(index, buffer, offset);
+                } else {
+                    transform(index, buffer);
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                fail(e);
+            }
+        });
+    }
+
+    /**
+     * Transforms the chunks complete in order and starts their writes.
+     */
+    private void transform(int index, ByteBuffer buffer) {
+        synchronized (this) {
+            this.completed.put(index, buffer);
+            ByteBuffer chunk;
+            while ((chunk = this.completed.remove(this.nextTransform)) != null) {
+                boolean last = ++this.nextTransform == this.chunks;
+                // the end of the character cut by the previous chunk goes in front of this one
+                int start = HEADROOM - this.carry.flip().remaining();
+                chunk.position(start);
+                chunk.put(this.carry);
+                this.carry.clear();
+                chunk.position(start);
+                if (!last && !this.table.isSingleByte()) {
+                    int length = Utf8Transcoder.complete(chunk.slice()) + start;
+                    this.carry.put(chunk.duplicate().position(length));
+                    chunk.limit(length);
+                }
+                long source = this.position;
+                this.position += chunk.remaining();
+                ByteBuffer result = ParallelFileEngine.transform(chunk, source, this.table);
+                if (result != chunk) {
+                    // UTF-8 is transcoded into another buffer, the one read is not needed anymore
+                    BufferPool.release(chunk);
+                }
+                long offset = this.outputPosition;
+                this.outputPosition += result.remaining();
+                this.writing++;
+                write(result, offset);
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer, long offset) {
+        long start = Metrics.start();
+        this.out.write(buffer, offset, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer written, Void attachment) {
+                Metrics.written(start, written);
+                if (buffer.hasRemaining()) {
+                    write(buffer, offset + written);
+                    return;
+                }
+                BufferPool.release(buffer);
+                if (written()) {
+                    AsyncFileEngine.this.done.complete(null);
+                } else {
+                    read();
+                }
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                fail(e);
+            }
+        });
+    }
+
+    /**
+     * Counts a write as completed.
+     *
+     * @return {@code true} if it was the last one, every chunk being transformed and written
+     */
+    private synchronized boolean written() {
+        return --this.writing == 0 && this.nextTransform == this.chunks;
+    }
+
+    private void fail(Throwable e) {
+        this.done.completeExceptionally(e);
+    }
+}
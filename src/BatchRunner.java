@@ -0,0 +1,173 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code BatchRunner} class encrypts or decrypts many files in a single run.
+ *
+ * The files come either from a directory, which is walked recursively, or from a manifest listing one file per
+ * line (blank lines and lines starting with '#' are ignored, relative paths are relative to the manifest).
+ * The tree of the input files is mirrored in the output directory.
+ *
+ * The files are processed on a fixed pool of worker threads, and files are only handed to the pool when a worker
+ * is about to be free, so the queue of the pool stays short whatever the size of the tree. A file that fails is
+ * reported and counted, the other files are still processed.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class BatchRunner {
+    /**
+     * The number of files per worker that may wait for a worker.
+     */
+    private static final int QUEUED_PER_WORKER = 4;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * The operation applied to every file of the batch.
+     */
+    @FunctionalInterface
+    public interface FileOperation {
+        /**
+         * @param inputFile  the file to read
+         * @param outputFile the file to write
+         * @throws IOException if there is an error reading or writing the files
+         */
+        void apply(File inputFile, File outputFile) throws IOException;
+    }
+
+    /**
+     * The outcome of a batch.
+     *
+     * @param files    the number of files processed successfully
+     * @param failures the number of files that could not be processed
+     * @param bytes    the number of bytes read from the files processed successfully
+     * @param nanos    the time the batch took
+     */
+    public record Summary(long files, long failures, long bytes, long nanos) {
+        /**
+         * @return the throughput of the batch in megabytes per second
+         */
+        public double megabytesPerSecond() {
+            return this.nanos == 0 ? 0 : this.bytes / (1024.0 * 1024.0) / (this.nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files (%d failed), %d bytes in %.3f s, %.2f MB/s",
+                    this.files, this.failures, this.bytes, this.nanos / 1e9, megabytesPerSecond());
+        }
+    }
+
+    /**
+     * Runs the operation on every file of a directory or of a manifest.
+     *
+     * @param source          a directory, or a manifest file listing the files
+     * @param outputDirectory the directory the output tree is written to
+     * @param workers         the number of worker threads
+     * @param operation       the operation applied to every file
+     * @return the summary of the batch
+     * @throws IOException if the source cannot be read
+     */
+    public static Summary run(Path source, Path outputDirectory, int workers, FileOperation operation) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong files = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+
+        workers = Math.max(1, workers);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        Semaphore queued = new Semaphore(workers * QUEUED_PER_WORKER);
+        try {
+            for (Path[] pair : inputs(source, outputDirectory)) {
+                Path input = pair[0];
+                Path output = pair[1];
+                queued.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        Files.createDirectories(output.toAbsolutePath().getParent());
+                        operation.apply(input.toFile(), output.toFile());
+                        bytes.addAndGet(Files.size(input));
+                        files.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        failures.incrementAndGet();
+                        System.err.println("Cannot process " + input + ": " + e.getMessage());
+                    } finally {
+                        queued.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+        return new Summary(files.get(), failures.get(), bytes.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Lists the input files and the output file of each of them.
+     */
+    private static List<Path[]> inputs(Path source, Path outputDirectory) throws IOException {
+        List<Path[]> inputs = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> tree = Files.walk(source)) {
+                tree.filter(Files::isRegularFile)
+                        .forEach(input -> inputs.add(new Path[]{input, outputDirectory.resolve(source.relativize(input))}));
+            }
+            return inputs;
+        }
+
+        Path base = source.toAbsolutePath().getParent();
+        for (String line : Files.readAllLines(source)) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Path entry = Path.of(line);
+            Path input = base.resolve(entry).normalize();
+            // absolute entries are mirrored from the root of their file system
+            Path relative = entry.isAbsolute() ? entry.getRoot().relativize(entry) : entry.normalize();
+            inputs.add(new Path[]{input, outputDirectory.resolve(relative)});
+        }
+        return inputs;
+    }
+
+    /**
+     * Waits for the files that are still being processed.
+     */
+    private static void awaitTermination(ExecutorService pool) throws IOException {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, big files may take a while
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the batch to finish", e);
+        }
+    }
+}
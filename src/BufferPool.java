@@ -0,0 +1,259 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code BufferPool} class lends the direct buffers of the file engines, the heap buffers of the streams and
+ * the scratch arrays of the texts, so that a batch or a daemon transforming file after file does not allocate them
+ * again and again.
+ *
+ * Buffers are kept by kind, direct or heap, and size class, the powers of two from {@link #MIN_CAPACITY} to
+ * {@link #MAX_CAPACITY}:
+ *  - every thread has a slot per class, a buffer released there is acquired again by the same thread without
+ *  any synchronization
+ *  - the other buffers released go to a shared queue of at most {@link #MAX_POOLED} buffers per class, and the
+ *  ones beyond are left to the garbage collector, which bounds the memory the pool holds
+ *
+ * A buffer acquired must be released exactly once, and not used anymore after that. With leak detection on,
+ * see {@link #setLeakDetection(boolean)}, the pool remembers where every buffer was acquired, so that the buffers
+ * never released are found with {@link #leaks()}, and a buffer released twice is refused.
+ *
+ * The scratch arrays, {@link #chars(int)} and {@link #bytes(int)}, belong to the calling thread and are only valid
+ * until its next call: they are never released.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class BufferPool {
+    /**
+     * The capacity of the smallest buffers pooled.
+     */
+    public static final int MIN_CAPACITY = 4 * 1024;
+
+    /**
+     * The capacity of the largest buffers pooled, larger buffers are allocated and dropped every time.
+     */
+    public static final int MAX_CAPACITY = 4 * 1024 * 1024;
+
+    /**
+     * The number of buffers of every class kept in the shared queues.
+     */
+    public static final int MAX_POOLED = 16;
+
+    /**
+     * The length of the largest scratch arrays kept by a thread.
+     */
+    private static final int MAX_SCRATCH = 1024 * 1024;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_CAPACITY) - MIN_SHIFT + 1;
+
+    private static final List<BlockingQueue<ByteBuffer>> SHARED = new ArrayList<>();
+    // the direct buffers first, then the heap buffers
+    private static final ThreadLocal<ByteBuffer[]> LOCAL = ThreadLocal.withInitial(() -> new ByteBuffer[2 * CLASSES]);
+    private static final ThreadLocal<char[]> CHARS = ThreadLocal.withInitial(() -> new char[256]);
+    private static final ThreadLocal<byte[]> BYTES = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private static final LongAdder ACQUIRED = new LongAdder();
+    private static final LongAdder RELEASED = new LongAdder();
+    private static final LongAdder ALLOCATED = new LongAdder();
+
+    private static final Map<ByteBuffer, Throwable> OUTSTANDING = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static volatile boolean leakDetection;
+
+    static {
+        for (int i = 0; i < 2 * CLASSES; i++) {
+            SHARED.add(new ArrayBlockingQueue<>(MAX_POOLED));
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    /**
+     * What the pool did since the program started.
+     *
+     * @param acquired    the number of buffers acquired
+     * @param released    the number of buffers released
+     * @param allocated   the number of buffers allocated because none was free
+     * @param outstanding the number of buffers acquired and not released, known with leak detection only
+     */
+    public record Stats(long acquired, long released, long allocated, long outstanding) {
+        @Override
+        public String toString() {
+            return String.format("%d acquired, %d released, %d allocated, %s",
+                    this.acquired, this.released, this.allocated,
+                    this.outstanding < 0 ? "no leak detection" : this.outstanding + " outstanding");
+        }
+    }
+
+    /**
+     * @return what the pool did since the program started
+     */
+    public static Stats stats() {
+        return new Stats(ACQUIRED.sum(), RELEASED.sum(), ALLOCATED.sum(), leakDetection ? OUTSTANDING.size() : -1);
+    }
+
+    /**
+     * Turns the leak detection on or off. It records the stack of every acquisition, so it costs an exception
+     * per buffer acquired: it is meant for tests and for {@code --stats}.
+     *
+     * @param enabled {@code true} to detect the buffers never released and the ones released twice
+     */
+    public static void setLeakDetection(boolean enabled) {
+        leakDetection = enabled;
+        if (!enabled) {
+            OUTSTANDING.clear();
+        }
+    }
+
+    /**
+     * @return where the buffers acquired and not released yet were acquired, empty without leak detection
+     */
+    public static List<Throwable> leaks() {
+        synchronized (OUTSTANDING) {
+            return new ArrayList<>(OUTSTANDING.values());
+        }
+    }
+
+    /**
+     * Acquires a direct buffer, cleared, whose limit is {@code capacity}. Its capacity may be larger.
+     *
+     * @param capacity the number of bytes needed
+     * @return a direct buffer to release with {@link #release(ByteBuffer)}
+     */
+    public static ByteBuffer acquire(int capacity) {
+        return acquire(capacity, true);
+    }
+
+    /**
+     * Acquires a heap buffer, cleared, whose limit is {@code capacity}. Its capacity may be larger, and its array
+     * starts at the start of the buffer, so that it can be handed to streams.
+     *
+     * @param capacity the number of bytes needed
+     * @return a heap buffer to release with {@link #release(ByteBuffer)}
+     */
+    public static ByteBuffer acquireHeap(int capacity) {
+        return acquire(capacity, false);
+    }
+
+    private static ByteBuffer acquire(int capacity, boolean direct) {
+        ACQUIRED.increment();
+        int index = index(capacity);
+        int slot = slot(index, direct);
+        ByteBuffer buffer = null;
+        if (index >= 0) {
+            ByteBuffer[] local = LOCAL.get();
+            buffer = local[slot];
+            local[slot] = null;
+            if (buffer == null) {
+                buffer = SHARED.get(slot).poll();
+            }
+        }
+        if (buffer == null) {
+            ALLOCATED.increment();
+            int size = index >= 0 ? MIN_CAPACITY << index : capacity;
+            buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+        if (leakDetection) {
+            OUTSTANDING.put(buffer, new Throwable("Buffer of " + capacity + " bytes acquired"));
+        }
+        return buffer.clear().limit(capacity);
+    }
+
+    /**
+     * Gives a buffer back to the pool. The buffer is not used anymore by the caller.
+     *
+     * @param buffer a buffer returned by {@link #acquire(int)} or {@link #acquireHeap(int)}, {@code null} is ignored
+     * @throws IllegalStateException with leak detection, if the buffer was already released or does not come from the pool
+     */
+    public static void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (leakDetection && OUTSTANDING.remove(buffer) == null) {
+            throw new IllegalStateException("The buffer was released twice, or was not acquired from the pool.");
+        }
+        RELEASED.increment();
+        int index = index(buffer.capacity());
+        if (index < 0 || MIN_CAPACITY << index != buffer.capacity() || !buffer.isDirect() && buffer.arrayOffset() != 0) {
+            return;
+        }
+        int slot = slot(index, buffer.isDirect());
+        ByteBuffer[] local = LOCAL.get();
+        if (local[slot] == null) {
+            local[slot] = buffer;
+        } else {
+            SHARED.get(slot).offer(buffer);
+        }
+    }
+
+    /**
+     * @param length the number of characters needed
+     * @return an array of at least {@code length} characters that belongs to the calling thread until its next call
+     */
+    public static char[] chars(int length) {
+        char[] chars = CHARS.get();
+        if (chars.length >= length) {
+            return chars;
+        }
+        chars = new char[Math.max(length, 2 * chars.length)];
+        if (chars.length <= MAX_SCRATCH) {
+            CHARS.set(chars);
+        }
+        return chars;
+    }
+
+    /**
+     * @param length the number of bytes needed
+     * @return an array of at least {@code length} bytes that belongs to the calling thread until its next call
+     */
+    public static byte[] bytes(int length) {
+        byte[] bytes = BYTES.get();
+        if (bytes.length >= length) {
+            return bytes;
+        }
+        bytes = new byte[Math.max(length, 2 * bytes.length)];
+        if (bytes.length <= MAX_SCRATCH) {
+            BYTES.set(bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the position of the buffers of a size class and a kind in the slots and the shared queues
+     */
+    private static int slot(int index, boolean direct) {
+        return direct ? index : CLASSES + index;
+    }
+
+    /**
+     * @return the size class of the capacity, -1 if buffers of that capacity are not pooled
+     */
+    private static int index(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            return -1;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, MIN_CAPACITY) - 1);
+        return shift - MIN_SHIFT;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * A {@code CharTransform} maps a single character to its encrypted or decrypted form.
+ *
+ * Both the unicode and the shift algorithms are stateless per character, so a transform
+ * can be applied to any piece of a text or a file independently of the rest of it.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+@FunctionalInterface
+public interface CharTransform {
+
+    /**
+     * @param c the character to transform
+     * @return the transformed character
+     */
+    char apply(char c);
+
+    /**
+     * Transforms {@code len} characters of {@code buf} in place, starting at {@code off}.
+     *
+     * @param buf the characters to transform
+     * @param off the index of the first character to transform
+     * @param len the number of characters to transform
+     */
+    default void apply(char[] buf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            buf[i] = apply(buf[i]);
+        }
+    }
+}
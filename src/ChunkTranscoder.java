@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code ChunkTranscoder} class decodes chunks of bytes into characters, applies a {@link CharTransform}
+ * to them and encodes the result back into bytes.
+ *
+ * A transcoder keeps the state needed between two chunks (a multibyte character split over a chunk boundary,
+ * a surrogate pair waiting for its second half), so a file of any size can be fed to it one buffer at a time
+ * and the output is exactly what {@code FileReader}/{@code FileWriter} would have produced for the same charset.
+ * Malformed input and unmappable characters are replaced, just like the reader and writer do.
+ *
+ * A transcoder is not thread-safe; use one instance per stream.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class ChunkTranscoder {
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+    private final CharTransform transform;
+    private final CharBuffer chars;
+    private final ByteBuffer out;
+
+    /**
+     * @param charset   the charset of the input and of the output
+     * @param transform the transform applied to every decoded character
+     * @param chunkSize the size of the internal character and byte buffers
+     */
+    public ChunkTranscoder(Charset charset, CharTransform transform, int chunkSize) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.transform = transform;
+        this.chars = CharBuffer.allocate(chunkSize);
+        this.out = ByteBuffer.allocate(chunkSize);
+    }
+
+    /**
+     * Transforms the remaining bytes of {@code src} and writes the result to {@code sink}.
+     *
+     * Bytes that do not form a complete character yet are left in {@code src}; the caller is expected to
+     * compact the buffer and call this method again once more input is available.
+     *
+     * @param src        the bytes to transform
+     * @param endOfInput {@code true} if {@code src} holds the last bytes of the input
+     * @param sink       the channel the transformed bytes are written to
+     * @throws IOException if there is an error writing to the sink
+     */
+    public void transform(ByteBuffer src, boolean endOfInput, WritableByteChannel sink) throws IOException {
+        CoderResult result;
+        do {
+            int start = this.chars.position();
+            result = this.decoder.decode(src, this.chars, endOfInput);
+            boolean last = endOfInput && result.isUnderflow();
+            if (last) {
+                this.decoder.flush(this.chars);
+            }
+            // only the characters decoded by this call are transformed, leftovers of the encoder already were
+            this.transform.apply(this.chars.array(), this.chars.arrayOffset() + start, this.chars.position() - start);
+            encode(last, sink);
+        } while (result.isOverflow());
+
+        if (endOfInput) {
+            while (this.encoder.flush(this.out).isOverflow()) {
+                drain(sink);
+            }
+        }
+        drain(sink);
+    }
+
+    /**
+     * Encodes the pending characters into the output buffer, draining it whenever it fills up.
+     */
+    private void encode(boolean endOfInput, WritableByteChannel sink) throws IOException {
+        this.chars.flip();
+        while (this.encoder.encode(this.chars, this.out, endOfInput).isOverflow()) {
+            drain(sink);
+        }
+        this.chars.compact();
+    }
+
+    /**
+     * Writes the content of the output buffer to the sink.
+     */
+    private void drain(WritableByteChannel sink) throws IOException {
+        this.out.flip();
+        while (this.out.hasRemaining()) {
+            sink.write(this.out);
+        }
+        this.out.clear();
+    }
+}
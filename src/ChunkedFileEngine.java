@@ -0,0 +1,201 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code ChunkedFileEngine} class encrypts or decrypts a file by streaming it through fixed-size buffers.
+ *
+ * Only one chunk of the input is held in memory at any time, so the memory used stays the same whatever the
+ * size of the file. Unlike reading the file line by line, the original line endings are kept as they are.
+ *
+ * Single-byte charsets and UTF-8 are transformed as bytes, only the other charsets are decoded into characters.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class ChunkedFileEngine {
+    /**
+     * The size in bytes of the buffers used to read and write the files.
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private ChunkedFileEngine() {
+    }
+
+    /**
+     * Transforms the input file into the output file.
+     *
+     * The files are read and written in the charset of the table. When that charset stores every character on a
+     * single byte, the chunks are transformed byte by byte through the table without being decoded at all,
+     * UTF-8 chunks go through the {@link Utf8Transcoder} which only decodes the characters outside of ASCII.
+     *
+     * @param inputFile  the file to read
+     * @param outputFile the file to write, it is created or truncated
+     * @param table      the substitution applied to every character
+     * @throws IOException if there is an error reading or writing the files
+     */
+    public static void transform(File inputFile, File outputFile, CipherTable table) throws IOException {
+        run(inputFile, outputFile, (input, output) -> stream(input, output, table));
+    }
+
+    /**
+     * A job reading an input file and writing an output file, run by {@link #run(File, File, FileJob)}.
+     */
+    @FunctionalInterface
+    public interface FileJob {
+        /**
+         * @param input  the file to read
+         * @param output the file to write
+         * @throws IOException if there is an error reading or writing the files
+         */
+        void run(Path input, Path output) throws IOException;
+    }
+
+    /**
+     * Runs a job from the input file to the output file.
+     *
+     * If both files are the same, the job writes next to it and the result is then moved over the input,
+     * so the input is never truncated before it has been read.
+     *
+     * @param inputFile  the file to read
+     * @param outputFile the file to write
+     * @param job        the job to run
+     * @throws IOException if there is an error reading or writing the files
+     */
+    public static void run(File inputFile, File outputFile, FileJob job) throws IOException {
+        Path input = inputFile.toPath();
+        Path output = outputFile.toPath();
+
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            Path temporary = Files.createTempFile(output.toAbsolutePath().getParent(), output.getFileName().toString(), ".tmp");
+            try {
+                job.run(input, temporary);
+                Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } else {
+            job.run(input, output);
+        }
+    }
+
+    /**
+     * Reads the input one chunk at a time and writes each transformed chunk to the output.
+     */
+    private static void stream(Path input, Path output, CipherTable table) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            if (table.isSingleByte()) {
+                streamBytes(in, out, table);
+                return;
+            }
+            if (table.getCharset().equals(StandardCharsets.UTF_8)) {
+                streamUtf8(in, out, table);
+                return;
+            }
+
+            ChunkTranscoder transcoder = new ChunkTranscoder(table.getCharset(), table, CHUNK_SIZE);
+            ByteBuffer buffer = BufferPool.acquire(CHUNK_SIZE);
+
+            WritableByteChannel sink = Metrics.counting(out);
+            while (read(in, buffer) != -1) {
+                buffer.flip();
+                transcoder.transform(buffer, false, sink);
+                // keep the bytes of an incomplete character for the next chunk
+                buffer.compact();
+            }
+            buffer.flip();
+            transcoder.transform(buffer, true, sink);
+            BufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Transforms every byte of the input through the byte table of a single-byte charset.
+     */
+    private static void streamBytes(FileChannel in, FileChannel out, CipherTable table) throws IOException {
+        ByteBuffer buffer = BufferPool.acquire(CHUNK_SIZE);
+        long position = 0;
+
+        while (read(in, buffer) != -1) {
+            buffer.flip();
+            table.apply(buffer, 0, buffer.limit(), position);
+            position += buffer.limit();
+            while (buffer.hasRemaining()) {
+                long start = Metrics.start();
+                Metrics.written(start, out.write(buffer));
+            }
+            buffer.clear();
+        }
+        BufferPool.release(buffer);
+    }
+
+    /**
+     * Transforms the UTF-8 bytes of the input through the {@link Utf8Transcoder}, without decoding them into a
+     * {@code char[]} first.
+     */
+    private static void streamUtf8(FileChannel in, FileChannel out, CipherTable table) throws IOException {
+        ByteBuffer buffer = BufferPool.acquire(CHUNK_SIZE);
+        ByteBuffer result = BufferPool.acquire(CHUNK_SIZE);
+        boolean end = false;
+
+        while (!end) {
+            end = read(in, buffer) == -1;
+            buffer.flip();
+            while (Utf8Transcoder.transform(buffer, result, table, end).isOverflow()) {
+                write(out, result);
+            }
+            write(out, result);
+            // keep the bytes of an incomplete character for the next chunk
+            buffer.compact();
+        }
+        BufferPool.release(buffer);
+        BufferPool.release(result);
+    }
+
+    /**
+     * Writes what {@code buffer} holds and clears it.
+     */
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            Metrics.written(start, out.write(buffer));
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads from {@code in} into {@code buffer}.
+     *
+     * @return the number of bytes read, or -1 at the end of the file
+     */
+    private static int read(FileChannel in, ByteBuffer buffer) throws IOException {
+        long start = Metrics.start();
+        int count = in.read(buffer);
+        Metrics.read(start, count);
+        return count;
+    }
+}
@@ -0,0 +1,309 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Cipher} class is the library entry point of the unicode and shift algorithms.
+ *
+ * Unlike the text methods of {@code Encryption} and {@code Decryption}, which print their result,
+ * a {@code Cipher} returns it or writes it into a buffer given by the caller. It works on:
+ *  - {@code CharSequence} and {@code char[]}: every character is transformed through the {@link CipherTable}
+ *  - {@code ByteBuffer}: the bytes are transformed in the charset of the cipher, through the byte table for a
+ *  single-byte charset and through the {@link Utf8Transcoder} for UTF-8
+ *  - {@code InputStream}/{@code OutputStream}: the stream is transformed chunk by chunk in the charset of the cipher
+ *
+ * A cipher is immutable and thread-safe, and none of the methods writing into a caller supplied buffer allocates.
+ * When {@code -Dcipher.parallel} sets a {@link #PARALLEL_THRESHOLD}, texts at least that long are cut in slices
+ * transformed in parallel on the common {@link ForkJoinPool}. By default every text is transformed on the calling
+ * thread.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class Cipher {
+    /**
+     * The length from which a text is transformed in parallel, set with {@code -Dcipher.parallel}. The parallel
+     * path is off by default: it has only been measured on a single core, where handing the slices over to other
+     * threads costs up to a third of the throughput from 256 Ki to 4 Mi characters and gains nothing from 16 Mi,
+     * see {@code bench/results/parallel.txt}. Set a threshold after running {@code TextCipherBenchmark} on the
+     * cores the program runs on.
+     */
+    public static final int PARALLEL_THRESHOLD = Integer.getInteger("cipher.parallel", Integer.MAX_VALUE);
+
+    /**
+     * The number of characters of the slices of a text transformed in parallel.
+     */
+    private static final int SLICE_SIZE = 64 * 1024;
+
+    private final CipherTable table;
+
+    private Cipher(CipherTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Returns a cipher using the platform default charset for bytes.
+     *
+     * @param algorithm the algorithm, "unicode" or "shift"
+     * @param key the key used to encrypt or decrypt
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @return the cipher
+     */
+    public static Cipher of(String algorithm, int key, boolean encrypt) {
+        return new Cipher(CipherTable.of(algorithm, key, encrypt));
+    }
+
+    /**
+     * @param algorithm the algorithm, "unicode" or "shift"
+     * @param key the key used to encrypt or decrypt
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @param charset the charset of the bytes given to the cipher
+     * @return the cipher
+     */
+    public static Cipher of(String algorithm, int key, boolean encrypt, Charset charset) {
+        return new Cipher(CipherTable.of(algorithm, key, encrypt, charset));
+    }
+
+    /**
+     * Returns a cipher applying a table of any algorithm, as given by {@link Algorithms}.
+     *
+     * @param table the table to apply, in the charset of the bytes given to the cipher
+     * @return the cipher
+     */
+    public static Cipher of(CipherTable table) {
+        return new Cipher(table);
+    }
+
+    /**
+     * @return the charset of the bytes given to this cipher
+     */
+    public Charset getCharset() {
+        return this.table.getCharset();
+    }
+
+    /**
+     * @return the substitution table of this cipher
+     */
+    public CipherTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * @param text the text to transform
+     * @return the transformed text
+     */
+    public String apply(CharSequence text) {
+        // the characters are only copied once more, into the string
+        char[] result = BufferPool.chars(text.length());
+        apply(text, result, 0);
+        return new String(result, 0, text.length());
+    }
+
+    /**
+     * Transforms a text into a caller supplied array.
+     *
+     * A text of at least {@link #PARALLEL_THRESHOLD} characters is transformed in parallel, each slice being
+     * copied and transformed by the thread that took it. The text must not change while it is transformed.
+     *
+     * @param text   the text to transform
+     * @param dst    the array the transformed text is written to
+     * @param offset the index of {@code dst} the transformed text starts at
+     * @return the number of characters written, i.e. the length of the text
+     */
+    public int apply(CharSequence text, char[] dst, int offset) {
+        return Metrics.timed("text", () -> {
+            int length = text.length();
+            // the shifts of a key schedule depend on the bytes of everything before, so it stays on one thread
+            if (length >= PARALLEL_THRESHOLD && this.table.getSchedule() == null
+                    && ForkJoinPool.getCommonPoolParallelism() > 1) {
+                IntStream.range(0, (length + SLICE_SIZE - 1) / SLICE_SIZE).parallel().forEach(slice -> {
+                    int from = slice * SLICE_SIZE;
+                    apply(text, from, Math.min(length, from + SLICE_SIZE), dst, offset);
+                });
+            } else {
+                apply(text, 0, length, dst, offset);
+            }
+            return length;
+        });
+    }
+
+    /**
+     * Copies the characters of {@code text} from {@code from} to {@code to} at the same index of {@code dst},
+     * shifted by {@code offset}, and transforms them.
+     */
+    private void apply(CharSequence text, int from, int to, char[] dst, int offset) {
+        if (text instanceof String string) {
+            string.getChars(from, to, dst, offset + from);
+        } else {
+            for (int i = from; i < to; i++) {
+                dst[offset + i] = text.charAt(i);
+            }
+        }
+        this.table.apply(dst, offset + from, to - from);
+    }
+
+    /**
+     * Transforms {@code length} characters of {@code src} into {@code dst}, both arrays may be the same.
+     *
+     * @param src       the characters to transform
+     * @param srcOffset the index of the first character to transform
+     * @param dst       the array the transformed characters are written to
+     * @param dstOffset the index of {@code dst} the transformed characters start at
+     * @param length    the number of characters to transform
+     */
+    public void apply(char[] src, int srcOffset, char[] dst, int dstOffset, int length) {
+        if (src != dst || srcOffset != dstOffset) {
+            System.arraycopy(src, srcOffset, dst, dstOffset, length);
+        }
+        this.table.apply(dst, dstOffset, length);
+    }
+
+    /**
+     * Transforms the bytes of {@code src} into {@code dst}, advancing both positions.
+     *
+     * Bytes of a character that is not complete yet are left in {@code src} unless {@code endOfInput} is set,
+     * so a stream can be transformed one buffer at a time by compacting {@code src} between the calls.
+     * A key schedule starts over at every call, streams go through {@link #apply(InputStream, OutputStream)}.
+     *
+     * @param src        the bytes to transform
+     * @param dst        the buffer the transformed bytes are written to
+     * @param endOfInput {@code true} if {@code src} holds the last bytes of the input
+     * @return {@link CoderResult#OVERFLOW} if {@code dst} is full, {@link CoderResult#UNDERFLOW} if more input is needed
+     * @throws UnsupportedOperationException if the charset of the cipher is neither UTF-8 nor a single-byte charset,
+     * use {@link #apply(InputStream, OutputStream)} for those
+     */
+    public CoderResult apply(ByteBuffer src, ByteBuffer dst, boolean endOfInput) {
+        if (this.table.isSingleByte()) {
+            int length = Math.min(src.remaining(), dst.remaining());
+            int sp = src.position();
+            int dp = dst.position();
+            dst.put(dp, src, sp, length);
+            this.table.apply(dst, dp, dp + length);
+            src.position(sp + length);
+            dst.position(dp + length);
+            return src.hasRemaining() ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+        }
+        if (this.table.getCharset().equals(StandardCharsets.UTF_8)) {
+            return Utf8Transcoder.transform(src, dst, this.table, endOfInput);
+        }
+        throw new UnsupportedOperationException("Byte buffers in " + this.table.getCharset() + " are not supported");
+    }
+
+    /**
+     * Transforms everything read from {@code in} and writes it to {@code out}. Neither stream is closed.
+     *
+     * The result of every read is written and flushed right away: a pipe or a file is processed in large blocks,
+     * while a stream fed one line at a time, like a terminal, gets each line back as soon as it is typed.
+     *
+     * @param in  the stream to read
+     * @param out the stream to write
+     * @return the number of bytes read
+     * @throws IOException if there is an error reading or writing the streams
+     */
+    public long apply(InputStream in, OutputStream out) throws IOException {
+        return Metrics.timed("stream", () -> {
+            boolean bytes = this.table.isSingleByte() || this.table.getCharset().equals(StandardCharsets.UTF_8);
+            ChunkTranscoder transcoder = bytes ? null
+                    : new ChunkTranscoder(this.table.getCharset(), this.table, ChunkedFileEngine.CHUNK_SIZE);
+            WritableByteChannel sink = Metrics.counting(Channels.newChannel(out));
+            // heap buffers, their arrays are read and written by the streams
+            ByteBuffer buffer = BufferPool.acquireHeap(ChunkedFileEngine.CHUNK_SIZE);
+            ByteBuffer result = BufferPool.acquireHeap(ChunkedFileEngine.CHUNK_SIZE);
+            long total = 0;
+            int read;
+            while ((read = read(in, buffer)) != -1) {
+                buffer.position(buffer.position() + read);
+                buffer.flip();
+                if (this.table.isSingleByte()) {
+                    this.table.apply(buffer.array(), 0, buffer.limit(), total);
+                    write(out, buffer.array(), buffer.limit());
+                    buffer.clear();
+                } else {
+                    if (bytes) {
+                        drain(buffer, result, false, out);
+                    } else {
+                        transcoder.transform(buffer, false, sink);
+                    }
+                    // keep the bytes of an incomplete character for the next read
+                    buffer.compact();
+                }
+                total += read;
+                flush(out);
+            }
+            buffer.flip();
+            if (bytes) {
+                drain(buffer, result, true, out);
+            } else {
+                transcoder.transform(buffer, true, sink);
+            }
+            flush(out);
+            BufferPool.release(buffer);
+            BufferPool.release(result);
+            return total;
+        });
+    }
+
+    /**
+     * Transforms {@code src} into {@code dst} and writes {@code dst} to {@code out} until {@code src} is consumed,
+     * or only the bytes of an incomplete character are left.
+     */
+    private void drain(ByteBuffer src, ByteBuffer dst, boolean endOfInput, OutputStream out) throws IOException {
+        CoderResult result;
+        do {
+            result = apply(src, dst, endOfInput);
+            write(out, dst.array(), dst.position());
+            dst.clear();
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Reads into the free room of {@code buffer}, without moving its position.
+     *
+     * @return the number of bytes read, or -1 at the end of the stream
+     */
+    private static int read(InputStream in, ByteBuffer buffer) throws IOException {
+        long start = Metrics.start();
+        int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+        Metrics.read(start, read);
+        return read;
+    }
+
+    /**
+     * Writes the first {@code length} bytes of {@code bytes}.
+     */
+    private static void write(OutputStream out, byte[] bytes, int length) throws IOException {
+        long start = Metrics.start();
+        out.write(bytes, 0, length);
+        Metrics.written(start, length);
+    }
+
+    /**
+     * Flushes {@code out}, the time spent is waiting on the output as well.
+     */
+    private static void flush(OutputStream out) throws IOException {
+        long start = Metrics.start();
+        out.flush();
+        Metrics.written(start, 0);
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code CipherClient} class sends requests to a running {@link CipherServer}, so that a command does not
+ * pay for starting and warming up a JVM of its own.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class CipherClient {
+
+    private CipherClient() {
+    }
+
+    /**
+     * Sends a single request to the server and waits for its response.
+     *
+     * @param address the address of the server, see {@link CipherServer#address(String)}
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @param alg     "unicode" or "shift"
+     * @param key     the key
+     * @param payload the UTF-8 bytes to transform
+     * @return the transformed UTF-8 bytes
+     * @throws IOException if the server cannot be reached or reports an error
+     */
+    public static byte[] request(SocketAddress address, boolean encrypt, String alg, int key, byte[] payload) throws IOException {
+        if (payload.length > CipherServer.MAX_FRAME - 6) {
+            throw new IOException("The payload is too large for the server");
+        }
+        try (SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open()) {
+            channel.connect(address);
+
+            ByteBuffer request = ByteBuffer.allocate(Integer.BYTES + 6 + payload.length);
+            request.putInt(6 + payload.length)
+                    .put(encrypt ? CipherServer.ENCRYPT : CipherServer.DECRYPT)
+                    .put(alg.equals("unicode") ? CipherServer.UNICODE : CipherServer.SHIFT)
+                    .putInt(key)
+                    .put(payload)
+                    .flip();
+            while (request.hasRemaining()) {
+                channel.write(request);
+            }
+
+            ByteBuffer length = readFully(channel, ByteBuffer.allocate(Integer.BYTES));
+            ByteBuffer response = readFully(channel, ByteBuffer.allocate(length.getInt()));
+            byte status = response.get();
+            byte[] result = new byte[response.remaining()];
+            response.get(result);
+            if (status != CipherServer.OK) {
+                throw new IOException(new String(result, StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Fills the buffer from the channel and flips it.
+     */
+    private static ByteBuffer readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new IOException("The server closed the connection");
+            }
+        }
+        return buffer.flip();
+    }
+}
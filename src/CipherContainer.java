@@ -0,0 +1,541 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code CipherContainer} class writes and reads encrypted files in a container, instead of bare text:
+ *  - a header: the magic number, the version, the algorithm, an id of the key, the charset, the chunk size and
+ *  the length of the original file
+ *  - the chunks: the original file cut in chunks of {@link #CHUNK_SIZE} bytes, on character boundaries, each
+ *  one encrypted on its own
+ *  - an index: for every chunk, its position in the original file and in the container, its length and the
+ *  CRC32C of its encrypted bytes, followed by the CRC32C of the index itself
+ *  - a trailer: the position of the index and the magic number again
+ *
+ * A corrupted chunk is found by checking that chunk alone, and any part of the original file can be decrypted
+ * by reading the index and the few chunks holding it, see {@link #decryptRange(File, long, int, String, int)}.
+ * The key id is a CRC32C of the algorithm and of what the key resolves to, the letters of a running key file and
+ * not its path: decrypting with another key fails right away instead of producing garbage. It is a check value,
+ * not a secret: the unicode and shift algorithms only have 26 keys, which it gives away in as many tries.
+ *
+ * Only the single-byte charsets and UTF-8 can be cut in chunks, like for the {@link ParallelFileEngine}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class CipherContainer {
+    /**
+     * The first and last bytes of a container, made so that they cannot be the start of a text file.
+     */
+    private static final byte[] MAGIC = {(byte) 0x89, 'C', 'P', 'H', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The version of the format written, 2 since the key id is computed from the resolved key.
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * The size in bytes of the chunks of the original file.
+     */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * The size in bytes of an entry of the index.
+     */
+    private static final int ENTRY_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The size in bytes of the trailer: the position of the index and the magic number.
+     */
+    private static final int TRAILER_SIZE = Long.BYTES + 8;
+
+    /**
+     * The number of chunks per thread decrypted in each wave.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private CipherContainer() {
+    }
+
+    /**
+     * The header of a container.
+     *
+     * @param algorithm the name of the algorithm the chunks are encrypted with
+     * @param keyId     the id of the key, see {@link #keyId(String, CipherTable)}
+     * @param charset   the charset of the original file
+     * @param chunkSize the size of the chunks of the original file
+     * @param length    the length of the original file
+     */
+    public record Header(String algorithm, int keyId, Charset charset, int chunkSize, long length) {
+    }
+
+    /**
+     * An entry of the index.
+     *
+     * @param sourceOffset the position of the chunk in the original file
+     * @param sourceLength the length of the chunk in the original file
+     * @param offset       the position of the encrypted chunk in the container
+     * @param length       the length of the encrypted chunk
+     * @param crc          the CRC32C of the encrypted chunk
+     */
+    public record Chunk(long sourceOffset, int sourceLength, long offset, int length, int crc) {
+    }
+
+    /**
+     * @param file a file
+     * @return {@code true} if the file starts with the magic number of a container
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isContainer(File file) throws IOException {
+        if (!file.isFile() || file.length() < MAGIC.length + TRAILER_SIZE) {
+            return false;
+        }
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            readFully(in, magic, 0);
+            return Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Computes the id of a key from the table it gives, so that two keys encrypting the same way have the same id:
+     * a key and the same key plus 26, or two copies of a running key file.
+     *
+     * @param algorithm the name of an algorithm
+     * @param table     the encryption table of a key of that algorithm
+     * @return the id of the key stored in the header
+     */
+    static int keyId(String algorithm, CipherTable table) {
+        CRC32C crc = new CRC32C();
+        crc.update((algorithm + ':').getBytes(StandardCharsets.UTF_8));
+        KeySchedule schedule = table.getSchedule();
+        if (schedule != null) {
+            schedule.update(crc);
+        } else {
+            // the algorithms substituting characters only change the letters
+            for (char c = 'A'; c <= 'z'; c++) {
+                crc.update(table.apply(c));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Encrypts a file into a container.
+     *
+     * @param input     the file to encrypt
+     * @param out       the stream the container is written to, it is not closed
+     * @param algorithm the name of the algorithm of the table
+     * @param table     the encryption table
+     * @throws IOException if the files cannot be read or written, or the charset cannot be cut in chunks
+     */
+    public static void encrypt(File input, OutputStream out, String algorithm, CipherTable table) throws IOException {
+        checkCharset(table);
+        WritableByteChannel sink = Metrics.counting(Channels.newChannel(out));
+        try (FileChannel in = FileChannel.open(input.toPath(), StandardOpenOption.READ)) {
+            Header header = new Header(algorithm, keyId(algorithm, table), table.getCharset(), CHUNK_SIZE, in.size());
+            long offset = writeFully(sink, header(header));
+
+            List<Chunk> index = new ArrayList<>();
+            ByteBuffer buffer = BufferPool.acquire(CHUNK_SIZE);
+            long sourceOffset = 0;
+            CRC32C crc = new CRC32C();
+            boolean end = false;
+            while (!end) {
+                int wanted = buffer.remaining();
+                end = readFully(in, buffer, sourceOffset + buffer.position()) < wanted;
+                buffer.flip();
+                // the next chunk starts with the character cut at the end of this one
+                int length = end || table.isSingleByte() ? buffer.limit() : Utf8Transcoder.complete(buffer);
+                if (length == 0) {
+                    break;
+                }
+                ByteBuffer part = buffer.duplicate().limit(length);
+                ByteBuffer chunk = ParallelFileEngine.transform(part, sourceOffset, table);
+                crc.reset();
+                crc.update(chunk.duplicate());
+                index.add(new Chunk(sourceOffset, length, offset, chunk.remaining(), (int) crc.getValue()));
+                offset += writeFully(sink, chunk);
+                if (chunk != part) {
+                    BufferPool.release(chunk);
+                }
+                sourceOffset += length;
+                buffer.position(length).compact();
+            }
+            BufferPool.release(buffer);
+            long indexOffset = offset;
+            writeFully(sink, index(index));
+            writeFully(sink, ByteBuffer.allocate(TRAILER_SIZE).putLong(indexOffset).put(MAGIC).flip());
+        }
+        out.flush();
+    }
+
+    /**
+     * Decrypts a whole container, checking every chunk, a few chunks per thread at a time.
+     *
+     * @param container the container to decrypt
+     * @param out       the stream the decrypted text is written to, it is not closed
+     * @param key       the key the container was encrypted with
+     * @param threads   the number of threads decrypting the chunks
+     * @throws IOException if the files cannot be read or written, the key is not the right one or a chunk is corrupted
+     */
+    public static void decrypt(File container, OutputStream out, String key, int threads) throws IOException {
+        WritableByteChannel sink = Metrics.counting(Channels.newChannel(out));
+        try (FileChannel in = FileChannel.open(container.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(in);
+            CipherTable table = table(header, key);
+            List<Chunk> index = readIndex(in);
+            int wave = Math.max(1, threads) * CHUNKS_PER_THREAD;
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+            try {
+                for (int from = 0; from < index.size(); from += wave) {
+                    List<Callable<ByteBuffer>> tasks = new ArrayList<>();
+                    for (int i = from; i < Math.min(index.size(), from + wave); i++) {
+                        Chunk chunk = index.get(i);
+                        int number = i;
+                        tasks.add(Metrics.counted(() -> decrypt(in, chunk, number, table)));
+                    }
+                    for (Future<ByteBuffer> result : pool.invokeAll(tasks)) {
+                        ByteBuffer decrypted = result.get();
+                        writeFully(sink, decrypted);
+                        BufferPool.release(decrypted);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while decrypting the container", e);
+            } catch (ExecutionException e) {
+                throw failure(e);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Decrypts the bytes of the original file between {@code offset} and {@code offset + length}, reading and
+     * checking only the chunks holding them.
+     *
+     * The positions are those of the original file. They match the decrypted text exactly when the algorithm keeps
+     * the length of every character, which is always the case in a single-byte charset and for ASCII in UTF-8.
+     *
+     * @param container the container
+     * @param offset    the position of the first byte to decrypt in the original file
+     * @param length    the number of bytes to decrypt, fewer are returned at the end of the file
+     * @param key       the key the container was encrypted with
+     * @param threads   the number of threads decrypting the chunks of the range
+     * @return the decrypted bytes
+     * @throws IOException if the container cannot be read, the key is not the right one or a chunk is corrupted
+     */
+    public static byte[] decryptRange(File container, long offset, int length, String key, int threads) throws IOException {
+        try (FileChannel in = FileChannel.open(container.toPath(), StandardOpenOption.READ)) {
+            Header header = readHeader(in);
+            CipherTable table = table(header, key);
+            List<Chunk> index = readIndex(in);
+            long end = Math.min(header.length(), offset + length);
+
+            List<Callable<ByteBuffer>> tasks = new ArrayList<>();
+            List<Chunk> chunks = new ArrayList<>();
+            for (int i = find(index, offset); i < index.size() && index.get(i).sourceOffset() < end; i++) {
+                Chunk chunk = index.get(i);
+                int number = i;
+                chunks.add(chunk);
+                tasks.add(() -> decrypt(in, chunk, number, table));
+            }
+
+            ByteBuffer range = ByteBuffer.allocate((int) Math.max(0, end - offset));
+            List<ByteBuffer> decrypted = invokeAll(tasks, threads);
+            for (int i = 0; i < decrypted.size(); i++) {
+                ByteBuffer bytes = decrypted.get(i);
+                long start = chunks.get(i).sourceOffset();
+                // keep the part of the chunk inside the range
+                int from = (int) Math.max(0, offset - start);
+                int to = (int) Math.min(bytes.remaining(), end - start);
+                if (from < to && range.hasRemaining()) {
+                    range.put(bytes.slice(bytes.position() + from, Math.min(to - from, range.remaining())));
+                }
+                BufferPool.release(bytes);
+            }
+            return Arrays.copyOf(range.array(), range.position());
+        }
+    }
+
+    /**
+     * @param container the container
+     * @return the header of the container
+     * @throws IOException if the container cannot be read or is not a container
+     */
+    public static Header header(File container) throws IOException {
+        try (FileChannel in = FileChannel.open(container.toPath(), StandardOpenOption.READ)) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * @return the table decrypting the chunks of the container
+     */
+    private static CipherTable table(Header header, String key) throws IOException {
+        Algorithm algorithm = Algorithms.get(header.algorithm());
+        if (header.keyId() != keyId(header.algorithm(), algorithm.table(key, true, header.charset()))) {
+            throw new IOException("The key is not the one the container was encrypted with.");
+        }
+        CipherTable table = algorithm.table(key, false, header.charset());
+        checkCharset(table);
+        return table;
+    }
+
+    /**
+     * Reads a chunk, checks it and decrypts it.
+     *
+     * @return the decrypted chunk, a buffer of the {@link BufferPool} to release once it is written
+     */
+    private static ByteBuffer decrypt(FileChannel in, Chunk chunk, int number, CipherTable table) throws IOException {
+        ByteBuffer buffer = BufferPool.acquire(chunk.length());
+        if (readFully(in, buffer, chunk.offset()) < chunk.length()) {
+            throw new IOException("Chunk " + number + " of the container is truncated.");
+        }
+        buffer.flip();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != chunk.crc()) {
+            throw new IOException("Chunk " + number + " of the container is corrupted.");
+        }
+        ByteBuffer result = ParallelFileEngine.transform(buffer, chunk.sourceOffset(), table);
+        if (result != buffer) {
+            BufferPool.release(buffer);
+        }
+        return result;
+    }
+
+    /**
+     * @return the index of the chunk holding {@code offset}
+     */
+    private static int find(List<Chunk> index, long offset) {
+        int low = 0;
+        int high = index.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (index.get(middle).sourceOffset() <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Runs the tasks on a pool of the given size and returns their results in order.
+     */
+    private static List<ByteBuffer> invokeAll(List<Callable<ByteBuffer>> tasks, int threads) throws IOException {
+        if (tasks.size() <= 1 || threads <= 1) {
+            List<ByteBuffer> results = new ArrayList<>();
+            for (Callable<ByteBuffer> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }
+            return results;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ByteBuffer> results = new ArrayList<>();
+            for (Future<ByteBuffer> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decrypting the container", e);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return the I/O error a task failed with, the pool wraps it in runtime exceptions
+     */
+    private static IOException failure(ExecutionException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException io) {
+                return io;
+            }
+        }
+        return new IOException(e.getCause());
+    }
+
+    /**
+     * @throws IOException if the charset of the table cannot be cut in chunks
+     */
+    private static void checkCharset(CipherTable table) throws IOException {
+        if (!table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8)) {
+            throw new IOException("A container can only hold a single-byte charset or UTF-8, not " + table.getCharset() + ".");
+        }
+    }
+
+    /**
+     * @return the encoded header
+     */
+    private static ByteBuffer header(Header header) {
+        byte[] algorithm = header.algorithm().getBytes(StandardCharsets.UTF_8);
+        byte[] charset = header.charset().name().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(MAGIC.length + 1 + 2 + algorithm.length + Integer.BYTES
+                + 2 + charset.length + Integer.BYTES + Long.BYTES);
+        buffer.put(MAGIC).put(VERSION);
+        buffer.putShort((short) algorithm.length).put(algorithm);
+        buffer.putInt(header.keyId());
+        buffer.putShort((short) charset.length).put(charset);
+        buffer.putInt(header.chunkSize()).putLong(header.length());
+        return buffer.flip();
+    }
+
+    /**
+     * @return the header read from the start of the container
+     */
+    private static Header readHeader(FileChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(in.size(), 1024));
+        readFully(in, buffer, 0);
+        buffer.flip();
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("The file is not a container.");
+            }
+            if (buffer.get() != VERSION) {
+                throw new IOException("The version of the container is not supported.");
+            }
+            String algorithm = string(buffer);
+            int keyId = buffer.getInt();
+            Charset charset = Charset.forName(string(buffer));
+            return new Header(algorithm, keyId, charset, buffer.getInt(), buffer.getLong());
+        } catch (RuntimeException e) {
+            throw new IOException("The header of the container is corrupted.", e);
+        }
+    }
+
+    /**
+     * @return a string of the header, stored as its length on two bytes followed by its UTF-8 bytes
+     */
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the encoded index, followed by its CRC32C
+     */
+    private static ByteBuffer index(List<Chunk> index) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + index.size() * ENTRY_SIZE + Integer.BYTES);
+        buffer.putInt(index.size());
+        for (Chunk chunk : index) {
+            buffer.putLong(chunk.sourceOffset()).putInt(chunk.sourceLength())
+                    .putLong(chunk.offset()).putInt(chunk.length()).putInt(chunk.crc());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        return buffer.putInt((int) crc.getValue()).flip();
+    }
+
+    /**
+     * @return the index read from the end of the container, once checked
+     */
+    private static List<Chunk> readIndex(FileChannel in) throws IOException {
+        long size = in.size();
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        readFully(in, trailer, size - TRAILER_SIZE);
+        trailer.flip();
+        long indexOffset = trailer.getLong();
+        byte[] magic = new byte[MAGIC.length];
+        trailer.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || indexOffset < 0 || indexOffset > size - TRAILER_SIZE - 2L * Integer.BYTES) {
+            throw new IOException("The container is truncated, its index cannot be found.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (size - TRAILER_SIZE - indexOffset));
+        readFully(in, buffer, indexOffset);
+        buffer.flip();
+        int count = buffer.getInt();
+        if (count < 0 || buffer.capacity() != Integer.BYTES + (long) count * ENTRY_SIZE + Integer.BYTES) {
+            throw new IOException("The index of the container is corrupted.");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.capacity() - Integer.BYTES);
+        if ((int) crc.getValue() != buffer.getInt(buffer.capacity() - Integer.BYTES)) {
+            throw new IOException("The index of the container is corrupted.");
+        }
+        List<Chunk> index = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            index.add(new Chunk(buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getInt(), buffer.getInt()));
+        }
+        return index;
+    }
+
+    /**
+     * Fills the buffer from the given position of the channel, or up to the end of the channel.
+     *
+     * @return the number of bytes read
+     */
+    private static int readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            int read = in.read(buffer, position + total);
+            Metrics.read(start, read);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Writes the whole buffer.
+     *
+     * @return the number of bytes written
+     */
+    private static int writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        int total = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,337 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code CipherServer} class keeps the ciphers warm in a long-running process and serves requests over
+ * a local TCP port or a Unix domain socket.
+ *
+ * Every request and response is a frame made of a big-endian {@code int} giving the number of bytes that follow,
+ * then:
+ *  - request: one byte for the mode ({@link #ENCRYPT} or {@link #DECRYPT}), one byte for the algorithm
+ *  ({@link #UNICODE} or {@link #SHIFT}), the key as an {@code int}, and the UTF-8 payload
+ *  - response: one byte for the status ({@link #OK} or {@link #ERROR}), and the transformed UTF-8 payload
+ *  or the error message
+ *
+ * A single thread multiplexes every connection with a {@link Selector}; a connection may send several requests
+ * without waiting for the responses, they are answered in order. A frame larger than {@link #MAX_FRAME} is
+ * answered with an error, nothing after it is read, and the server stops writing once the responses before it
+ * and the error are written; the connection is closed when the client closes its side. Once {@link #MAX_PENDING} bytes of responses wait for
+ * a client to read them, its requests are not read anymore until it catches up.
+ *
+ * The keys are taken modulo 26 by {@link CipherTable}, so a client cannot fill the cache of the tables whatever
+ * the keys it sends.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class CipherServer implements Closeable {
+    public static final byte ENCRYPT = 0;
+    public static final byte DECRYPT = 1;
+    public static final byte UNICODE = 0;
+    public static final byte SHIFT = 1;
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    /**
+     * The largest frame accepted, in bytes.
+     */
+    public static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    /**
+     * The number of bytes of responses past which the requests of a connection are not read anymore.
+     */
+    public static final int MAX_PENDING = MAX_FRAME;
+
+    /**
+     * The size of the mode, algorithm and key in front of the payload of a request.
+     */
+    private static final int REQUEST_HEADER = 6;
+
+    private final SocketAddress address;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+
+    /**
+     * The state of a client connection.
+     */
+    private static final class Connection {
+        private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        private ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+        private boolean closing;
+        // requests are left in the input buffer while the client does not read the responses
+        private boolean paused;
+    }
+
+    /**
+     * Opens the server, it accepts connections once {@link #serve()} is called.
+     *
+     * @param address the address to listen on, see {@link #address(String)}
+     * @throws IOException if the address cannot be bound
+     */
+    public CipherServer(SocketAddress address) throws IOException {
+        this.address = address;
+        this.selector = Selector.open();
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.server = ServerSocketChannel.open();
+        }
+        this.server.bind(address);
+        this.server.configureBlocking(false);
+        this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * @param address a port number for a TCP port on the loopback interface, or the path of a Unix domain socket
+     * @return the socket address
+     */
+    public static SocketAddress address(String address) {
+        if (address.matches("\\d+")) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return UnixDomainSocketAddress.of(Path.of(address));
+    }
+
+    /**
+     * @return the address the server listens on
+     * @throws IOException if the address cannot be read
+     */
+    public SocketAddress getAddress() throws IOException {
+        return this.server.getLocalAddress();
+    }
+
+    /**
+     * Serves requests until the server is closed.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void serve() throws IOException {
+        while (this.selector.isOpen()) {
+            this.selector.select();
+            if (!this.selector.isOpen()) {
+                break;
+            }
+            Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        if (key.isReadable()) {
+                            read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(key);
+                        }
+                    }
+                } catch (IOException | CancelledKeyException e) {
+                    // the client went away, or the server was closed while answering it;
+                    // the other connections are not affected
+                    key.cancel();
+                    key.channel().close();
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel client = this.server.accept();
+        if (client != null) {
+            client.configureBlocking(false);
+            client.register(this.selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    /**
+     * Reads what the client sent and answers every complete request.
+     */
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        if (connection.closing) {
+            // the responses are written, what the client still sends is dropped until it closes its side
+            connection.in.clear();
+        }
+        long start = Metrics.start();
+        int count = channel.read(connection.in);
+        Metrics.read(start, count);
+        if (count == -1) {
+            key.cancel();
+            channel.close();
+            return;
+        }
+        if (connection.closing) {
+            return;
+        }
+
+        process(connection);
+        write(key);
+    }
+
+    /**
+     * Answers every complete request of the input buffer, until the responses waiting to be written are too many.
+     */
+    private void process(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (!connection.closing && in.remaining() >= Integer.BYTES) {
+            if (connection.out.position() >= MAX_PENDING) {
+                connection.paused = true;
+                break;
+            }
+            int length = in.getInt(in.position());
+            if (length < REQUEST_HEADER || length > MAX_FRAME) {
+                respond(connection, ERROR, ByteBuffer.wrap(("Invalid frame length " + length).getBytes(StandardCharsets.UTF_8)));
+                connection.closing = true;
+                // nothing after the invalid frame can be read, the connection is closed once the responses are written
+                in.position(in.limit());
+                break;
+            }
+            if (in.remaining() < Integer.BYTES + length) {
+                if (in.capacity() < Integer.BYTES + length) {
+                    // grow the buffer so that the whole frame fits
+                    ByteBuffer bigger = ByteBuffer.allocate(Integer.BYTES + length);
+                    bigger.put(in);
+                    bigger.flip();
+                    connection.in = in = bigger;
+                }
+                break;
+            }
+            in.getInt();
+            int end = in.position() + length;
+            ByteBuffer request = in.slice(in.position(), length);
+            Metrics.timed("request", () -> handle(connection, request));
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    /**
+     * Transforms the payload of a request and queues the response.
+     */
+    private void handle(Connection connection, ByteBuffer request) {
+        byte mode = request.get();
+        byte algorithm = request.get();
+        int key = request.getInt();
+        if (mode != ENCRYPT && mode != DECRYPT || algorithm != UNICODE && algorithm != SHIFT) {
+            respond(connection, ERROR, ByteBuffer.wrap("Unknown mode or algorithm".getBytes(StandardCharsets.UTF_8)));
+            return;
+        }
+
+        Cipher cipher = Cipher.of(algorithm == UNICODE ? "unicode" : "shift", key, mode == ENCRYPT, StandardCharsets.UTF_8);
+        // a transformed byte never takes more than three bytes
+        int header = Integer.BYTES + 1;
+        reserve(connection, header + request.remaining() * 3 + Utf8Transcoder.MIN_CAPACITY);
+        ByteBuffer out = connection.out;
+        int start = out.position();
+        out.position(start + header);
+        CoderResult result = cipher.apply(request, out, true);
+        int length = out.position() - start - Integer.BYTES;
+        out.putInt(start, length);
+        out.put(start + Integer.BYTES, result.isUnderflow() ? OK : ERROR);
+    }
+
+    /**
+     * Queues a response.
+     */
+    private static void respond(Connection connection, byte status, ByteBuffer payload) {
+        reserve(connection, Integer.BYTES + 1 + payload.remaining());
+        connection.out.putInt(1 + payload.remaining());
+        connection.out.put(status);
+        connection.out.put(payload);
+    }
+
+    /**
+     * Makes sure the output buffer of the connection has room for {@code bytes} more bytes.
+     */
+    private static void reserve(Connection connection, int bytes) {
+        if (connection.out.remaining() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(connection.out.position() + bytes);
+            connection.out.flip();
+            bigger.put(connection.out);
+            connection.out = bigger;
+        }
+    }
+
+    /**
+     * Writes the queued responses, waiting for the channel to be writable again if it is full.
+     * The requests of the connection are read again once the client has read enough of the responses.
+     */
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+
+        while (true) {
+            connection.out.flip();
+            long start = Metrics.start();
+            Metrics.written(start, channel.write(connection.out));
+            boolean pending = connection.out.hasRemaining();
+            connection.out.compact();
+
+            if (!pending && connection.closing) {
+                // closing with unread input would reset the connection and lose the responses not received yet,
+                // so only the output is shut down and the connection is closed when the client closes
+                channel.shutdownOutput();
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            boolean full = connection.out.position() >= MAX_PENDING;
+            if (!full && connection.paused && !connection.closing) {
+                // answer the requests left in the input buffer, no read may come to do it
+                connection.paused = false;
+                process(connection);
+                continue;
+            }
+            boolean reading = !full && !connection.closing;
+            key.interestOps((reading ? SelectionKey.OP_READ : 0) | (pending ? SelectionKey.OP_WRITE : 0));
+            return;
+        }
+    }
+
+    /**
+     * Stops serving and releases the address.
+     *
+     * @throws IOException if the server cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.selector.close();
+        this.server.close();
+        if (this.address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+}
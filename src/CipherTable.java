@@ -0,0 +1,391 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code CipherTable} class holds the substitution performed by an algorithm for a given key and direction.
+ *
+ * For a given key, the unicode and the shift algorithms always turn the same character into the same character,
+ * so their result can be computed once and then looked up instead of being recomputed for every character:
+ *  - {@code chars}: the result of the algorithm for the 256 characters of the Latin-1 range, characters outside
+ *  of it are rare in the texts we handle and are still computed by the algorithm itself
+ *  - {@code bytes}: the result of the algorithm for every byte of a single-byte charset (US-ASCII, ISO-8859-1,
+ *  windows-1252...), decoding and re-encoding included, so that a file in such a charset can be transformed
+ *  one byte at a time without ever being decoded; for UTF-8 only its ASCII half can be used that way
+ *
+ * A table can also hold a {@link KeySchedule}, the shifts of a Vigenère or running key cipher, in which case the
+ * substitution depends on the position of every byte in the text: the methods taking a {@code position} must then
+ * be used, the others start the key over at their first byte.
+ *
+ * When the incubating {@code jdk.incubator.vector} module is added to the JVM, the tables are applied to arrays
+ * one SIMD register at a time by a {@link VectorTransform}; {@code -Dcipher.vector=false} turns it off.
+ *
+ * Tables are immutable and cached by {@link #of(String, int, boolean, Charset)}, so asking twice for the same
+ * algorithm, key, direction and charset returns the same table. The keys are taken modulo 26, so the cache holds
+ * at most 26 tables per algorithm, direction and charset.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class CipherTable implements CharTransform {
+    private static final Map<Spec, CipherTable> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the Vector API can be used, {@link VectorTransform} must not even be loaded otherwise.
+     */
+    private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !"false".equals(System.getProperty("cipher.vector"));
+
+    private final CharTransform algorithm;
+    private final Charset charset;
+    private final char[] chars = new char[256];
+    private final byte[] bytes = new byte[256];
+    private final boolean singleByte;
+    private final boolean asciiPreserving;
+    private final VectorTransform vector;
+    private final KeySchedule schedule;
+
+    /**
+     * The values a table is built from, used as the key of the cache.
+     */
+    private record Spec(String algorithm, int key, boolean encrypt, Charset charset) {
+    }
+
+    private CipherTable(CharTransform algorithm, Charset charset) {
+        this(algorithm, charset, null);
+    }
+
+    private CipherTable(CharTransform algorithm, Charset charset, KeySchedule schedule) {
+        this.algorithm = algorithm;
+        this.schedule = schedule;
+        this.charset = charset;
+        for (int c = 0; c < this.chars.length; c++) {
+            this.chars[c] = algorithm.apply((char) c);
+        }
+        this.singleByte = fillBytes();
+        this.asciiPreserving = preservesAscii();
+        this.vector = VECTOR_API && schedule == null ? VectorTransform.of(this.bytes, this.chars, this.algorithm) : null;
+    }
+
+    /**
+     * Returns the table of the given algorithm for the platform default charset.
+     *
+     * @param algorithm the algorithm, "unicode" or "shift" (anything else is treated as "shift", like the menu does)
+     * @param key the key used to encrypt or decrypt
+     * @param encrypt {@code true} for the encryption table, {@code false} for the decryption table
+     * @return the cached table
+     */
+    public static CipherTable of(String algorithm, int key, boolean encrypt) {
+        return of(algorithm, key, encrypt, Charset.defaultCharset());
+    }
+
+    /**
+     * Returns the table of the given algorithm, building it the first time it is asked for.
+     *
+     * @param algorithm the algorithm, "unicode" or "shift" (anything else is treated as "shift", like the menu does)
+     * @param key the key used to encrypt or decrypt, taken modulo 26: the shift algorithm garbles the letters
+     *            near 'z' with keys of 26 and more
+     * @param encrypt {@code true} for the encryption table, {@code false} for the decryption table
+     * @param charset the charset of the bytes given to {@link #apply(byte[], int, int)}
+     * @return the cached table
+     */
+    public static CipherTable of(String algorithm, int key, boolean encrypt, Charset charset) {
+        String name = algorithm.equals("unicode") ? "unicode" : "shift";
+        return CACHE.computeIfAbsent(new Spec(name, Math.floorMod(key, 26), encrypt, charset),
+                spec -> new CipherTable(algorithm(spec.algorithm(), spec.key(), spec.encrypt()), spec.charset()));
+    }
+
+    /**
+     * Returns the table of a key schedule. Such tables are not cached, a running key can be as long as a book.
+     *
+     * @param schedule the shifts of the key
+     * @param charset  the charset of the bytes given to {@link #apply(byte[], int, int, long)}
+     * @return the table
+     * @throws IllegalArgumentException if the charset is neither UTF-8 nor a single-byte charset extending ASCII,
+     * the letters could not be found in the bytes otherwise
+     */
+    public static CipherTable of(KeySchedule schedule, Charset charset) {
+        CipherTable table = new CipherTable(c -> c, charset, schedule);
+        if (!table.singleByte && !charset.equals(StandardCharsets.UTF_8) || !table.lettersAreAscii()) {
+            throw new IllegalArgumentException("A key schedule cannot be applied to " + charset + " bytes");
+        }
+        return table;
+    }
+
+    /**
+     * @return {@code true} if the ASCII letters, and only them, are found as single ASCII bytes in the charset
+     */
+    private boolean lettersAreAscii() {
+        if (this.charset.equals(StandardCharsets.UTF_8)) {
+            return true;
+        }
+        CharsetDecoder decoder = this.charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (int b = 0; b < 256; b++) {
+            try {
+                char c = decoder.reset().decode(ByteBuffer.wrap(new byte[]{(byte) b})).get();
+                if (isLetter(b) != isLetter(c) || isLetter(c) && c != b) {
+                    return false;
+                }
+            } catch (CharacterCodingException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if {@code c} is an ASCII letter
+     */
+    private static boolean isLetter(int c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z';
+    }
+
+    /**
+     * @return the per character function of the given algorithm
+     */
+    private static CharTransform algorithm(String algorithm, int key, boolean encrypt) {
+        if (algorithm.equals("unicode")) {
+            return encrypt ? c -> Encryption.unicodeEncrypt(c, key) : c -> Decryption.unicodeDecrypt(c, key);
+        }
+        return encrypt ? c -> Encryption.shiftEncrypt(c, key) : c -> Decryption.shiftDecrypt(c, key);
+    }
+
+    /**
+     * Computes the byte table by decoding every byte, transforming it and encoding it back the way
+     * {@code FileReader} and {@code FileWriter} do.
+     *
+     * @return {@code true} if every byte turned into exactly one byte, i.e. the byte table can replace decoding
+     */
+    private boolean fillBytes() {
+        CharsetDecoder decoder = this.charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharsetEncoder encoder = this.charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        boolean exact = encoder.maxBytesPerChar() == 1.0f && decoder.maxCharsPerByte() == 1.0f;
+
+        for (int b = 0; b < this.bytes.length; b++) {
+            this.bytes[b] = (byte) b;
+            try {
+                CharBuffer decoded = decoder.reset().decode(ByteBuffer.wrap(new byte[]{(byte) b}));
+                if (decoded.remaining() != 1) {
+                    exact = false;
+                    continue;
+                }
+                ByteBuffer encoded = encoder.reset().encode(CharBuffer.wrap(new char[]{apply(decoded.get())}));
+                if (encoded.remaining() == 1) {
+                    this.bytes[b] = encoded.get();
+                } else {
+                    exact = false;
+                }
+            } catch (CharacterCodingException e) {
+                // cannot happen when errors are replaced
+                exact = false;
+            }
+        }
+        return exact;
+    }
+
+    /**
+     * @return {@code true} if every ASCII character is turned into an ASCII character
+     */
+    private boolean preservesAscii() {
+        for (int c = 0; c < 128; c++) {
+            if (this.chars[c] >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the charset of the bytes this table transforms
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * @return {@code true} if the charset stores every character on a single byte, or if the table holds a key
+     * schedule which only changes the ASCII letters, in which case {@link #apply(byte[], int, int, long)} gives
+     * the same result as decoding, transforming and encoding the bytes
+     */
+    public boolean isSingleByte() {
+        return this.singleByte || this.schedule != null;
+    }
+
+    /**
+     * @return the key schedule of the table, {@code null} if the substitution does not depend on the position
+     */
+    public KeySchedule getSchedule() {
+        return this.schedule;
+    }
+
+    /**
+     * @return {@code true} if every ASCII character is turned into an ASCII character, in which case the ASCII bytes
+     * of an ASCII compatible charset such as UTF-8 can be transformed through the byte table
+     */
+    public boolean isAsciiPreserving() {
+        return this.asciiPreserving;
+    }
+
+    @Override
+    public char apply(char c) {
+        return c < 256 ? this.chars[c] : this.algorithm.apply(c);
+    }
+
+    @Override
+    public void apply(char[] buf, int off, int len) {
+        if (Metrics.isEnabled()) {
+            count(buf, off, len);
+        }
+        if (this.schedule != null) {
+            this.schedule.apply(buf, off, len, this.charset.equals(StandardCharsets.UTF_8));
+            return;
+        }
+        if (this.vector != null) {
+            this.vector.apply(buf, off, len);
+            return;
+        }
+        char[] table = this.chars;
+        for (int i = off; i < off + len; i++) {
+            char c = buf[i];
+            buf[i] = c < 256 ? table[c] : this.algorithm.apply(c);
+        }
+    }
+
+    /**
+     * Transforms {@code len} bytes of {@code buf} in place, starting at {@code off}, as the first bytes of a text.
+     * The result is only meaningful when {@link #isSingleByte()} is {@code true}.
+     *
+     * @param buf the bytes to transform
+     * @param off the index of the first byte to transform
+     * @param len the number of bytes to transform
+     */
+    public void apply(byte[] buf, int off, int len) {
+        apply(buf, off, len, 0);
+    }
+
+    /**
+     * Transforms {@code len} bytes of {@code buf} in place, {@code buf[off]} being the byte at {@code position}
+     * in the text, which only matters to a key schedule.
+     * The result is only meaningful when {@link #isSingleByte()} is {@code true}.
+     *
+     * @param buf      the bytes to transform
+     * @param off      the index of the first byte to transform
+     * @param len      the number of bytes to transform
+     * @param position the position of the first byte in the text
+     */
+    public void apply(byte[] buf, int off, int len, long position) {
+        if (Metrics.isEnabled()) {
+            count(buf, off, len);
+        }
+        if (this.schedule != null) {
+            this.schedule.apply(buf, off, len, position);
+            return;
+        }
+        if (this.vector != null) {
+            this.vector.apply(buf, off, len);
+            return;
+        }
+        byte[] table = this.bytes;
+        for (int i = off; i < off + len; i++) {
+            buf[i] = table[buf[i] & 0xFF];
+        }
+    }
+
+    /**
+     * Counts the characters of {@code buf} the table changes and the ones it leaves as they are,
+     * every letter counts as changed by a key schedule.
+     */
+    private void count(char[] buf, int off, int len) {
+        int passed = 0;
+        for (int i = off; i < off + len; i++) {
+            if (this.schedule != null ? !isLetter(buf[i]) : apply(buf[i]) == buf[i]) {
+                passed++;
+            }
+        }
+        Metrics.chars(len - passed, passed);
+    }
+
+    /**
+     * Counts the bytes of {@code buf} the table changes and the ones it leaves as they are.
+     */
+    private void count(byte[] buf, int off, int len) {
+        int passed = 0;
+        for (int i = off; i < off + len; i++) {
+            if (this.schedule != null ? !isLetter(buf[i]) : this.bytes[buf[i] & 0xFF] == buf[i]) {
+                passed++;
+            }
+        }
+        Metrics.chars(len - passed, passed);
+    }
+
+    /**
+     * @param b the byte to transform
+     * @return the transformed byte, only meaningful when {@link #isSingleByte()} is {@code true}
+     * or for an ASCII byte when {@link #isAsciiPreserving()} is {@code true}
+     */
+    public byte apply(byte b) {
+        return this.bytes[b & 0xFF];
+    }
+
+    /**
+     * Transforms the bytes of {@code buf} between {@code from} and {@code to} in place, without moving its position.
+     * This works on direct and mapped buffers as well, whose bytes are not backed by an array.
+     *
+     * @param buf  the bytes to transform
+     * @param from the index of the first byte to transform
+     * @param to   the index after the last byte to transform
+     */
+    public void apply(ByteBuffer buf, int from, int to) {
+        apply(buf, from, to, 0);
+    }
+
+    /**
+     * Transforms the bytes of {@code buf} between {@code from} and {@code to} in place, without moving its position.
+     *
+     * @param buf      the bytes to transform
+     * @param from     the index of the first byte to transform
+     * @param to       the index after the last byte to transform
+     * @param position the position of the byte at {@code from} in the text, which only matters to a key schedule
+     */
+    public void apply(ByteBuffer buf, int from, int to, long position) {
+        if (buf.hasArray()) {
+            apply(buf.array(), buf.arrayOffset() + from, to - from, position);
+            return;
+        }
+        // copied through a small array, bulk copies are much faster than a get and a put per byte
+        byte[] block = BufferPool.bytes(Math.min(to - from, 8 * 1024));
+        int step = Math.min(block.length, 8 * 1024);
+        for (int i = from; i < to; i += step) {
+            int length = Math.min(step, to - i);
+            buf.get(i, block, 0, length);
+            apply(block, 0, length, position + i - from);
+            buf.put(i, block, 0, length);
+        }
+    }
+}
@@ -1,4 +1,12 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 /*
  * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
@@ -22,7 +30,12 @@ import java.io.*;
  *  - {@code text}: a string representing the text to be decrypted
  *  - {@code inputFile}: a {@code File} object representing the input file containing the text to be decrypted
  *  - {@code outputFile}: a {@code File} object representing the output file to which the decrypted text will be written
- *  - {@code key}: an integer which represents the key value used to decrypt the text.
+ *  - {@code threads}: the number of threads used to decrypt files
+ *  - {@code charset}: the charset files are read and written in
+ *  - {@code queueDepth}: the number of chunks of a file read or written at a time, by asynchronous I/O
+ *  - {@code compress}: whether the input file is compressed in gzip format, whatever its first bytes
+ *  - {@code key}: the key used to decrypt the text, an integer for the unicode and shift algorithms
+ *  and a word or the path of a text file for the key schedules of {@link Algorithms}.
  *
  * The {@code Decryption} class provides methods for decrypting text using the key value, as well as
  * methods for reading text from files and writing decrypted text to files.
@@ -33,7 +46,11 @@ public class Decryption {
     private String text;
     private File inputFile;
     private File outputFile;
-    private final int key;
+    private final String key;
+    private int threads = 1;
+    private Charset charset = Charset.defaultCharset();
+    private int queueDepth;
+    private boolean compress;
 
     /**
      * Decrypts the given text using the given key.
@@ -43,7 +60,7 @@ public class Decryption {
      */
     public Decryption(String text, int key){
         this.text = text;
-        this.key = key;
+        this.key = String.valueOf(key);
     }
 
     /**
@@ -54,6 +71,30 @@ public class Decryption {
      * @param key        the key used to decrypt the text
      */
     public Decryption(File inputFile, File outputFile, int key){
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.key = String.valueOf(key);
+    }
+
+    /**
+     * Decrypts the given text with a key that is not an integer, the word of a Vigenère cipher for instance.
+     *
+     * @param text the text to decrypt
+     * @param key  the key used to decrypt the text
+     */
+    public Decryption(String text, String key) {
+        this.text = text;
+        this.key = key;
+    }
+
+    /**
+     * Decrypts the contents of the input file with a key that is not an integer.
+     *
+     * @param inputFile  the input file containing the text
+     * @param outputFile the output file to write the decryption to
+     * @param key        the key used to decrypt the text
+     */
+    public Decryption(File inputFile, File outputFile, String key) {
         this.inputFile = inputFile;
         this.outputFile = outputFile;
         this.key = key;
@@ -82,29 +123,98 @@ public class Decryption {
 
     /**
      * @return decryption key for this object
+     * @throws IllegalArgumentException if the key is a word or the path of a key file rather than an integer, see {@link #getKeyText()}
      */
     public int getKey() {
+        try {
+            return Integer.parseInt(this.key.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The key of the unicode and shift algorithms must be an integer, not " + this.key + ".");
+        }
+    }
+
+    /**
+     * @return decryption key for this object as it was given, an integer, a word or the path of a key file
+     */
+    public String getKeyText() {
         return key;
     }
 
+    /**
+     * @return the number of threads used to decrypt files
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used to decrypt files, files are streamed on a single thread by default.
+     *
+     * @param threads the number of threads, values lower than 2 mean a single thread
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the charset files are read and written in
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Sets the charset files are read and written in, the platform default charset by default.
+     * ASCII compatible charsets, UTF-8 and the single-byte ones, are transformed without being decoded.
+     *
+     * @param charset the charset of the files
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @return the number of chunks of a file read or written at a time, 0 if files are not decrypted asynchronously
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Sets the number of chunks of a file read or written at a time by the {@link AsyncFileEngine}, which keeps
+     * storage with a high latency busy. Files are not decrypted asynchronously by default.
+     *
+     * @param queueDepth the number of chunks in flight, 0 not to use asynchronous I/O
+     */
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * @return {@code true} if the input file is decompressed whatever its first bytes
+     */
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Sets whether the input file is compressed in gzip format. Without it, a file is only decompressed when it
+     * starts with a valid gzip header, see {@link #fileDecryption(String)}.
+     *
+     * @param compress {@code true} to decompress the input file as it is decrypted
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
     /**
      * Decrypts a string of text that has been encrypted using the unicodeTextEncryption method.
+     *
+     * @throws IllegalArgumentException if the key is not an integer
      */
     public void unicodeTextDecryption(){
-        StringBuilder printable = new StringBuilder(); // create a new StringBuilder to hold the decrypted text
-        // loop through each character in the text
-        for (int i = 0; i < this.text.length(); i++) {
-            char c = this.text.charAt(i);
-            if(Character.isLetter(c)){ // check if the character is a letter
-                if (Character.isUpperCase(c)){ // check if the letter is uppercase
-                    c = (char) (((c - 'A' - this.key + 26) % 26 + 'A'));  // shift the uppercase letter according to the key
-                } else {
-                    c = (char) (((c - 'a' - this.key + 26) % 26 + 'a')); // shift the lowercase letter according to the key
-                }
-            }
-            printable.append (c); // append the decrypted character to the decrypted text
-        }
-        System.out.print(printable); // print the decrypted text
+        // decrypt and print the decrypted text, the library API is the Cipher class
+        System.out.print(Cipher.of("unicode", getKey(), false).apply(this.text));
     }
 
     /**
@@ -115,152 +225,338 @@ public class Decryption {
      *
      * <p>This method handles both uppercase and lowercase letters, and wraps around to the beginning of the alphabet if necessary.
      * Non-letter characters are left unchanged.
+     *
+     * @throws IllegalArgumentException if the key is not an integer
      */
     public void shiftTextDecryption() {
-        StringBuilder printable = new StringBuilder(); // create a new StringBuilder to hold the decrypted text
-        for (int i = 0; i < this.text.length(); i++) {
-                // check if the character is a lowercase letter
-            if (this.text.charAt(i) > (char) (('a' - 1) + this.key) && this.text.charAt(i) <= 'z'
-                    // or if the character is an uppercase letter
-                    || this.text.charAt(i) > (char) ( ('A' - 1) + this.key ) && this.text.charAt(i) <= 'Z') {
+        // decrypt and print the decrypted text, the library API is the Cipher class
+        System.out.println(Cipher.of("shift", getKey(), false).apply(this.text));
+    }
 
-                printable.append( (char) (this.text.charAt(i) - this.key) );
+    /**
+     * Decrypts the contents of an input file using the specified key and writes the decrypted text to an output file.
+     * If no output file is specified, the decrypted text is printed to the console.
+     *
+     * <p>The file is streamed through fixed-size buffers, so it is never loaded in memory as a whole,
+     * and its line endings are kept as they are.
+     *
+     * @throws IOException if there is an error reading or writing the input or output file.
+     */
+    public void unicodeFileDecryption() throws IOException {
+        fileDecryption("unicode");
+    }
 
-                // check if the character is an uppercase letter that has been shifted past 'A'
-            } else if ( this.text.charAt(i) >= 'A' && this.text.charAt(i) <= (char) ( ('A' - 1) + this.key ) ) {
+    /**
+     * Decrypts the text in the input file using the specified key and writes the decrypted text to the output file.
+     *
+     * <p>The file is streamed through fixed-size buffers, so it is never loaded in memory as a whole,
+     * and its line endings are kept as they are.
+     *
+     * @throws IOException if there is an error reading or writing to the input or output file
+     */
+    public void shiftFileDecryption() throws IOException {
+        fileDecryption("shift");
+    }
 
-                // if the character is an uppercase letter that has been shifted past 'A', wrap it around to the end of the alphabet
-            	printable.append( (char) ( ('Z' - ( ('A'- 1) - (this.text.charAt(i) - this.key) ) ) ) );
+    /**
+     * Decrypts the text with an algorithm of {@link Algorithms} and prints the decryption.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @throws IOException if the key is stored in a file that cannot be read
+     */
+    public void textDecryption(String algorithm) throws IOException {
+        System.out.println(Cipher.of(table(algorithm)).apply(this.text));
+    }
 
-                // check if the character is a lowercase letter that has been shifted past 'a'
-            } else if (this.text.charAt(i) >= 'a' && (this.text.charAt(i) - this.key) <= (char) ( ('a' - 1) + this.key ) ) {
+    /**
+     * Decrypts the contents of the input file with an algorithm of {@link Algorithms}, into the output file or
+     * to the console if there is no output file.
+     *
+     * <p>A {@link CipherContainer} is recognised by its header, which gives the algorithm and the charset
+     * to decrypt it with, and each of its chunks is checked before being decrypted.
+     * A file compressed in gzip format, by {@link Encryption#setCompress(boolean)} for instance, is decompressed as
+     * it is decrypted when {@link #setCompress(boolean)} says so, or when it starts with a whole valid gzip header:
+     * an encryption may start with the two bytes of the gzip magic number, it is then decrypted as it is.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @throws IOException if an I/O error occurs while reading from or writing to the input or output file
+     */
+    public void fileDecryption(String algorithm) throws IOException {
+        if (CipherContainer.isContainer(this.inputFile)) {
+            containerFile();
+            return;
+        }
+        CipherTable table = table(algorithm);
+        if (this.compress || isCompressed(this.inputFile)) {
+            compressedFile(table);
+            return;
+        }
+        if (this.outputFile.getPath().equals("")) {
+            printFile(Cipher.of(table));
+        } else {
+            transformFile(table);
+        }
+    }
 
-                // if the character is a lowercase letter that has been shifted past 'a', wrap it around to the end of the alphabet
-                printable.append( (char) ( ('z' - ( ('a'- 1) - (this.text.charAt(i) - this.key) ) ) ) );
+    /**
+     * Decrypts only the bytes of the input file between {@code offset} and {@code offset + length}, reading them
+     * with a single positioned read, so that a part of a huge file is decrypted without going through the rest.
+     *
+     * <p>The ciphers only depend on the position of a byte in the file, so the window is decrypted exactly as it is
+     * by {@link #fileDecryption(String)}. In UTF-8 the window is widened to the characters it cuts.
+     * A {@link CipherContainer} is decrypted from the chunks holding the window, its positions are those of the
+     * original file.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @param offset    the position of the first byte to decrypt
+     * @param length    the number of bytes to decrypt, fewer are decrypted at the end of the file
+     * @return the decrypted bytes, in the charset of this object
+     * @throws IOException if the file cannot be read, or its charset is neither a single-byte charset nor UTF-8
+     */
+    public byte[] decryptRange(String algorithm, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("The offset and the length of a range cannot be negative.");
+        }
+        return Metrics.timed("range", () -> {
+            if (CipherContainer.isContainer(this.inputFile)) {
+                return CipherContainer.decryptRange(this.inputFile, offset, length, this.key, this.threads);
+            }
+            return range(this.inputFile.toPath(), offset, length, table(algorithm));
+        });
+    }
 
-            } else {
-                // if the character is not a letter, leave it unchanged
-                printable.append( this.text.charAt(i) );
+    /**
+     * Decrypts a range of the input file, see {@link #decryptRange(String, long, int)}, into the output file or
+     * to the console if there is no output file.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @param offset    the position of the first byte to decrypt
+     * @param length    the number of bytes to decrypt
+     * @throws IOException if an I/O error occurs while reading from or writing to the input or output file
+     */
+    public void rangeDecryption(String algorithm, long offset, int length) throws IOException {
+        byte[] range = decryptRange(algorithm, offset, length);
+        if (this.outputFile.getPath().equals("")) {
+            System.out.write(range);
+            System.out.flush();
+        } else {
+            try (OutputStream out = new FileOutputStream(this.outputFile)) {
+                out.write(range);
             }
         }
-        // print the decrypted text to the console
-        System.out.println(printable);
     }
 
     /**
-     * Decrypts the contents of an input file using the specified key and writes the decrypted text to an output file.
-     * If no output file is specified, the decrypted text is printed to the console.
-     *
-     * @throws IOException if there is an error reading or writing the input or output file.
+     * Reads the window of the file with a single positioned read and decrypts it.
      */
-    public void unicodeFileDecryption() throws IOException {
-        // create a new File object for the output file
-        File output = new File(this.inputFile.getPath());
-
-        // read the input file into a string
-        String encrypted = FileIntoStringFormat(output);
-
-        // create a FileWriter for the output file
-        FileWriter decryptedFile = new FileWriter(this.outputFile.getPath());
-
-        // unicode decryption algorithm
-        for (int i = 0; i < encrypted.length(); i++) {
-            char c = encrypted.charAt(i);
-            if(Character.isLetter(c)){ // check if the character is a letter
-                if (Character.isUpperCase(c)){ // check if the letter is uppercase
-                    c = (char) (((c - 'A' - this.key + 26) % 26 + 'A'));  // shift the uppercase letter according to the key
-                } else {
-                    c = (char) (((c - 'a' - this.key + 26) % 26 + 'a')); // shift the lowercase letter according to the key
+    private static byte[] range(Path path, long offset, int length, CipherTable table) throws IOException {
+        if (!table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8)) {
+            throw new IOException("A range can only be decrypted in a single-byte charset or UTF-8, not " + table.getCharset() + ".");
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = in.size();
+            long start = Math.min(offset, size);
+            long end = Math.min(size, start + length);
+            // a UTF-8 character takes up to 4 bytes, read the bytes the window may cut
+            int margin = table.isSingleByte() ? 0 : 3;
+            long from = Math.max(0, start - margin);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (Math.min(size, end + margin) - from));
+            while (buffer.hasRemaining()) {
+                long time = Metrics.start();
+                int read = in.read(buffer, from + buffer.position());
+                Metrics.read(time, read);
+                if (read == -1) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            int first = (int) (start - from);
+            int last = (int) (end - from);
+            if (margin > 0) {
+                // continuation bytes look like 10xxxxxx
+                while (first > 0 && first < buffer.limit() && (buffer.get(first) & 0xC0) == 0x80 && first > start - from - margin) {
+                    first--;
+                }
+                while (last > first && last < buffer.limit() && (buffer.get(last) & 0xC0) == 0x80 && last < end - from + margin) {
+                    last++;
                 }
             }
-            decryptedFile.append (c); // append the decrypted character to the decrypted text
+            ByteBuffer result = ParallelFileEngine.transform(buffer.position(first).limit(last), from + first, table);
+            byte[] bytes = new byte[result.remaining()];
+            result.get(bytes);
+            if (result != buffer) {
+                BufferPool.release(result);
+            }
+            return bytes;
         }
+    }
 
-        // check if the output file name is empty
-        if(this.outputFile.getPath().equals("")) {
+    /**
+     * @return the decryption table of the algorithm for the key and the charset of this object
+     */
+    private CipherTable table(String algorithm) throws IOException {
+        return Algorithms.get(algorithm).table(this.key, false, this.charset);
+    }
 
-            // if the output file name is empty, print the decrypted text to the console
-            System.out.println(FileIntoStringFormat(this.outputFile));
+    /**
+     * Decrypts a single character that has been encrypted using the unicode algorithm.
+     *
+     * @param c the character to decrypt
+     * @param key the key used to decrypt the character
+     * @return the decrypted character
+     */
+    public static char unicodeDecrypt(char c, int key) {
+        if(Character.isLetter(c)){ // check if the character is a letter
+            if (Character.isUpperCase(c)){ // check if the letter is uppercase
+                c = (char) (((c - 'A' - key + 26) % 26 + 'A'));  // shift the uppercase letter according to the key
+            } else {
+                c = (char) (((c - 'a' - key + 26) % 26 + 'a')); // shift the lowercase letter according to the key
+            }
         }
-
-        // close the FileWriter
-        decryptedFile.close();
+        return c;
     }
 
     /**
-     * Decrypts the text in the input file using the specified key and writes the decrypted text to the output file.
+     * Decrypts a single character that has been encrypted using the shift algorithm.
      *
-     * @throws IOException if there is an error reading or writing to the input or output file
+     * @param c the character to decrypt
+     * @param key the key used to decrypt the character
+     * @return the decrypted character
      */
-    public void shiftFileDecryption() throws IOException {
-        // create a new File object for the output file
-        File output = new File(this.inputFile.getPath());
-
-        // read the input file into a string
-        String encrypted = FileIntoStringFormat(output);
+    public static char shiftDecrypt(char c, int key) {
+            // check if the character is a lowercase letter
+        if (c > (char) (('a' - 1) + key) && c <= 'z'
+                // or if the character is an uppercase letter
+                || c > (char) ( ('A' - 1) + key ) && c <= 'Z') {
 
-        // create a FileWriter for the output file
-        FileWriter decryptedFile = new FileWriter(this.outputFile.getPath());
+            return (char) (c - key);
 
-        // shift decryption algorithm
-        for (int i = 0; i < encrypted.length(); i++) {
+            // check if the character is an uppercase letter that has been shifted past 'A'
+        } else if ( c >= 'A' && c <= (char) ( ('A' - 1) + key ) ) {
 
-            if (encrypted.charAt(i) > (char) ( ('a' - 1) + this.key ) && encrypted.charAt(i) <= 'z'
-                    || encrypted.charAt(i) > (char) ( ('A' - 1) + this.key ) && encrypted.charAt(i) <= 'Z') {
+            // if the character is an uppercase letter that has been shifted past 'A', wrap it around to the end of the alphabet
+            return (char) ( ('Z' - ( ('A'- 1) - (c - key) ) ) );
 
-                decryptedFile.append( ((char) (encrypted.charAt(i) - this.key)) );
+            // check if the character is a lowercase letter that has been shifted past 'a'
+        } else if (c >= 'a' && (c - key) <= (char) ( ('a' - 1) + key ) ) {
 
-            } else if (encrypted.charAt(i) >= 'A' && encrypted.charAt(i) <= (char) ( ('A' - 1) + this.key)){
-
-                decryptedFile.append( (char) ( ('Z' - ( ('A'- 1) - (encrypted.charAt(i) - this.key) ) ) ) );
-
-            } else if (encrypted.charAt(i) >= 'a' && (encrypted.charAt(i) - this.key) <= (char) ( ('a' - 1) + this.key)){
+            // if the character is a lowercase letter that has been shifted past 'a', wrap it around to the end of the alphabet
+            return (char) ( ('z' - ( ('a'- 1) - (c - key) ) ) );
+        }
+        // if the character is not a letter, leave it unchanged
+        return c;
+    }
 
-                decryptedFile.append( (char) ( ('z' - ( ('a'- 1) - (encrypted.charAt(i) - this.key) ) ) ) );
+    /**
+     * Transforms the input file into the output file, in place when both are the same file,
+     * with asynchronous I/O when a queue depth was set, in parallel when more than one thread was asked for
+     * and through a pipeline otherwise.
+     *
+     * @param table the substitution to apply
+     * @throws IOException if there is an error reading or writing the files
+     */
+    private void transformFile(CipherTable table) throws IOException {
+        Metrics.timed("file", () -> {
+            // a file written over itself is transformed in place when every character keeps its length
+            if (MappedFileEngine.isSameFile(this.inputFile, this.outputFile) && MappedFileEngine.transform(this.inputFile, table)) {
+                return;
+            }
+            if (this.queueDepth > 0) {
+                AsyncFileEngine.transform(this.inputFile, this.outputFile, table, this.queueDepth);
+            } else if (this.threads > 1) {
+                ParallelFileEngine.transform(this.inputFile, this.outputFile, table, this.threads);
+            } else {
+                PipelinedFileEngine.transform(this.inputFile, this.outputFile, table);
+            }
+        });
+    }
 
+    /**
+     * Decrypts the container of the input file, into the output file or to the console if there is no output file.
+     *
+     * @throws IOException if there is an error reading or writing the files, or the container is corrupted
+     */
+    private void containerFile() throws IOException {
+        Metrics.timed("file", () -> {
+            if (this.outputFile.getPath().equals("")) {
+                CipherContainer.decrypt(this.inputFile, System.out, this.key, this.threads);
             } else {
-                decryptedFile.append( encrypted.charAt(i) );
+                ChunkedFileEngine.run(this.inputFile, this.outputFile, (input, output) -> {
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output.toFile()))) {
+                        CipherContainer.decrypt(input.toFile(), out, this.key, this.threads);
+                    }
+                });
             }
-        }
+        });
+    }
 
-        // check if the output file name is empty
-        if(this.outputFile.getPath().equals("")) {
+    /**
+     * Decompresses the input file and decrypts it in the same pass, into the output file or to the console
+     * if there is no output file.
+     *
+     * @param table the decryption table
+     * @throws IOException if there is an error reading or writing the files, or the file is not valid gzip
+     */
+    private void compressedFile(CipherTable table) throws IOException {
+        Cipher cipher = Cipher.of(table);
+        Metrics.timed("file", () -> {
+            if (this.outputFile.getPath().equals("")) {
+                decompress(cipher, this.inputFile, System.out);
+            } else {
+                ChunkedFileEngine.run(this.inputFile, this.outputFile, (input, output) -> {
+                    try (OutputStream out = new FileOutputStream(output.toFile())) {
+                        decompress(cipher, input.toFile(), out);
+                    }
+                });
+            }
+        });
+    }
 
-            // if the output file name is empty, print the decrypted text to the console
-            System.out.println(FileIntoStringFormat(this.outputFile));
+    /**
+     * Decompresses and decrypts the file into the stream, which is not closed.
+     */
+    private static void decompress(Cipher cipher, File input, OutputStream out) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(input), ChunkedFileEngine.CHUNK_SIZE)) {
+            cipher.apply(in, out);
         }
+    }
 
-        // close the FileWriter
-        decryptedFile.close();
+    /**
+     * @param file a file
+     * @return {@code true} if the file starts with a valid gzip header, not only with its magic number
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean isCompressed(File file) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            in.mark(4);
+            byte[] header = in.readNBytes(4);
+            // the magic number, the deflate method and no reserved flag
+            if (header.length < 4 || header[0] != 0x1F || header[1] != (byte) 0x8B || header[2] != 8 || (header[3] & 0xE0) != 0) {
+                return false;
+            }
+            in.reset();
+            // the optional fields of the header, the file name or its checksum, must be valid as well
+            new GZIPInputStream(in).close();
+            return true;
+        } catch (ZipException | EOFException e) {
+            return false;
+        }
     }
 
     /**
-     * Converts the contents of a file into a string.
+     * Prints the decryption of the input file to the console, streaming it like a file.
      *
-     * @param file the file to be converted
-     * @return the contents of the file as a string
+     * @param cipher the cipher to apply
      * @throws IOException if there is an error reading the file
      */
-    private static String FileIntoStringFormat(File file) throws IOException {
-        FileReader fr = new FileReader(file); // create a FileReader for the specified file
-
-        BufferedReader br = new BufferedReader(fr); // create a BufferedReader for the FileReader
-
-        String Line; // variable to hold each line of the file as it is read
-
-        StringBuilder Builder = new StringBuilder();
-
-        // read each line of the file until there are no more lines to read
-        while ((Line = br.readLine()) != null) {
-            // append the current line to the StringBuilder, including a newline character
-            Builder.append(Line).append("\n");
+    private void printFile(Cipher cipher) throws IOException {
+        try (InputStream in = new FileInputStream(this.inputFile)) {
+            cipher.apply(in, System.out);
         }
-        // close the FileReader and BufferedReader
-        fr.close();
-        br.close();
-
-        // return the contents of the file as a single String
-        return Builder.toString();
     }
 
 }
\ No newline at end of file
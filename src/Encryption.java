@@ -1,4 +1,8 @@
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.nio.charset.Charset;
 /*
  * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
@@ -22,8 +26,14 @@ import java.io.*;
  *  - {@code text}: a string representing the text to be encrypted
  *  - {@code inputFile}: a {@code File} object representing the input file containing the text to be encrypted
  *  - {@code outputFile}: a {@code File} object representing the output file to which the encrypted text will be written
- *  - {@code key}: an integer which represents the key value used to
- *  encrypt the text.
+ *  - {@code threads}: the number of threads used to encrypt files
+ *  - {@code charset}: the charset files are read and written in
+ *  - {@code queueDepth}: the number of chunks of a file read or written at a time, by asynchronous I/O
+ *  - {@code container}: whether files are encrypted into a {@link CipherContainer}
+ *  - {@code incremental}: whether only what was appended to files since the last run is encrypted
+ *  - {@code compress}: whether the encryption of files is compressed in gzip format
+ *  - {@code key}: the key used to encrypt the text, an integer for the unicode and shift algorithms
+ *  and a word or the path of a text file for the key schedules of {@link Algorithms}.
  *
  * The {@code Encryption} class provides methods for encrypting text using the key value, as well as
  * methods for reading text from files and writing encrypted text to files.
@@ -34,7 +44,13 @@ public class Encryption {
     private String text;
     private File inputFile;
     private File outputFile;
-    private final int key;
+    private final String key;
+    private int threads = 1;
+    private Charset charset = Charset.defaultCharset();
+    private int queueDepth;
+    private boolean container;
+    private boolean incremental;
+    private boolean compress;
 
     /**
      * Encrypts the given text using the given key.
@@ -44,7 +60,7 @@ public class Encryption {
      */
     public Encryption(String text, int key){
         this.text = text;
-        this.key = key;
+        this.key = String.valueOf(key);
     }
 
     /**
@@ -55,6 +71,30 @@ public class Encryption {
      * @param key        the key used to encrypt the text
      */
     public Encryption(File inputFile, File outputFile, int key){
+        this.inputFile = inputFile;
+        this.outputFile = outputFile;
+        this.key = String.valueOf(key);
+    }
+
+    /**
+     * Encrypts the given text with a key that is not an integer, the word of a Vigenère cipher for instance.
+     *
+     * @param text the text to encrypt
+     * @param key  the key used to encrypt the text
+     */
+    public Encryption(String text, String key) {
+        this.text = text;
+        this.key = key;
+    }
+
+    /**
+     * Encrypts the contents of the input file with a key that is not an integer.
+     *
+     * @param inputFile  the input file containing the text
+     * @param outputFile the output file to write the encryption to
+     * @param key        the key used to encrypt the text
+     */
+    public Encryption(File inputFile, File outputFile, String key) {
         this.inputFile = inputFile;
         this.outputFile = outputFile;
         this.key = key;
@@ -83,188 +123,426 @@ public class Encryption {
 
     /**
      * @return encryption key for this object
+     * @throws IllegalArgumentException if the key is a word or the path of a key file rather than an integer, see {@link #getKeyText()}
      */
     public int getKey() {
+        try {
+            return Integer.parseInt(this.key.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The key of the unicode and shift algorithms must be an integer, not " + this.key + ".");
+        }
+    }
+
+    /**
+     * @return encryption key for this object as it was given, an integer, a word or the path of a key file
+     */
+    public String getKeyText() {
         return key;
     }
 
     /**
-     * Encrypts a string of text using unicode algorithm.
+     * @return the number of threads used to encrypt files
      */
-    public void unicodeTextEncryption(){
-        StringBuilder printable = new StringBuilder();// Create a StringBuilder to store the encrypted text
-        // Iterate over each character in the text
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (Character.isLetter(c)) { // check if the character is a letter
-                if (Character.isUpperCase(c)) { // check if the letter is uppercase
-                    c = (char) (((c - 'A' + key) % 26) + 'A'); // shift the uppercase letter according to the key
-                } else {
-                    c = (char) (((c - 'a' + key) % 26) + 'a'); // shift the lowercase letter according to the key
-                }
-            }
-            printable.append(c); // append the encrypted character to the encrypted text
-        }
-        System.out.println(printable); // print the encrypted text
+    public int getThreads() {
+        return threads;
     }
 
     /**
-     *A method for performing a simple form of encryption on a piece of text.
+     * Sets the number of threads used to encrypt files, files are streamed on a single thread by default.
      *
-     * The method uses the value of the key field to shift each character in the text field a certain number of places
-     * in the alphabet. Non-alphabetic characters are left unchanged.
+     * @param threads the number of threads, values lower than 2 mean a single thread
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * @return the charset files are read and written in
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Sets the charset files are read and written in, the platform default charset by default.
+     * ASCII compatible charsets, UTF-8 and the single-byte ones, are transformed without being decoded.
      *
+     * @param charset the charset of the files
      */
-    public void shiftTextEncryption() {
-        StringBuilder printable = new StringBuilder(); // create a new StringBuilder to hold the encrypted text
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
 
-        // Iterate through each character in the  text
-        for (int i = 0; i < this.text.length(); i++) {
-            // check if the character is between 'a' and ('z' - this.key)
-            if (this.text.charAt(i) >= 'a' && this.text.charAt(i) <= (char) ('z' - this.key)
-                    // or if the character is between 'A' and ('Z' - this.key)
-                    || this.text.charAt(i) >= 'A' && this.text.charAt(i) <= (char) ('Z' - this.key)) {
+    /**
+     * @return the number of chunks of a file read or written at a time, 0 if files are not encrypted asynchronously
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
 
-                // Shift the character by the value of the instance variable "key"
-                printable.append( (char) (this.text.charAt(i) + this.key) );
+    /**
+     * Sets the number of chunks of a file read or written at a time by the {@link AsyncFileEngine}, which keeps
+     * storage with a high latency busy. Files are not encrypted asynchronously by default.
+     *
+     * @param queueDepth the number of chunks in flight, 0 not to use asynchronous I/O
+     */
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
 
-                // check if the character is above Z in the ASCII code
-            } else if ( (char) (this.text.charAt(i) + this.key) > 'Z') {
+    /**
+     * @return {@code true} if files are encrypted into a {@link CipherContainer}
+     */
+    public boolean isContainer() {
+        return container;
+    }
 
-                // Shift the character back within the range of 'A' to 'Z'
-            	printable.append( (char)( ( (this.text.charAt(i) + this.key) - 'Z') + ('A'-1) ) );
+    /**
+     * Sets whether files are encrypted into a {@link CipherContainer}, checked chunk by chunk when decrypted,
+     * instead of bare text.
+     *
+     * @param container {@code true} to write containers
+     */
+    public void setContainer(boolean container) {
+        this.container = container;
+    }
 
-                // check if the character is above z in the ASCII code
-            } else if ( (char) (this.text.charAt(i) + this.key) > 'z') {
+    /**
+     * @return {@code true} if only what was appended to files since the last run is encrypted
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
 
-                // Shift the character back within the range of 'a' to 'z'
-                printable.append( (char)( ( (this.text.charAt(i) + this.key) - 'z') + ('a'-1) ) );
+    /**
+     * Sets whether only what was appended to the input file since the last run is encrypted and appended to the
+     * output file, as recorded by the checkpoint of {@link IncrementalFileEngine} next to the output file.
+     *
+     * @param incremental {@code true} to encrypt growing files incrementally
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
 
-                // If the character is not in any of the ranges specified above
-            } else {
+    /**
+     * @return {@code true} if the encryption of files is compressed
+     */
+    public boolean isCompress() {
+        return compress;
+    }
 
-                // Append the character to the StringBuilder object without modifying it
-                printable.append( this.text.charAt(i) );
-            }
+    /**
+     * Sets whether the encryption of files is compressed in gzip format, in the same pass as it is encrypted.
+     *
+     * @param compress {@code true} to compress the encryption of files
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
 
-        }
-        // Print out the encrypted text stored in the StringBuilder object
-        System.out.println(printable);
+    /**
+     * Encrypts a string of text using unicode algorithm.
+     *
+     * @throws IllegalArgumentException if the key is not an integer
+     */
+    public void unicodeTextEncryption(){
+        // encrypt and print the encrypted text, the library API is the Cipher class
+        System.out.println(Cipher.of("unicode", getKey(), true).apply(text));
+    }
+
+    /**
+     *A method for performing a simple form of encryption on a piece of text.
+     *
+     * The method uses the value of the key field to shift each character in the text field a certain number of places
+     * in the alphabet. Non-alphabetic characters are left unchanged.
+     *
+     * @throws IllegalArgumentException if the key is not an integer
+     */
+    public void shiftTextEncryption() {
+        // encrypt and print the encrypted text, the library API is the Cipher class
+        System.out.println(Cipher.of("shift", getKey(), true).apply(this.text));
     }
 
     /**
      * Encrypts the contents of an input file using a simple Unicode-based algorithm and writes the resulting
      * encrypted text to an output file.
      *
+     * <p>The file is streamed through fixed-size buffers, so it is never loaded in memory as a whole,
+     * and its line endings are kept as they are.
+     *
      * @throws IOException if an I/O error occurs while reading from or writing to the input or output file
      */
     public void unicodeFileEncryption() throws IOException {
-        // Create a File object for the input file
-        File input = new File(this.inputFile.getPath());
-
-        // Read the contents of the input file into a String
-        String toBeEncrypted = FileIntoStringFormat(input);
-
-        // Create a FileWriter for the output file
-        FileWriter protectedFile = new FileWriter(this.outputFile.getPath());
-
-        // Iterate over each character in the input file's contents and write the encrypted version to the output file
-        for (int i = 0; i < toBeEncrypted.length(); i++) {
-            char c = toBeEncrypted.charAt(i);
-            if (Character.isLetter(c)) { // check if the character is a letter
-                if (Character.isUpperCase(c)) { // check if the letter is uppercase
-                    c = (char) (((c - 'A' + this.key) % 26) + 'A'); // shift the uppercase letter according to the key
-                } else {
-                    c = (char) (((c - 'a' + this.key) % 26) + 'a'); // shift the lowercase letter according to the key
-                }
-            }
-            protectedFile.append(c); // append the encrypted character to the encrypted text
-        }
+        fileEncryption("unicode");
+    }
 
-        // check if the output file name is empty
-        if(this.outputFile.getPath().equals("")) {
+    /**
+     * Encrypts the contents of a file using a simple substitution cipher.
+     *
+     * <p>The file is streamed through fixed-size buffers, so it is never loaded in memory as a whole,
+     * and its line endings are kept as they are.
+     *
+     * @throws IOException if an I/O error occurs while opening or writing to the output file
+     */
+    public void shiftFileEncryption() throws IOException {
+        fileEncryption("shift");
+    }
 
-            // if the output file name is empty, print the decrypted text to the console
-            System.out.println(FileIntoStringFormat(this.inputFile));
-        }
+    /**
+     * Encrypts the text with an algorithm of {@link Algorithms} and prints the encryption.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @throws IOException if the key is stored in a file that cannot be read
+     */
+    public void textEncryption(String algorithm) throws IOException {
+        System.out.println(Cipher.of(table(algorithm)).apply(this.text));
+    }
 
-        // close the FileWriter
-        protectedFile.close();
+    /**
+     * Encrypts the contents of the input file with an algorithm of {@link Algorithms}, into the output file or
+     * to the console if there is no output file.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @throws IOException if an I/O error occurs while reading from or writing to the input or output file
+     */
+    public void fileEncryption(String algorithm) throws IOException {
+        CipherTable table = table(algorithm);
+        if (this.compress && (this.incremental || this.container)) {
+            throw new IOException("A compressed encryption cannot be incremental nor written in a container.");
+        }
+        if (this.incremental) {
+            incrementalFile(algorithm, table);
+        } else if (this.container) {
+            containerFile(algorithm, table);
+        } else if (this.compress) {
+            compressedFile(table);
+        } else if (this.outputFile.getPath().equals("")) {
+            printFile(Cipher.of(table));
+        } else {
+            transformFile(table);
+        }
     }
 
     /**
-     * Encrypts the contents of a file using a simple substitution cipher.
+     * Encrypts the input file, then every byte written to it until the program is stopped, like {@code tail -f},
+     * into the output file or to the console if there is no output file. Rotated logs are followed.
      *
-     * @throws IOException if an I/O error occurs while opening or writing to the output file
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @throws IOException if an I/O error occurs while reading from or writing to the input or output file
+     * @see FollowFileEngine
      */
+    public void followFile(String algorithm) throws IOException {
+        CipherTable table = table(algorithm);
+        if (this.outputFile.getPath().equals("")) {
+            FollowFileEngine.follow(this.inputFile, System.out, table);
+            return;
+        }
+        try (OutputStream out = new FileOutputStream(this.outputFile)) {
+            FollowFileEngine.follow(this.inputFile, out, table);
+        }
+    }
 
-    public void shiftFileEncryption() throws IOException {
-        // Create a File object for the input file using the name stored in the instance variable "inputFile"
-        File input = new File(this.inputFile.getPath());
+    /**
+     * Encrypts the contents of the input file under several keys, reading it once, into one output file per key
+     * named after the output file, see {@link #keyFile(File, String)}. The key of this object is not used.
+     *
+     * @param algorithm the name of the algorithm, the shift algorithm if it is not registered
+     * @param keys      the keys to encrypt the file with
+     * @return the output files, in the order of the keys
+     * @throws IOException if an I/O error occurs while reading from or writing to the input or output files
+     * @see FanOutFileEngine
+     */
+    public List<File> fileEncryption(String algorithm, List<String> keys) throws IOException {
+        List<CipherTable> tables = new ArrayList<>();
+        List<File> outputs = new ArrayList<>();
+        for (String each : keys) {
+            tables.add(Algorithms.get(algorithm).table(each, true, this.charset));
+            outputs.add(keyFile(this.outputFile, each));
+        }
+        int workers = this.threads > 1 ? this.threads : Runtime.getRuntime().availableProcessors();
+        Metrics.timed("file", () -> {
+            FanOutFileEngine.transform(this.inputFile, outputs, tables, workers);
+        });
+        return outputs;
+    }
 
-        // Convert the contents of the input file into a String object using the method "FileIntoStringFormat()"
-        String toBeEncrypted = FileIntoStringFormat(input);
+    /**
+     * @param output the output file
+     * @param key    a key
+     * @return the output file of the key when a file is encrypted under several keys, {@code output.key}, the
+     * characters of the key that are not letters, digits or dashes being replaced by underscores
+     */
+    public static File keyFile(File output, String key) {
+        return new File(output.getPath() + "." + key.replaceAll("[^A-Za-z0-9-]", "_"));
+    }
 
-        // Create a FileWriter object for the output file using the name stored in the instance variable "outputFile"
-        FileWriter protectedFile = new FileWriter(this.outputFile.getPath());
+    /**
+     * @return the encryption table of the algorithm for the key and the charset of this object
+     */
+    private CipherTable table(String algorithm) throws IOException {
+        return Algorithms.get(algorithm).table(this.key, true, this.charset);
+    }
 
-        //shift encryption algorithm
-        for (int i = 0; i<toBeEncrypted.length(); i++) {
+    /**
+     * Encrypts a single character using the unicode algorithm.
+     *
+     * @param c the character to encrypt
+     * @param key the key used to encrypt the character
+     * @return the encrypted character
+     */
+    public static char unicodeEncrypt(char c, int key) {
+        if (Character.isLetter(c)) { // check if the character is a letter
+            if (Character.isUpperCase(c)) { // check if the letter is uppercase
+                c = (char) (((c - 'A' + key) % 26) + 'A'); // shift the uppercase letter according to the key
+            } else {
+                c = (char) (((c - 'a' + key) % 26) + 'a'); // shift the lowercase letter according to the key
+            }
+        }
+        return c;
+    }
 
-            if (toBeEncrypted.charAt(i) >= 'a' && toBeEncrypted.charAt(i) <= (char) ('z' - this.key)
-                    || toBeEncrypted.charAt(i) >= 'A' && toBeEncrypted.charAt(i) <= (char) ('Z' - this.key)) {
+    /**
+     * Encrypts a single character using the shift algorithm.
+     *
+     * @param c the character to encrypt
+     * @param key the key used to encrypt the character
+     * @return the encrypted character
+     */
+    public static char shiftEncrypt(char c, int key) {
+        // check if the character is between 'a' and ('z' - key) or between 'A' and ('Z' - key)
+        if (c >= 'a' && c <= (char) ('z' - key) || c >= 'A' && c <= (char) ('Z' - key)) {
 
-                protectedFile.append( (char) (toBeEncrypted.charAt(i) + this.key) );
+            // Shift the character by the value of the key
+            return (char) (c + key);
 
-            } else if((char)(toBeEncrypted.charAt(i) + this.key) > 'Z'){
+            // check if the character is above Z in the ASCII code
+        } else if ( (char) (c + key) > 'Z') {
 
-                protectedFile.append( (char)( ( (toBeEncrypted.charAt(i) + this.key) - 'Z') + ('A'-1) ) );
+            // Shift the character back within the range of 'A' to 'Z'
+            return (char)( ( (c + key) - 'Z') + ('A'-1) );
 
-            } else if((char)(toBeEncrypted.charAt(i) + this.key) > 'z'){
+            // check if the character is above z in the ASCII code
+        } else if ( (char) (c + key) > 'z') {
 
-                protectedFile.append( (char)( ( (toBeEncrypted.charAt(i) + this.key) - 'z') + ('a'-1) ) );
+            // Shift the character back within the range of 'a' to 'z'
+            return (char)( ( (c + key) - 'z') + ('a'-1) );
+        }
+        // If the character is not in any of the ranges specified above, leave it unchanged
+        return c;
+    }
 
+    /**
+     * Transforms the input file into the output file, in place when both are the same file,
+     * with asynchronous I/O when a queue depth was set, in parallel when more than one thread was asked for
+     * and through a pipeline otherwise.
+     *
+     * @param table the substitution to apply
+     * @throws IOException if there is an error reading or writing the files
+     */
+    private void transformFile(CipherTable table) throws IOException {
+        Metrics.timed("file", () -> {
+            // a file written over itself is transformed in place when every character keeps its length
+            if (MappedFileEngine.isSameFile(this.inputFile, this.outputFile) && MappedFileEngine.transform(this.inputFile, table)) {
+                return;
+            }
+            if (this.queueDepth > 0) {
+                AsyncFileEngine.transform(this.inputFile, this.outputFile, table, this.queueDepth);
+            } else if (this.threads > 1) {
+                ParallelFileEngine.transform(this.inputFile, this.outputFile, table, this.threads);
             } else {
-                protectedFile.append( toBeEncrypted.charAt(i) );
+                PipelinedFileEngine.transform(this.inputFile, this.outputFile, table);
             }
-        }
+        });
+    }
 
-        // If the output file has the default name
-        if(this.outputFile.getPath().equals("")) {
-            // Print the contents of the protectedFile object to the console
-            System.out.println(FileIntoStringFormat(this.inputFile));
+    /**
+     * Encrypts what was appended to the input file since the last run and appends it to the output file.
+     *
+     * @param algorithm the name of the algorithm
+     * @param table     the encryption table of the algorithm
+     * @throws IOException if there is no output file, the files are encrypted into containers,
+     * or there is an error reading or writing the files
+     */
+    private void incrementalFile(String algorithm, CipherTable table) throws IOException {
+        if (this.outputFile.getPath().equals("") || this.container) {
+            throw new IOException("An incremental encryption needs an output file and cannot write a container.");
         }
-        // Close the FileWriter object for the output file
-        protectedFile.close();
+        Metrics.timed("file", () -> {
+            int keyId = CipherContainer.keyId(Algorithms.get(algorithm).name(), table);
+            IncrementalFileEngine.transform(this.inputFile, this.outputFile, table, keyId);
+        });
     }
 
     /**
-     * Converts the contents of a file into a string.
+     * Encrypts the input file and compresses the encryption as it is written, into the output file or to the console
+     * if there is no output file, so that the file is read and written once.
      *
-     * @param file the file to be converted
-     * @return the contents of the file as a string
-     * @throws IOException if there is an error reading the file
+     * <p>The text is encrypted before it is compressed: the ciphers only substitute letters, so the encryption is
+     * as redundant as the text and compresses as well, while compressed bytes could not be encrypted and decrypted
+     * back by ciphers made for text. The result is a regular gzip file of the encryption.
+     *
+     * @param table the encryption table
+     * @throws IOException if there is an error reading or writing the files
      */
-    private static String FileIntoStringFormat(File file) throws IOException {
-        FileReader fr = new FileReader(file); // create a FileReader for the specified file
-
-        BufferedReader br = new BufferedReader(fr); // create a BufferedReader for the FileReader
+    private void compressedFile(CipherTable table) throws IOException {
+        Cipher cipher = Cipher.of(table);
+        Metrics.timed("file", () -> {
+            if (this.outputFile.getPath().equals("")) {
+                compress(cipher, this.inputFile, System.out);
+            } else {
+                ChunkedFileEngine.run(this.inputFile, this.outputFile, (input, output) -> {
+                    try (OutputStream out = new FileOutputStream(output.toFile())) {
+                        compress(cipher, input.toFile(), out);
+                    }
+                });
+            }
+        });
+    }
 
-        String Line; // variable to hold each line of the file as it is read
+    /**
+     * Encrypts the file and writes the encryption compressed to the stream, which is not closed.
+     */
+    private static void compress(Cipher cipher, File input, OutputStream out) throws IOException {
+        try (InputStream in = new FileInputStream(input)) {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, ChunkedFileEngine.CHUNK_SIZE);
+            cipher.apply(in, gzip);
+            gzip.finish();
+            out.flush();
+        }
+    }
 
-        StringBuilder Builder = new StringBuilder();
+    /**
+     * Encrypts the input file into a container, written to the output file or to the console if there is no output file.
+     *
+     * @param algorithm the name of the algorithm
+     * @param table     the encryption table of the algorithm
+     * @throws IOException if there is an error reading or writing the files
+     */
+    private void containerFile(String algorithm, CipherTable table) throws IOException {
+        String name = Algorithms.get(algorithm).name();
+        Metrics.timed("file", () -> {
+            if (this.outputFile.getPath().equals("")) {
+                CipherContainer.encrypt(this.inputFile, System.out, name, table);
+            } else {
+                ChunkedFileEngine.run(this.inputFile, this.outputFile, (input, output) -> {
+                    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(output.toFile()))) {
+                        CipherContainer.encrypt(input.toFile(), out, name, table);
+                    }
+                });
+            }
+        });
+    }
 
-        // read each line of the file until there are no more lines to read
-        while ((Line = br.readLine()) != null) {
-            // append the current line to the StringBuilder, including a newline character
-            Builder.append(Line).append("\n");
+    /**
+     * Prints the encryption of the input file to the console, streaming it like a file.
+     *
+     * @param cipher the cipher to apply
+     * @throws IOException if there is an error reading the file
+     */
+    private void printFile(Cipher cipher) throws IOException {
+        try (InputStream in = new FileInputStream(this.inputFile)) {
+            cipher.apply(in, System.out);
         }
-        // close the FileReader and BufferedReader
-        fr.close();
-        br.close();
-
-        // return the contents of the file as a single String
-        return Builder.toString();
     }
 
 
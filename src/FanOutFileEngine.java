@@ -0,0 +1,202 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code FanOutFileEngine} class transforms one input file with several tables, the same algorithm under
+ * several keys for instance, into one output file per table, reading the input only once.
+ *
+ * Each block of the input is read once, then every table transforms its own copy of it and writes it to its own
+ * output, in parallel, while the next block is read. The cost of a run grows with what is written rather than with
+ * the number of tables times what is read.
+ *
+ * Only the single-byte charsets and UTF-8 are transformed as bytes, like in the {@link ParallelFileEngine}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class FanOutFileEngine {
+    /**
+     * The size of the blocks the input is read in.
+     */
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private FanOutFileEngine() {
+    }
+
+    /**
+     * A table and the output it writes to, with its own buffer, reused for every block.
+     */
+    private static final class Lane {
+        private final CipherTable table;
+        private final FileChannel out;
+        private final ByteBuffer buffer;
+
+        private Lane(CipherTable table, FileChannel out) {
+            this.table = table;
+            this.out = out;
+            this.buffer = BufferPool.acquire(BLOCK_SIZE + Utf8Transcoder.MIN_CAPACITY);
+        }
+
+        /**
+         * Transforms a block of the input, which starts at {@code position}, and writes it.
+         */
+        private Void write(ByteBuffer block, long position) {
+            try {
+                ByteBuffer src = block.duplicate();
+                if (this.table.isSingleByte()) {
+                    this.buffer.clear();
+                    this.buffer.put(src).flip();
+                    this.table.apply(this.buffer, 0, this.buffer.limit(), position);
+                    drain();
+                } else {
+                    CoderResult result;
+                    do {
+                        this.buffer.clear();
+                        result = Utf8Transcoder.transform(src, this.buffer, this.table, true);
+                        this.buffer.flip();
+                        drain();
+                    } while (result.isOverflow());
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void drain() throws IOException {
+            while (this.buffer.hasRemaining()) {
+                long start = Metrics.start();
+                Metrics.written(start, this.out.write(this.buffer));
+            }
+        }
+    }
+
+    /**
+     * Transforms the input file with every table into the output file of the same index.
+     *
+     * @param inputFile   the file to read once
+     * @param outputFiles the files to write, one per table
+     * @param tables      the substitutions to apply, in the same charset
+     * @param threads     the number of outputs written at the same time, values lower than 2 mean one at a time
+     * @throws IOException if there is an error reading or writing the files, or the charset is neither
+     * a single-byte charset nor UTF-8
+     */
+    public static void transform(File inputFile, List<File> outputFiles, List<CipherTable> tables, int threads)
+            throws IOException {
+        for (CipherTable table : tables) {
+            if (!table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8)) {
+                throw new IOException("A file can only be fanned out in a single-byte charset or UTF-8, not " + table.getCharset() + ".");
+            }
+        }
+        boolean singleByte = tables.stream().allMatch(CipherTable::isSingleByte);
+        List<FileChannel> outputs = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tables.size())));
+        try (FileChannel in = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+            List<Lane> lanes = new ArrayList<>();
+            for (int i = 0; i < tables.size(); i++) {
+                FileChannel out = FileChannel.open(outputFiles.get(i).toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                outputs.add(out);
+                lanes.add(new Lane(tables.get(i), out));
+            }
+
+            // a block is read while the one before is transformed and written
+            ByteBuffer[] blocks = {BufferPool.acquire(BLOCK_SIZE), BufferPool.acquire(BLOCK_SIZE)};
+            List<Future<Void>> pending = List.of();
+            long position = 0;
+            boolean end = false;
+            for (int turn = 0; !end; turn ^= 1) {
+                ByteBuffer block = blocks[turn];
+                end = read(in, block, position);
+                block.flip();
+                int length = end || singleByte ? block.limit() : Utf8Transcoder.complete(block);
+                await(pending);
+
+                ByteBuffer part = block.duplicate().limit(length);
+                long start = position;
+                pending = new ArrayList<>();
+                for (Lane lane : lanes) {
+                    pending.add(pool.submit(Metrics.counted(() -> lane.write(part, start))));
+                }
+                position += length;
+                // the next block starts with the character cut at the end of this one
+                blocks[turn ^ 1].clear();
+                blocks[turn ^ 1].put(block.position(length));
+            }
+            await(pending);
+
+            // the buffers only go back to the pool once no lane uses them anymore
+            BufferPool.release(blocks[0]);
+            BufferPool.release(blocks[1]);
+            for (Lane lane : lanes) {
+                BufferPool.release(lane.buffer);
+            }
+        } finally {
+            pool.shutdownNow();
+            for (FileChannel out : outputs) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Fills the free room of the buffer, whose start is at the given position of the channel.
+     *
+     * @return {@code true} if the end of the channel was reached
+     */
+    private static boolean read(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            int read = in.read(buffer, position + buffer.position());
+            Metrics.read(start, read);
+            if (read == -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the outputs of the last block to be written.
+     */
+    private static void await(List<Future<Void>> pending) throws IOException {
+        try {
+            for (Future<Void> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the outputs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
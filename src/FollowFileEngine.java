@@ -0,0 +1,212 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code FollowFileEngine} class transforms a growing file as it is written, like {@code tail -f} would print it.
+ *
+ * The directory of the file is watched with a {@link WatchService}, so the thread sleeps until the file changes and
+ * new bytes are transformed a few milliseconds after they were written. The watch is polled every
+ * {@link #POLL_INTERVAL} milliseconds as well, for the file systems whose changes are not reported.
+ *
+ * Logs are rotated in two ways, both are followed:
+ *  - the file is moved away and a new one is created in its place: the rest of the old file is transformed,
+ *  then the new file from its start
+ *  - the file is truncated in place: it is transformed again from its start
+ *
+ * The output is the transformation of everything written to the file, in order, as a single stream: the key
+ * schedules go on over rotations, so the output is decrypted as a whole.
+ *
+ * The bytes are read into a buffer allocated once, transformed in place in single-byte charsets, and through a
+ * second buffer allocated once in UTF-8, so following a file allocates nothing per byte.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class FollowFileEngine {
+    /**
+     * The size of the buffer the new bytes are read into.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The longest time in milliseconds the file is not looked at, when no change is reported.
+     */
+    private static final long POLL_INTERVAL = 1000;
+
+    private final Path input;
+    private final OutputStream out;
+    private final CipherTable table;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer result;
+
+    private FileChannel in;
+    private Object fileKey;
+    // the position of the next byte to read in the file
+    private long offset;
+    // the position of the next byte to transform in the followed stream, for the key schedules
+    private long position;
+
+    private FollowFileEngine(Path input, OutputStream out, CipherTable table) {
+        this.input = input;
+        this.out = out;
+        this.table = table;
+        this.result = table.isSingleByte() ? null : ByteBuffer.allocate(BUFFER_SIZE + Utf8Transcoder.MIN_CAPACITY);
+    }
+
+    /**
+     * Transforms the input file from its start, then every byte written to it, until the thread is interrupted.
+     *
+     * @param inputFile the file to follow
+     * @param out       the stream the transformation is written to, flushed after every change, it is not closed
+     * @param table     the substitution to apply
+     * @throws IOException if the file cannot be read, the stream cannot be written or the charset of the table
+     * is neither a single-byte charset nor UTF-8
+     */
+    public static void follow(File inputFile, OutputStream out, CipherTable table) throws IOException {
+        if (!table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8)) {
+            throw new IOException("A file can only be followed in a single-byte charset or UTF-8, not " + table.getCharset() + ".");
+        }
+        new FollowFileEngine(inputFile.toPath().toAbsolutePath(), out, table).run();
+    }
+
+    private void run() throws IOException {
+        try (WatchService watcher = this.input.getFileSystem().newWatchService()) {
+            this.input.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            open();
+            while (!Thread.currentThread().isInterrupted()) {
+                rotate();
+                if (this.in.size() < this.offset) {
+                    // truncated in place, a character cut by the truncation is dropped
+                    this.offset = 0;
+                    this.buffer.clear();
+                }
+                drain(false);
+                this.out.flush();
+
+                WatchKey key = watcher.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // any change in the directory is a reason to look at the file
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (this.in != null) {
+                this.in.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the file at the path being followed.
+     */
+    private void open() throws IOException {
+        this.in = FileChannel.open(this.input, StandardOpenOption.READ);
+        this.fileKey = fileKey();
+        this.offset = 0;
+    }
+
+    /**
+     * Finishes the old file and opens the new one if another file was created at the path.
+     */
+    private void rotate() throws IOException {
+        Object current = fileKey();
+        if (current == null || current.equals(this.fileKey)) {
+            // still the same file, or the new one is not created yet
+            return;
+        }
+        drain(true);
+        this.in.close();
+        open();
+    }
+
+    /**
+     * @return the identity of the file at the path, {@code null} if there is none
+     */
+    private Object fileKey() throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(this.input, BasicFileAttributes.class);
+            // without file keys, a rotation is only seen as a truncation
+            return attributes.fileKey() != null ? attributes.fileKey() : this.input;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Transforms and writes every byte of the file not read yet.
+     *
+     * @param endOfInput {@code true} if the file will not grow anymore, a character it ends with is then malformed
+     */
+    private void drain(boolean endOfInput) throws IOException {
+        while (true) {
+            long start = Metrics.start();
+            int read = this.in.read(this.buffer, this.offset);
+            Metrics.read(start, read);
+            if (read <= 0 && !(endOfInput && this.buffer.position() > 0)) {
+                return;
+            }
+            this.offset += Math.max(0, read);
+            this.buffer.flip();
+            if (this.result == null) {
+                this.table.apply(this.buffer, 0, this.buffer.limit(), this.position);
+                this.position += this.buffer.limit();
+                write(this.buffer);
+            } else {
+                int from = this.buffer.position();
+                CoderResult coderResult;
+                do {
+                    coderResult = Utf8Transcoder.transform(this.buffer, this.result, this.table, endOfInput && read <= 0);
+                    write(this.result.flip());
+                    this.result.clear();
+                } while (coderResult.isOverflow());
+                this.position += this.buffer.position() - from;
+            }
+            // a character not complete yet stays in the buffer
+            this.buffer.compact();
+            if (read <= 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer to the output.
+     */
+    private void write(ByteBuffer bytes) throws IOException {
+        long start = Metrics.start();
+        int length = bytes.remaining();
+        this.out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+        bytes.position(bytes.limit());
+        Metrics.written(start, length);
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.CRC32C;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code IncrementalFileEngine} class transforms only the bytes appended to the input file since the last run,
+ * and appends them to the output file, so that a growing log is encrypted in O(appended bytes) instead of O(file).
+ *
+ * After each run a checkpoint is written next to the output file, in {@code <output>.checkpoint}:
+ *  - the offset of the input up to which the output is complete, and the length of the output
+ *  - a CRC32C of the first and last {@link #SAMPLE_SIZE} bytes before that offset
+ *  - the id of the key and the charset of the table
+ *
+ * The next run starts from the offset if the input is at least that long, its sampled bytes have the same CRC32C,
+ * the output has the recorded length and the key and charset are the same. Otherwise the input was truncated,
+ * rewritten or is encrypted differently, and the whole file is transformed again.
+ *
+ * The ciphers only depend on the position of a byte in the file, so the appended bytes are transformed exactly
+ * as a full pass would. In UTF-8 a character cut at the end of the input, while it is being written, is left
+ * for the next run. Only the single-byte charsets and UTF-8 can be cut that way, like for the
+ * {@link ParallelFileEngine}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class IncrementalFileEngine {
+    /**
+     * The suffix of the checkpoint of an output file.
+     */
+    public static final String SUFFIX = ".checkpoint";
+
+    /**
+     * The number of bytes hashed at the start and at the end of the part already transformed.
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * The size of the buffer the appended bytes are read into.
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private IncrementalFileEngine() {
+    }
+
+    /**
+     * The state of the output file after a run.
+     *
+     * @param offset       the offset of the input up to which the output is complete
+     * @param outputLength the length of the output
+     * @param checksum     the CRC32C of the sampled bytes of the input before the offset
+     * @param keyId        the id of the key the output is encrypted with
+     * @param charset      the name of the charset of the input
+     */
+    record Checkpoint(long offset, long outputLength, long checksum, int keyId, String charset) {
+    }
+
+    /**
+     * Transforms what was appended to the input file since the last run into the output file, or the whole file
+     * if the checkpoint is missing or does not match the files anymore.
+     *
+     * @param inputFile  the growing file
+     * @param outputFile the file the transformation is appended to, it cannot be the input file
+     * @param table      the substitution to apply
+     * @param keyId      an id of the algorithm and the key, a run with another key transforms the whole file
+     * @return the number of bytes of the input transformed by this run
+     * @throws IOException if there is an error reading or writing the files, or the charset of the table
+     * is neither a single-byte charset nor UTF-8
+     */
+    public static long transform(File inputFile, File outputFile, CipherTable table, int keyId) throws IOException {
+        if (!table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8)) {
+            throw new IOException("A file can only be encrypted incrementally in a single-byte charset or UTF-8, not "
+                    + table.getCharset() + ".");
+        }
+        Path input = inputFile.toPath();
+        Path output = outputFile.toPath();
+        if (Files.exists(output) && Files.isSameFile(input, output)) {
+            throw new IOException("An incremental encryption needs an output file apart from the input file.");
+        }
+        Path checkpointFile = checkpoint(output);
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // what is appended while this run goes is left for the next run
+            long size = in.size();
+            long offset = 0;
+            Checkpoint last = read(checkpointFile);
+            if (last != null && last.keyId() == keyId && last.charset().equals(table.getCharset().name())
+                    && last.offset() <= size && last.outputLength() == out.size()
+                    && last.checksum() == checksum(in, last.offset())) {
+                offset = last.offset();
+            } else {
+                out.truncate(0);
+            }
+            out.position(out.size());
+
+            long end = transform(in, out, offset, size, table);
+            out.force(false);
+            write(checkpointFile, new Checkpoint(end, out.size(), checksum(in, end), keyId, table.getCharset().name()));
+            return end - offset;
+        }
+    }
+
+    /**
+     * @param output an output file
+     * @return the checkpoint of the output file
+     */
+    public static Path checkpoint(Path output) {
+        return output.resolveSibling(output.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Transforms the input from {@code offset} to {@code size} and appends it to the output.
+     *
+     * @return the offset up to which the input was transformed
+     */
+    private static long transform(FileChannel in, FileChannel out, long offset, long size, CipherTable table)
+            throws IOException {
+        int capacity = (int) Math.min(BUFFER_SIZE, Math.max(size - offset, 16));
+        ByteBuffer buffer = BufferPool.acquire(capacity);
+        long position = offset;
+        while (position < size) {
+            // the bytes carried from the last read are at the start of the buffer
+            buffer.limit((int) Math.min(capacity, size - position));
+            while (buffer.hasRemaining()) {
+                long start = Metrics.start();
+                int read = in.read(buffer, position + buffer.position());
+                Metrics.read(start, read);
+                if (read == -1) {
+                    break;
+                }
+            }
+            buffer.flip();
+            int length = table.isSingleByte() ? buffer.limit() : Utf8Transcoder.complete(buffer);
+            if (length == 0) {
+                // only a character being written is left
+                break;
+            }
+            ByteBuffer part = buffer.duplicate().limit(length);
+            ByteBuffer result = ParallelFileEngine.transform(part, position, table);
+            while (result.hasRemaining()) {
+                long start = Metrics.start();
+                Metrics.written(start, out.write(result));
+            }
+            if (result != part) {
+                BufferPool.release(result);
+            }
+            position += length;
+            buffer.position(length).compact();
+        }
+        BufferPool.release(buffer);
+        return position;
+    }
+
+    /**
+     * @return the CRC32C of the offset and of the first and last bytes of the input before it
+     */
+    private static long checksum(FileChannel in, long offset) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(offset).flip());
+        int head = (int) Math.min(SAMPLE_SIZE, offset);
+        int tail = (int) Math.min(SAMPLE_SIZE, offset - head);
+        for (long[] sample : new long[][]{{0, head}, {offset - tail, tail}}) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) sample[1]);
+            while (buffer.hasRemaining() && in.read(buffer, sample[0] + buffer.position()) != -1) {
+                // read the whole sample
+            }
+            crc.update(buffer.flip());
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * @return the checkpoint stored in the file, {@code null} if there is none or it cannot be read
+     */
+    private static Checkpoint read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+            return new Checkpoint(Long.parseLong(properties.getProperty("offset")),
+                    Long.parseLong(properties.getProperty("outputLength")),
+                    Long.parseLong(properties.getProperty("checksum")),
+                    Integer.parseInt(properties.getProperty("keyId")),
+                    properties.getProperty("charset"));
+        } catch (IOException | RuntimeException e) {
+            // a damaged checkpoint only costs a full pass
+            return null;
+        }
+    }
+
+    /**
+     * Writes the checkpoint next to it first, then moves it over the previous one, so that a run stopped
+     * halfway never leaves a checkpoint the output does not match.
+     */
+    private static void write(Path file, Checkpoint checkpoint) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("offset", String.valueOf(checkpoint.offset()));
+        properties.setProperty("outputLength", String.valueOf(checkpoint.outputLength()));
+        properties.setProperty("checksum", String.valueOf(checkpoint.checksum()));
+        properties.setProperty("keyId", String.valueOf(checkpoint.keyId()));
+        properties.setProperty("charset", checkpoint.charset());
+
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "Incremental encryption checkpoint");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
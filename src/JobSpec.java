@@ -0,0 +1,285 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * A {@code JobSpec} is the command line of the program once parsed and checked: every argument is read, every value
+ * is converted and the files are looked at before anything is encrypted or decrypted, so that a mistake stops the
+ * program in milliseconds instead of at the end, or in the middle, of a long run.
+ *
+ * {@link #parse(String[])} checks the arguments themselves:
+ *  - every option expecting a value has one, the numbers are numbers and the charset is supported
+ *  - the mode is known, the algorithm is resolved to its registered name
+ *  - the key is valid for the algorithm, and the keys of the unicode and shift algorithms are taken modulo 26
+ *
+ * {@link #check()} checks the files: the input file can be read, the output file or its directory can be written,
+ * the batch exists and has an output directory; and that a key is cracked from the data or a file of the unicode or
+ * shift algorithm.
+ *
+ * @param mode        what to do with the data
+ * @param algorithm   the registered name of the algorithm
+ * @param key         the key, in the canonical form of the algorithm
+ * @param data        the text given to -data, used when there is no input file
+ * @param in          the input file, "-" for the standard input, empty for the data
+ * @param out         the output file, empty for the console
+ * @param threads     the number of threads used for files
+ * @param inPlace     whether the input file is written over
+ * @param batch       the directory or manifest of the batch, empty for a single file
+ * @param serve       the address to serve requests on, empty not to serve
+ * @param connect     the address of the daemon to send the data to, empty to transform it here
+ * @param charset     the charset of the files and streams
+ * @param container   whether files are encrypted into containers
+ * @param range       the part of the input file to decrypt, as offset:length, empty for the whole file
+ * @param incremental whether only what was appended to the input file is encrypted
+ * @param follow      whether the input file is encrypted as it grows
+ * @param compress    whether the encryption of files is compressed
+ * @param keys        the keys the input file is encrypted with in a single pass, empty for the single key
+ * @param queueDepth  the number of chunks of a file read or written at a time by asynchronous I/O, 0 not to use it
+ * @param stats       whether the metrics are printed when the program exits
+ * @param help        whether the help was asked for
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public record JobSpec(Mode mode, String algorithm, String key, String data, String in, String out, int threads,
+                      boolean inPlace, String batch, String serve, String connect, Charset charset, boolean container,
+                      String range, boolean incremental, boolean follow, boolean compress, List<String> keys, int queueDepth,
+                      boolean stats, boolean help) {
+
+    /**
+     * What the program does with the data.
+     */
+    public enum Mode {
+        ENC("enc"), DEC("dec"), CRACK("crack");
+
+        private final String argument;
+
+        Mode(String argument) {
+            this.argument = argument;
+        }
+
+        /**
+         * @return the mode as given to -mode
+         */
+        public String argument() {
+            return argument;
+        }
+
+        /**
+         * @param argument the mode as given to -mode
+         * @return the mode
+         * @throws IllegalArgumentException if there is no such mode
+         */
+        public static Mode of(String argument) {
+            for (Mode mode : values()) {
+                if (mode.argument.equals(argument)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("The mode " + argument + " is not enc, dec or crack.");
+        }
+    }
+
+    /**
+     * Parses the command line and checks the arguments, see {@link #check()} for the files. The input file is only
+     * opened to read the algorithm of a container being decrypted.
+     *
+     * @param args the arguments of the program
+     * @return the job the arguments describe
+     * @throws IllegalArgumentException if an argument is missing its value or is not valid
+     */
+    public static JobSpec parse(String[] args) {
+        String mode = "enc";
+        String data = "";
+        String in = "";
+        String out = "";
+        String alg = "";
+        String key = "0";
+        int threads = 1;
+        boolean inPlace = false;
+        String batch = "";
+        String serve = "";
+        String connect = "";
+        String charset = "";
+        boolean hasData = false;
+        boolean help = false;
+        boolean stats = false;
+        boolean container = false;
+        String range = "";
+        boolean incremental = false;
+        boolean follow = false;
+        boolean compress = false;
+        String keys = "";
+        int queueDepth = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-mode" -> mode = value(args, i++);
+                case "-key" -> key = value(args, i++);
+                case "-data" -> {
+                    data = value(args, i++);
+                    hasData = true;
+                }
+                case "-in" -> in = value(args, i++);
+                case "-out" -> out = value(args, i++);
+                case "-alg" -> alg = value(args, i++);
+                case "-threads" -> threads = number(args, i++);
+                case "-inplace" -> inPlace = true;
+                case "-batch" -> batch = value(args, i++);
+                case "-serve" -> serve = value(args, i++);
+                case "-connect" -> connect = value(args, i++);
+                case "-charset" -> charset = value(args, i++);
+                case "-container" -> container = true;
+                case "-range" -> range = value(args, i++);
+                case "-incremental" -> incremental = true;
+                case "-follow" -> follow = true;
+                case "-compress" -> compress = true;
+                case "-keys" -> keys = value(args, i++);
+                case "-async" -> queueDepth = number(args, i++);
+                case "--stats" -> stats = true;
+                case "help" -> help = true;
+            }
+        }
+
+        // Without data nor input file, the standard input is read like any Unix filter does
+        if (!hasData && in.equals("") && !help && batch.equals("") && serve.equals("")) {
+            in = "-";
+        }
+
+        Mode parsedMode = Mode.of(mode);
+        Algorithm algorithm = Algorithms.get(parsedMode == Mode.DEC ? containerAlgorithm(in, alg) : alg);
+        Charset parsedCharset;
+        try {
+            parsedCharset = charset.equals("") ? Charset.defaultCharset() : Charset.forName(charset);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The charset " + charset + " is not supported.");
+        }
+        if (!range.equals("") && !range.matches("\\d+:\\d+")) {
+            throw new IllegalArgumentException("The range " + range + " is not an offset and a length such as 1024:4096.");
+        }
+        // the key of a cracked file is found, not given
+        String normalized = parsedMode == Mode.CRACK ? key : algorithm.normalize(key);
+        List<String> parsedKeys = new ArrayList<>();
+        if (!keys.equals("")) {
+            for (String each : keys.split(",")) {
+                parsedKeys.add(algorithm.normalize(each.trim()));
+            }
+        }
+
+        return new JobSpec(parsedMode, algorithm.name(), normalized, data, in, out, threads, inPlace, batch, serve,
+                connect, parsedCharset, container, range, incremental, follow, compress, List.copyOf(parsedKeys), queueDepth, stats, help);
+    }
+
+    /**
+     * Checks that the key gives a table and that the files can be read and written, before any byte is.
+     *
+     * @throws IllegalArgumentException if the key is not valid, a file cannot be read or written, or the arguments
+     * do not go together
+     */
+    public void check() {
+        if (this.help || !this.serve.equals("")) {
+            return;
+        }
+        if (this.mode == Mode.CRACK && !this.algorithm.equals("unicode") && !this.algorithm.equals("shift")) {
+            throw new IllegalArgumentException("Only the unicode and shift algorithms can be cracked.");
+        }
+        if (this.mode == Mode.CRACK && this.in.equals("-")) {
+            throw new IllegalArgumentException("Cracking needs -data or an -in file, the standard input cannot be read twice.");
+        }
+        if (!this.keys.isEmpty() && (this.mode != Mode.ENC || this.out.equals("") || this.out.equals("-")
+                || this.in.equals("") || this.in.equals("-"))) {
+            throw new IllegalArgumentException("The -keys argument encrypts an -in file into one -out file per key.");
+        }
+        if (this.mode != Mode.CRACK) {
+            try {
+                // with -keys, the -key argument is not used
+                if (this.keys.isEmpty()) {
+                    Algorithms.get(this.algorithm).table(this.key, this.mode == Mode.ENC, this.charset);
+                }
+                for (String each : this.keys) {
+                    Algorithms.get(this.algorithm).table(each, true, this.charset);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("The key of the " + this.algorithm + " algorithm cannot be read: " + e.getMessage());
+            }
+        }
+        if (!this.batch.equals("")) {
+            if (!new File(this.batch).exists()) {
+                throw new IllegalArgumentException("The batch " + this.batch + " does not exist.");
+            }
+            if (this.out.equals("") || this.out.equals("-")) {
+                throw new IllegalArgumentException("The -batch argument needs an -out directory.");
+            }
+            return;
+        }
+        if (!this.in.equals("") && !this.in.equals("-")) {
+            File input = new File(this.in);
+            if (!input.isFile() || !input.canRead()) {
+                throw new IllegalArgumentException("The file " + this.in + " cannot be read.");
+            }
+        }
+        String output = this.inPlace && !this.in.equals("") && !this.in.equals("-") ? this.in : this.out;
+        if (!output.equals("") && !output.equals("-")) {
+            File file = new File(output).getAbsoluteFile();
+            boolean writable = file.exists() ? file.isFile() && file.canWrite()
+                    : file.getParentFile() != null && file.getParentFile().isDirectory() && file.getParentFile().canWrite();
+            if (!writable) {
+                throw new IllegalArgumentException("The file " + output + " cannot be written.");
+            }
+        }
+    }
+
+    /**
+     * @return the algorithm a container is encrypted with, which decrypts it whatever -alg says, or {@code alg}
+     */
+    private static String containerAlgorithm(String in, String alg) {
+        try {
+            File input = new File(in);
+            return CipherContainer.isContainer(input) ? CipherContainer.header(input).algorithm() : alg;
+        } catch (IOException e) {
+            // the file is checked later
+            return alg;
+        }
+    }
+
+    /**
+     * @return the value of the option at {@code i}
+     */
+    private static String value(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException("The " + args[i] + " argument needs a value.");
+        }
+        return args[i + 1];
+    }
+
+    /**
+     * @return the integer value of the option at {@code i}, which cannot be negative
+     */
+    private static int number(String[] args, int i) {
+        String value = value(args, i);
+        int number;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The " + args[i] + " argument needs an integer, not " + value + ".");
+        }
+        if (number < 0) {
+            throw new IllegalArgumentException("The " + args[i] + " argument cannot be negative, not " + value + ".");
+        }
+        return number;
+    }
+}
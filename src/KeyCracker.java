@@ -0,0 +1,210 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code KeyCracker} class finds the key of a text encrypted with the shift or the unicode algorithm, by
+ * frequency analysis: the text is decrypted with each of the 26 possible keys, and the key whose letters are the
+ * closest to the letter frequencies of English, by the chi-squared statistic, wins.
+ *
+ * Decrypting a text with a key only moves its letters around, so the counts of the 128 ASCII characters of the
+ * input are enough to score every key: the file is read once, and each key is scored from the counts alone.
+ * The counts are made in a single parallel pass, every task counting its part of the file into its own array,
+ * the arrays being added up at the end. A file larger than {@link #SAMPLE_SIZE} is only sampled, in
+ * {@link #BLOCK_SIZE} blocks spread evenly over the file, which is plenty for English.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class KeyCracker {
+    /**
+     * The number of bytes read at most from a file, larger files are sampled.
+     */
+    public static final long SAMPLE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The size of the blocks a file is counted by, one task each.
+     */
+    public static final int BLOCK_SIZE = 1024 * 1024;
+
+    /**
+     * The frequencies of the letters A to Z in English texts, in percent.
+     */
+    private static final double[] ENGLISH = {
+            8.167, 1.492, 2.782, 4.253, 12.702, 2.228, 2.015, 6.094, 6.966, 0.153, 0.772, 4.025, 2.406,
+            6.749, 7.507, 1.929, 0.095, 5.987, 6.327, 9.056, 2.758, 0.978, 2.360, 0.150, 1.974, 0.074
+    };
+
+    private KeyCracker() {
+    }
+
+    /**
+     * The key found for a text.
+     *
+     * @param key        the most likely key
+     * @param chiSquared the chi-squared statistic of the text decrypted with that key, the lower the better
+     * @param letters    the number of letters the statistic was computed on
+     */
+    public record Result(int key, double chiSquared, long letters) {
+        @Override
+        public String toString() {
+            return String.format("key %d (chi-squared %.1f over %d letters)", this.key, this.chiSquared, this.letters);
+        }
+    }
+
+    /**
+     * @param text      the encrypted text
+     * @param algorithm "unicode" or "shift"
+     * @return the most likely key of the text
+     */
+    public static Result crack(CharSequence text, String algorithm) {
+        long[] counts = new long[128];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 128) {
+                counts[c]++;
+            }
+        }
+        return best(counts, algorithm, Charset.defaultCharset());
+    }
+
+    /**
+     * @param file      the encrypted file, in an ASCII compatible charset
+     * @param algorithm "unicode" or "shift"
+     * @param charset   the charset of the file
+     * @param threads   the number of threads counting the file
+     * @return the most likely key of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Result crack(File file, String algorithm, Charset charset, int threads) throws IOException {
+        return best(count(file, threads), algorithm, charset);
+    }
+
+    /**
+     * Counts the ASCII bytes of the file, or of the blocks sampled from it, in parallel.
+     *
+     * @return the number of times each ASCII byte was found
+     */
+    static long[] count(File file, int threads) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = in.size();
+            long blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            long sampled = Math.min(blocks, SAMPLE_SIZE / BLOCK_SIZE);
+
+            List<Callable<long[]>> tasks = new ArrayList<>();
+            for (long i = 0; i < sampled; i++) {
+                // spread the blocks evenly when the file is sampled
+                long position = (blocks == sampled ? i : i * blocks / sampled) * BLOCK_SIZE;
+                tasks.add(Metrics.counted(() -> count(in, position)));
+            }
+
+            long[] counts = new long[128];
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+            try {
+                for (Future<long[]> future : pool.invokeAll(tasks)) {
+                    long[] partial = future.get();
+                    for (int c = 0; c < counts.length; c++) {
+                        counts[c] += partial[c];
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while counting the file", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Counts the ASCII bytes of the block starting at {@code position}, into an array of its own.
+     */
+    private static long[] count(FileChannel in, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            int read = in.read(buffer, position + buffer.position());
+            Metrics.read(start, read);
+            if (read == -1) {
+                break;
+            }
+        }
+        long[] counts = new long[128];
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] >= 0) {
+                counts[bytes[i]]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Scores the 26 keys and keeps the best one.
+     */
+    private static Result best(long[] counts, String algorithm, Charset charset) {
+        Result best = null;
+        for (int key = 0; key < 26; key++) {
+            CipherTable table = CipherTable.of(algorithm, key, false, charset);
+            long[] letters = new long[26];
+            for (int c = 0; c < counts.length; c++) {
+                char decrypted = table.apply((char) c);
+                if (decrypted >= 'A' && decrypted <= 'Z') {
+                    letters[decrypted - 'A'] += counts[c];
+                } else if (decrypted >= 'a' && decrypted <= 'z') {
+                    letters[decrypted - 'a'] += counts[c];
+                }
+            }
+            Result result = score(key, letters);
+            if (best == null || result.chiSquared() < best.chiSquared()) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the chi-squared statistic of the letter counts against English
+     */
+    private static Result score(int key, long[] letters) {
+        long total = 0;
+        for (long count : letters) {
+            total += count;
+        }
+        double chiSquared = 0;
+        for (int i = 0; i < 26; i++) {
+            double expected = total * ENGLISH[i] / 100;
+            double difference = letters[i] - expected;
+            chiSquared += expected == 0 ? 0 : difference * difference / expected;
+        }
+        return new Result(key, chiSquared, total);
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.zip.Checksum;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code KeySchedule} class holds the shifts of a Vigenère or running key cipher: the i-th letter of the key
+ * gives the shift of the letters found at the positions i, i + n, i + 2n... of the text, n being the length of the key.
+ * Only the ASCII letters are shifted, within their case, everything else is left as it is.
+ *
+ * The key advances with every byte of the text in its charset, letter or not, so the shift of any byte of a file is
+ * known from its position alone: a file cut in chunks can be transformed chunk by chunk, in any order, on any thread.
+ * Since no byte outside of the letters is changed, the text keeps its length and the same position is found again
+ * when decrypting. The bytes of a UTF-8 character outside of ASCII are never letters, so UTF-8 is transformed
+ * the same way as the single-byte charsets.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class KeySchedule {
+    /**
+     * The 26 shifts of a byte, {@code SHIFTS[s][b]} is the byte {@code b} shifted by {@code s} letters.
+     */
+    private static final byte[][] SHIFTS = new byte[26][256];
+
+    static {
+        for (int s = 0; s < 26; s++) {
+            for (int b = 0; b < 256; b++) {
+                SHIFTS[s][b] = (byte) b;
+            }
+            for (int c = 0; c < 26; c++) {
+                SHIFTS[s]['A' + c] = (byte) ('A' + (c + s) % 26);
+                SHIFTS[s]['a' + c] = (byte) ('a' + (c + s) % 26);
+            }
+        }
+    }
+
+    private final byte[] shifts;
+
+    private KeySchedule(byte[] shifts) {
+        this.shifts = shifts;
+    }
+
+    /**
+     * @param key     the key, only its letters are used, 'A' or 'a' shifting by 0 and 'Z' or 'z' by 25
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @return the schedule of the key
+     * @throws IllegalArgumentException if the key holds no letter
+     */
+    public static KeySchedule of(CharSequence key, boolean encrypt) {
+        byte[] shifts = new byte[key.length()];
+        int length = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int shift = c >= 'A' && c <= 'Z' ? c - 'A' : c >= 'a' && c <= 'z' ? c - 'a' : -1;
+            if (shift >= 0) {
+                shifts[length++] = (byte) (encrypt ? shift : (26 - shift) % 26);
+            }
+        }
+        if (length == 0) {
+            throw new IllegalArgumentException("The key must hold at least one letter");
+        }
+        byte[] trimmed = new byte[length];
+        System.arraycopy(shifts, 0, trimmed, 0, length);
+        return new KeySchedule(trimmed);
+    }
+
+    /**
+     * @return the number of letters of the key, after which the shifts repeat
+     */
+    public int length() {
+        return this.shifts.length;
+    }
+
+    /**
+     * Adds the shifts of the key to a checksum, so that a key gives the same checksum whatever file it was read from.
+     *
+     * @param checksum the checksum to update
+     */
+    void update(Checksum checksum) {
+        checksum.update(this.shifts, 0, this.shifts.length);
+    }
+
+    /**
+     * Transforms {@code len} bytes of {@code buf} in place, {@code buf[off]} being the byte at {@code position}.
+     *
+     * @param buf      the bytes to transform
+     * @param off      the index of the first byte to transform
+     * @param len      the number of bytes to transform
+     * @param position the position of the first byte in the text
+     */
+    public void apply(byte[] buf, int off, int len, long position) {
+        byte[] shifts = this.shifts;
+        int k = (int) (position % shifts.length);
+        for (int i = off; i < off + len; i++) {
+            buf[i] = SHIFTS[shifts[k]][buf[i] & 0xFF];
+            if (++k == shifts.length) {
+                k = 0;
+            }
+        }
+    }
+
+    /**
+     * Transforms {@code len} characters of {@code buf} in place, the first one being at the start of the text.
+     * The key advances by the number of bytes of every character in UTF-8, or by one in a single-byte charset,
+     * so that a text gives the same result as a file holding it.
+     *
+     * @param buf  the characters to transform
+     * @param off  the index of the first character to transform
+     * @param len  the number of characters to transform
+     * @param utf8 {@code true} if the text is written in UTF-8
+     */
+    public void apply(char[] buf, int off, int len, boolean utf8) {
+        byte[] shifts = this.shifts;
+        long position = 0;
+        for (int i = off; i < off + len; i++) {
+            char c = buf[i];
+            if (c < 128) {
+                buf[i] = (char) SHIFTS[shifts[(int) (position % shifts.length)]][c];
+            }
+            position += !utf8 || c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+    }
+}
@@ -17,38 +17,49 @@ import java.io.IOException;
 /**
  * <B>Note:
  * The shift algorithm doesn't handle keys greater than 26 as they are outside the range of
- * the alphabet thus a key like 30 will result in bad encryption and hence bad decryption of the
- * data or file.</B>
+ * the alphabet, so the keys of the unicode and shift algorithms are taken modulo 26: a key like 30
+ * encrypts like 4. The arguments and the files are checked by {@link JobSpec} before anything is read.
+ * An invalid command line exits with status 2 and a failure while running with status 1, the message being
+ * printed on the error stream.</B>
  */
 
 public class Main {
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) {
         // Initialize a Menu object
         Menu menu = new Menu();
 
-        // Initialize variables to hold the command-line arguments
-        String mode = "enc";
-        String data = "";
-        String in = "";
-        String out = "";
-        String alg ="";
-        int key = 0;
+        // Parse and check the command-line arguments before anything is read or written
+        JobSpec job;
+        try {
+            job = JobSpec.parse(args);
+            job.check();
+        } catch (IllegalArgumentException e) {
+            // kept out of the output, which may be piped, and reported to the caller by the exit status
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (job.help()) {
+            menu.printMenu();
+            return;
+        }
 
-        // Parse the command-line arguments
-        for (int i = 0; i < args.length; i++) {
-            switch (args[i]) {
-                case "-mode" -> mode = args[i + 1];
-                case "-key" -> key = Integer.parseInt(args[i + 1]);
-                case "-data" -> data = args[i + 1];
-                case "-in" -> in = args[i + 1];
-                case "-out" -> out = args[i + 1];
-                case "-alg" -> alg = args[i + 1];
-                case "help" -> menu.printMenu();
-            }
+        // Count what is done and print it when the program exits, the daemon included
+        if (job.stats()) {
+            Metrics.enable();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(System.lineSeparator() + Metrics.summary())));
         }
 
-        // Call the choice method of the Menu object with the parsed arguments
-        menu.choice(mode,alg,data,in,out,key);
+        // Run the job through the Menu object, a failure is reported like an invalid command line
+        try {
+            menu.run(job);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
 
     }
-}
\ No newline at end of file
+}
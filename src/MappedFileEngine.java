@@ -0,0 +1,228 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code MappedFileEngine} class encrypts or decrypts a file in place.
+ *
+ * The file is mapped in memory one window at a time with {@link FileChannel#map} and every byte is replaced
+ * directly in the mapped window, so no second copy of the file is written and its content never goes through
+ * the Java heap nor through a {@code String}.
+ *
+ * This only works when every character keeps the same number of bytes once transformed:
+ *  - for a single-byte charset, each byte is transformed through the byte table of the {@link CipherTable}
+ *  - for UTF-8, ASCII bytes are transformed through the byte table and the other characters are decoded and
+ *  re-encoded on the spot; the whole file is checked before anything is written, and a file holding a character
+ *  that would change length (or bytes that are not valid UTF-8) is left untouched and reported to the caller,
+ *  which then falls back to writing a transformed copy over it
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class MappedFileEngine {
+    /**
+     * The size in bytes of the windows mapped in memory.
+     */
+    public static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private MappedFileEngine() {
+    }
+
+    /**
+     * @param table the substitution to apply
+     * @return {@code true} if files in the charset of the table can be transformed in place
+     */
+    public static boolean supports(CipherTable table) {
+        return table.isSingleByte()
+                || table.getCharset().equals(StandardCharsets.UTF_8) && table.isAsciiPreserving();
+    }
+
+    /**
+     * @param inputFile  the input file
+     * @param outputFile the output file
+     * @return {@code true} if both files are the same existing file
+     * @throws IOException if the files cannot be compared
+     */
+    public static boolean isSameFile(File inputFile, File outputFile) throws IOException {
+        return outputFile.exists() && Files.isSameFile(inputFile.toPath(), outputFile.toPath());
+    }
+
+    /**
+     * Transforms the file in place.
+     *
+     * @param file  the file to transform
+     * @param table the substitution to apply
+     * @return {@code false} if the file cannot be transformed in place, in which case it is left untouched
+     * @throws IOException if there is an error reading or writing the file
+     */
+    public static boolean transform(File file, CipherTable table) throws IOException {
+        if (!supports(table)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (table.isSingleByte()) {
+                transformBytes(channel, table);
+                return true;
+            }
+            // check the whole file first so that a rejected file is not left half transformed
+            if (!transformUtf8(channel, table, false)) {
+                return false;
+            }
+            transformUtf8(channel, table, true);
+            return true;
+        }
+    }
+
+    /**
+     * Transforms every byte of the file through the byte table.
+     */
+    private static void transformBytes(FileChannel channel, CipherTable table) throws IOException {
+        long size = channel.size();
+        for (long position = 0; position < size; position += WINDOW_SIZE) {
+            int length = (int) Math.min(WINDOW_SIZE, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, length);
+            table.apply(window, 0, length, position);
+            Metrics.mapped(length);
+        }
+    }
+
+    /**
+     * Walks the UTF-8 characters of the file, window by window, and transforms them if {@code write} is set.
+     * Windows always end on a character boundary, the rest of the window is mapped again with the next one.
+     *
+     * @return {@code false} if a character cannot be transformed in place
+     */
+    private static boolean transformUtf8(FileChannel channel, CipherTable table, boolean write) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            int length = (int) Math.min(WINDOW_SIZE, size - position);
+            MappedByteBuffer window = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    position, length);
+            int done = transformUtf8(window, length, position + length == size, table, write);
+            if (done < 0) {
+                return false;
+            }
+            if (write) {
+                Metrics.mapped(done);
+            }
+            position += done;
+        }
+        return true;
+    }
+
+    /**
+     * Transforms the complete UTF-8 characters of a window.
+     *
+     * @param last {@code true} if the window ends with the file
+     * @return the number of bytes of the window that were handled, or -1 if a character is not valid UTF-8
+     * or changes length once transformed
+     */
+    private static int transformUtf8(MappedByteBuffer window, int length, boolean last, CipherTable table, boolean write) {
+        // the characters changed and left as they were, only counted when the metrics are enabled
+        boolean counting = write && Metrics.isEnabled();
+        long changed = 0;
+        long passed = 0;
+        int i = 0;
+        while (i < length) {
+            int lead = window.get(i);
+            if (lead >= 0) {
+                if (write) {
+                    byte result = table.apply((byte) lead);
+                    window.put(i, result);
+                    if (counting && result != lead) {
+                        changed++;
+                    } else if (counting) {
+                        passed++;
+                    }
+                }
+                i++;
+                continue;
+            }
+
+            // no character starts with a continuation byte or a byte above F4, like in the Utf8Transcoder
+            int count = lead > (byte) 0xF4 ? 0 : lead >= (byte) 0xF0 ? 4 : lead >= (byte) 0xE0 ? 3 : lead >= (byte) 0xC0 ? 2 : 0;
+            if (i + count > length && !last) {
+                // the character continues in the next window
+                break;
+            }
+            if (count == 0 || i + count > length) {
+                return -1;
+            }
+
+            int codePoint = lead & (0xFF >> (count + 1));
+            for (int k = 1; k < count; k++) {
+                int b = window.get(i + k);
+                if ((b & 0xC0) != 0x80) {
+                    return -1;
+                }
+                codePoint = codePoint << 6 | b & 0x3F;
+            }
+            if (!Character.isValidCodePoint(codePoint) || utf8Length(codePoint) != count
+                    || codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                return -1;
+            }
+
+            int transformed = transform(codePoint, table);
+            if (transformed < 0 || utf8Length(transformed) != count) {
+                return -1;
+            }
+            if (counting && transformed != codePoint) {
+                changed++;
+            } else if (counting) {
+                passed++;
+            }
+            if (write) {
+                for (int k = count - 1; k > 0; k--) {
+                    window.put(i + k, (byte) (0x80 | transformed & 0x3F));
+                    transformed >>>= 6;
+                }
+                window.put(i, (byte) ((0xFF00 >> count) & 0xFF | transformed));
+            }
+            i += count;
+        }
+        if (counting) {
+            Metrics.chars(changed, passed);
+        }
+        return i;
+    }
+
+    /**
+     * Transforms a code point the way the algorithms transform its UTF-16 characters.
+     *
+     * @return the transformed code point, or -1 if its characters no longer form a valid code point
+     */
+    private static int transform(int codePoint, CipherTable table) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            char c = table.apply((char) codePoint);
+            return Character.isSurrogate(c) ? -1 : c;
+        }
+        char high = table.apply(Character.highSurrogate(codePoint));
+        char low = table.apply(Character.lowSurrogate(codePoint));
+        return Character.isSurrogatePair(high, low) ? Character.toCodePoint(high, low) : -1;
+    }
+
+    /**
+     * @return the number of bytes of the code point in UTF-8
+     */
+    private static int utf8Length(int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+}
@@ -1,5 +1,12 @@
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /*
  * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
@@ -20,171 +27,530 @@ import java.io.IOException;
  * The {@code Menu} class provides a command-line interface for interacting
  * with the {@code Encryption} and {@code Decryption} classes.
  *
- * The {@code Menu} class has two instance variables:
+ * The {@code Menu} class has fifteen instance variables:
  * - {@code encryption}: an instance of the {@code Encryption} class, used for encrypting text
  * - {@code decryption}: an instance of the {@code Decryption} class, used for decrypting text
+ * - {@code threads}: the number of threads used for files
+ * - {@code inPlace}: whether files are written over themselves
+ * - {@code batch}: the directory or manifest of the files processed in a single run
+ * - {@code serve}: the address the program serves requests on, as a daemon
+ * - {@code connect}: the address of the daemon texts are sent to
+ * - {@code charset}: the charset files and streams are read and written in
+ * - {@code container}: whether files are encrypted into containers
+ * - {@code range}: the part of the input file decrypted alone
+ * - {@code incremental}: whether only what was appended to files since the last run is encrypted
+ * - {@code follow}: whether the input file is encrypted as it grows, until the program is stopped
+ * - {@code compress}: whether the encryption of files is compressed, and the files decrypted decompressed
+ * - {@code keys}: the keys a file is encrypted with in a single pass
+ * - {@code queueDepth}: the number of chunks of a file read or written at a time by asynchronous I/O
  *
  * The {@code Menu} class provides methods for displaying the menu options to the user, accepting user input, and
- * calling the appropriate methods in the {@code Encryption} and {@code Decryption} classes to perform the requested
- * operations.
+ * calling the appropriate methods in the {@code Encryption} and {@code Decryption} classes, or the {@code Cipher}
+ * class for texts, to perform the requested operations.
  *
  * @author Beaudelaire Tsoungui Nzodoumkouo
  */
 public class Menu {
    private Encryption encryption;
    private Decryption decryption;
+   private int threads = 1;
+   private boolean inPlace;
+   private String batch = "";
+   private String serve = "";
+   private String connect = "";
+   private Charset charset = Charset.defaultCharset();
+   private boolean container;
+   private String range = "";
+   private boolean incremental;
+   private boolean follow;
+   private boolean compress;
+   private List<String> keys = List.of();
+   private int queueDepth;
+
+    /**
+     * Sets the number of threads used to encrypt or decrypt files.
+     *
+     * @param threads : the number of threads, values lower than 2 mean a single thread
+     */
+   public void setThreads(int threads) {
+       this.threads = threads;
+   }
+
+    /**
+     * Sets whether files are encrypted or decrypted in place, i.e. written over the input file.
+     *
+     * @param inPlace : {@code true} to ignore the -out argument and write over the input file
+     */
+   public void setInPlace(boolean inPlace) {
+       this.inPlace = inPlace;
+   }
+
+    /**
+     * Sets the directory or the manifest of the files to encrypt or decrypt in a single run.
+     *
+     * @param batch : a directory, or a file listing one file per line, an empty string to process a single file
+     */
+   public void setBatch(String batch) {
+       this.batch = batch;
+   }
+
+    /**
+     * Sets the address the program listens on to serve requests as a daemon.
+     *
+     * @param serve : a port number on the loopback interface or the path of a Unix domain socket, an empty string not to serve
+     */
+   public void setServe(String serve) {
+       this.serve = serve;
+   }
+
+    /**
+     * Sets the address of a running daemon the texts are sent to instead of being transformed by this program.
+     *
+     * @param connect : a port number on the loopback interface or the path of a Unix domain socket, an empty string not to connect
+     */
+   public void setConnect(String connect) {
+       this.connect = connect;
+   }
+
+    /**
+     * Sets the charset files and streams are read and written in.
+     *
+     * @param charset : the charset of the files, the platform default charset if there is no -charset argument
+     */
+   public void setCharset(Charset charset) {
+       this.charset = charset;
+   }
+
+    /**
+     * Sets whether files are encrypted into containers, checked chunk by chunk when they are decrypted.
+     *
+     * @param container : {@code true} to encrypt files into containers, containers are always recognised when decrypting
+     */
+   public void setContainer(boolean container) {
+       this.container = container;
+   }
+
+    /**
+     * Sets the part of the input file to decrypt, instead of the whole file.
+     *
+     * @param range : the offset of the first byte and the number of bytes, as offset:length, an empty string for the whole file
+     */
+   public void setRange(String range) {
+       this.range = range;
+   }
+
+    /**
+     * Sets whether only what was appended to the input file since the last run is encrypted, a growing log for instance.
+     *
+     * @param incremental : {@code true} to append the encryption of the new bytes to the output file
+     */
+   public void setIncremental(boolean incremental) {
+       this.incremental = incremental;
+   }
+
+    /**
+     * Sets whether the input file is followed, i.e. encrypted as it grows until the program is stopped, like tail -f.
+     *
+     * @param follow : {@code true} to follow the input file
+     */
+   public void setFollow(boolean follow) {
+       this.follow = follow;
+   }
+
+    /**
+     * Sets whether the encryption of files is compressed in gzip format, or the files decrypted are decompressed.
+     * Without it, a file is decompressed when it starts with a valid gzip header.
+     *
+     * @param compress : {@code true} to compress the encryption of files, or to decompress the files decrypted
+     */
+   public void setCompress(boolean compress) {
+       this.compress = compress;
+   }
+
+    /**
+     * Sets the keys a file is encrypted with, reading it once, into one output file per key.
+     *
+     * @param keys : the keys, an empty list to encrypt with the -key argument only
+     */
+   public void setKeys(List<String> keys) {
+       this.keys = keys;
+   }
+
+    /**
+     * Sets the number of chunks of a file read or written at a time by asynchronous I/O, for storage with a high latency.
+     *
+     * @param queueDepth : the number of chunks in flight, 0 not to use asynchronous I/O
+     */
+   public void setQueueDepth(int queueDepth) {
+       this.queueDepth = queueDepth;
+   }
+
+    /**
+     * Runs a job parsed and checked from the command line, see {@link #choice(String, String, String, String, String, String)}.
+     *
+     * @param job : the job to run
+     * @throws IOException :  if there is an error reading or writing the files
+     */
+   public void run(JobSpec job) throws IOException {
+       setThreads(job.threads());
+       setInPlace(job.inPlace());
+       setBatch(job.batch());
+       setServe(job.serve());
+       setConnect(job.connect());
+       setCharset(job.charset());
+       setContainer(job.container());
+       setRange(job.range());
+       setIncremental(job.incremental());
+       setFollow(job.follow());
+       setCompress(job.compress());
+       setKeys(job.keys());
+       setQueueDepth(job.queueDepth());
+       choice(job.mode().argument(), job.algorithm(), job.data(), job.in(), job.out(), job.key());
+   }
 
     /**
      * When starting the program, the necessary information should be specified by the appropriate argument.
-     * If there is no -alg argument, the default is shift algorithm.
+     * If there is no -alg argument, or if it is not the name of a registered algorithm, the default is shift algorithm.
      * If there is no -mode, the program work in the enc mode;
+     * If -mode is crack, the key of the unicode or shift algorithm is found by frequency analysis, then the data is decrypted;
      * If there is no -key, the program consider that key is 0;
-     * If there is no -data and no -in the program assumes that the data is an empty string;
-     * If there is no -out argument, the program print data to the standard output;
+     * If there is no -data and no -in, or if -in is "-", the program reads the data from the standard input as it comes;
+     * If there is no -out argument, or if -out is "-", the program print data to the standard output;
      * If there are both -data and -in arguments,the program prefer -data over -in.
-     * @param mode : a string indicating whether to perform encryption ("enc") or decryption ("dec")
-     * @param alg : a string indicating the algorithm to use for the encryption or decryption ("unicode" or "shift")
+     * If the program works in place, or if -in and -out are the same file, the file is transformed in place.
+     * If there is a -batch argument, every file it lists is processed and written in the -out directory.
+     * If there is a -serve argument, the program runs as a daemon and serves requests until it is stopped.
+     * If there is a -connect argument, the data is sent to the daemon listening on that address.
+     * If there is a -charset argument, files and the standard input are read and written in that charset.
+     * If there is a -container argument, files are encrypted into containers, which are decrypted whatever the arguments.
+     * If there is a -range argument, only that part of the input file is decrypted, and nothing but the result is printed.
+     * If there is an -incremental argument, only what was appended to the input file since the last run is encrypted.
+     * If there is a -follow argument, the input file is encrypted as it grows until the program is stopped.
+     * If there is a -compress argument, the encryption of files is compressed, or the files decrypted are decompressed;
+     * without it, a file starting with a valid gzip header is decompressed all the same.
+     * If there is a -keys argument, the input file is encrypted under every key into the output file followed by the key.
+     * If there is an -async argument, files are read and written with that many chunks in flight.
+     * @param mode : a string indicating whether to perform encryption ("enc"), decryption ("dec") or to crack the key ("crack")
+     * @param alg : a string indicating the algorithm to use for the encryption or decryption, as registered in {@code Algorithms}
      * @param data : a String indicating the data to be encrypted or decrypted (if {@code in} is an empty string)
      * @param in : a string containing the name of the input file (if provided)
      * @param out : a string containing the name of the output file (if provided)
-     * @param key : an integer representing the key to use for the encryption or decryption
-     * @throws IOException :  if there is an error reading or writing the files
+     * @param key : the key to use for the encryption or decryption, an integer for the unicode and shift algorithms
+     * @throws IOException :  if there is an error reading or writing the files, or a file of a batch failed
+     * @throws IllegalArgumentException : if the key is not valid or the arguments do not go together
      */
 
-   public void choice(String mode, String alg, String data, String in, String out, int key) throws IOException {
-       try {
-           if (alg.equals("unicode")) {
-               if (in.equals("")) {
-                   switch (mode) {
-                       case "enc" -> unicodeEnc(data, key);
-                       case "dec" -> unicodeDec(data, key);
-                   }
-               } else {
-                   switch (mode) {
-                       case "enc" -> unicodeFileEnc(in, out, key);
-                       case "dec" -> unicodeFileDec(in, out, key);
-                   }
-               }
-           } else {
-               if (in.equals("")) {
-                   switch (mode) {
-                       case "enc" -> shiftEnc(data, key);
-                       case "dec" -> shiftDec(data, key);
-                   }
-               } else {
-                   switch (mode) {
-                       case "enc" -> shiftFileEnc(in, out, key);
-                       case "dec" -> shiftFileDec(in, out, key);
-                   }
-               }
-           }
-       } catch (IOException e){
-           System.out.println(e.getMessage());
+   public void choice(String mode, String alg, String data, String in, String out, String key) throws IOException {
+       if (!this.serve.equals("")) {
+           serve();
+           return;
+       }
+       if (!this.batch.equals("")) {
+           batch(mode, alg, out, key);
+           return;
+       }
+       if (out.equals("-")) {
+           out = "";
+       }
+       if (this.inPlace && !in.equals("") && !in.equals("-")) {
+           out = in;
+       }
+       // the algorithms are looked up by name, an unknown name being the shift algorithm
+       String name = Algorithms.get(alg).name();
+       switch (mode) {
+           case "enc" -> dispatch(name, data, in, out, key, true);
+           case "dec" -> dispatch(name, data, in, out, key, false);
+           case "crack" -> crack(name, data, in, out);
        }
    }
 
     /**
-     * Decrypts a file using a shift cipher and writes the decrypted content to a new file.
+     * Encrypts or decrypts the standard input, a file or the data, whichever was given.
      *
-     * @param in :the file to be decrypted
-     * @param out :the file to write the decrypted content to
-     * @param key :the key to use for decryption
-     * @throws IOException if there is an error reading or writing the files
+     * @param alg :the name of a registered algorithm
+     * @param data :the data, used when there is no input file
+     * @param in :the input file, "-" for the standard input
+     * @param out :the output file
+     * @param key :the key to use
+     * @param encrypt :{@code true} to encrypt, {@code false} to decrypt
+     * @throws IOException if there is an error reading or writing the files or the streams
      */
-    private void shiftFileDec(String in, String out, int key) throws IOException {
-        this.decryption = new Decryption(new File(in), new File(out), key);
-        System.out.print("The file was decrypted successfully with shift algorithm, \nYou can find the decryption in : " + this.decryption.getOutputFile().getName() );
-        this.decryption.shiftFileDecryption();
+    private void dispatch(String alg, String data, String in, String out, String key, boolean encrypt) throws IOException {
+        if (in.equals("-")) {
+            stream(alg, out, key, encrypt);
+        } else if (in.equals("")) {
+            text(data, alg, key, encrypt);
+        } else if (!encrypt && !this.range.equals("")) {
+            range(in, out, alg, key);
+        } else if (encrypt && this.follow) {
+            follow(in, out, alg, key);
+        } else if (encrypt && !this.keys.isEmpty()) {
+            fanOut(in, out, alg);
+        } else {
+            file(in, out, alg, key, encrypt);
+        }
     }
 
     /**
-     * Encrypts a file using a shift cipher and writes the encrypted content to a new file.
+     * Encrypts or decrypts every file of the batch and prints a summary of the run.
+     * The files are spread over the threads given with -threads, or over every processor if there are none.
      *
-     * @param in :the file to be decrypted
-     * @param out :the file to write the decrypted content to
-     * @param key :the key to use for decryption
-     * @throws IOException if there is an error reading or writing the files
+     * @param mode :"enc" or "dec"
+     * @param alg :the name of a registered algorithm
+     * @param out :the directory the files are written to
+     * @param key :the key to use
+     * @throws IOException if the batch cannot be read, or a file of the batch failed
+     */
+    private void batch(String mode, String alg, String out, String key) throws IOException {
+        if (out.equals("")) {
+            throw new IllegalArgumentException("The -batch argument needs an -out directory.");
+        }
+        String name = Algorithms.get(alg).name();
+        BatchRunner.FileOperation operation = mode.equals("dec")
+                ? (in, output) -> decryption(in, output, key).fileDecryption(name)
+                : (in, output) -> encryption(in, output, key).fileEncryption(name);
+        int workers = this.threads > 1 ? this.threads : Runtime.getRuntime().availableProcessors();
+
+        BatchRunner.Summary summary = BatchRunner.run(Path.of(this.batch), Path.of(out), workers, operation);
+        System.out.println("The batch was " + (mode.equals("dec") ? "decrypted" : "encrypted") + " with "
+                + name + " algorithm, \nYou can find it in : " + out);
+        System.out.println(summary);
+        if (summary.failures() > 0) {
+            // the files are named on the error stream as they fail
+            throw new IOException(summary.failures() + " files of the batch could not be processed.");
+        }
+    }
+
+    /**
+     * @return the encryption of a file of the batch, in the -charset of the program
      */
-    private void shiftFileEnc(String in, String out, int key) throws IOException {
-       this.encryption = new Encryption(new File(in), new File(out), key);
-        System.out.print("The file was encrypted successfully with shift algorithm, \nYou can find the encryption in : " + this.encryption.getOutputFile().getName() );
-        this.encryption.shiftFileEncryption();
+    private Encryption encryption(File in, File out, String key) {
+        Encryption encryption = new Encryption(in, out, key);
+        encryption.setCharset(this.charset);
+        encryption.setContainer(this.container);
+        encryption.setCompress(this.compress);
+        return encryption;
     }
 
     /**
-     * Decrypts the given data using the shift decryption method with the specified key.
+     * @return the decryption of a file of the batch, in the -charset of the program
+     */
+    private Decryption decryption(File in, File out, String key) {
+        Decryption decryption = new Decryption(in, out, key);
+        decryption.setCharset(this.charset);
+        decryption.setCompress(this.compress);
+        return decryption;
+    }
+
+    /**
+     * Serves requests on the -serve address until the program is stopped.
+     *
+     * @throws IOException if the address cannot be bound
+     */
+    private void serve() throws IOException {
+        CipherServer server = new CipherServer(CipherServer.address(this.serve));
+        // release the address when the daemon is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ignored) {
+            }
+        }));
+        System.out.println("Serving requests on " + server.getAddress());
+        server.serve();
+    }
+
+    /**
+     * Transforms the data here, or on the daemon if there is a -connect argument.
      *
-     * @param data the data to be decrypted
-     * @param key the key to be used for decryption
+     * @param data the data to transform
+     * @param alg the name of a registered algorithm, the daemon only knows "unicode" and "shift"
+     * @param key the key to use
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @return the transformed data
+     * @throws IOException if the daemon cannot be reached
      */
-    private void shiftDec(String data, int key) {
-       this.decryption = new Decryption(data,key);
-        System.out.print("The data was decrypted successfully with shift algorithm, \nHere is the decryption : " );
-       this.decryption.shiftTextDecryption();
+    private String transform(String data, String alg, String key, boolean encrypt) throws IOException {
+        if (this.connect.equals("")) {
+            return Cipher.of(Algorithms.get(alg).table(key, encrypt, this.charset)).apply(data);
+        }
+        if (!alg.equals("unicode") && !alg.equals("shift")) {
+            throw new IOException("The daemon only serves the unicode and shift algorithms.");
+        }
+        byte[] result = CipherClient.request(CipherServer.address(this.connect), encrypt, alg, Integer.parseInt(key), data.getBytes(StandardCharsets.UTF_8));
+        return new String(result, StandardCharsets.UTF_8);
     }
 
     /**
-     * Encrypts the given data using the shift encryption method with the specified key.
+     * @param out :the output file
+     * @return the name of the output file, or the console followed by a new line when there is no output file
+     */
+    private static String destination(File out) {
+        return out.getPath().equals("") ? "the console\n" : out.getName();
+    }
+
+    /**
+     * Encrypts or decrypts the standard input as it is read, so that the program can sit in a pipeline.
+     * Nothing but the result is printed.
      *
-     * @param data the data to be decrypted
-     * @param key the key to be used for decryption
+     * @param alg :the name of a registered algorithm
+     * @param out :the file to write the result to, the standard output if it is empty
+     * @param key :the key to use
+     * @param encrypt :{@code true} to encrypt, {@code false} to decrypt
+     * @throws IOException if there is an error reading or writing the streams
      */
-    private void shiftEnc(String data, int key) {
-       this.encryption = new Encryption(data,key);
-        System.out.print("The data was encrypted successfully with shift algorithm, \nHere is the encryption : " );
-       this.encryption.shiftTextEncryption();
+    private void stream(String alg, String out, String key, boolean encrypt) throws IOException {
+        Cipher cipher = Cipher.of(Algorithms.get(alg).table(key, encrypt, this.charset));
+        if (out.equals("")) {
+            cipher.apply(System.in, System.out);
+            return;
+        }
+        try (OutputStream output = Files.newOutputStream(Path.of(out))) {
+            cipher.apply(System.in, output);
+        }
     }
 
     /**
-     * Decrypts a file using a unicode cipher and writes the decrypted content to a new file.
+     * Finds the key the data or the file was encrypted with and decrypts it with that key.
      *
-     * @param in :the file to be decrypted
-     * @param out :the file to write the decrypted content to
-     * @param key :the key to use for decryption
+     * @param alg :"unicode" or "shift", the algorithms whose keys can be cracked
+     * @param data :the data, used when there is no input file
+     * @param in :the input file
+     * @param out :the file to write the decryption to
      * @throws IOException if there is an error reading or writing the files
      */
-    private void unicodeFileDec(String in, String out, int key) throws IOException {
-       this.decryption = new Decryption(new File(in), new File(out), key);
-        System.out.print("The file was decrypted successfully with unicode algorithm, \nYou can find the decryption in : " + this.decryption.getOutputFile().getName() );
-        this.decryption.unicodeFileDecryption();
+    private void crack(String alg, String data, String in, String out) throws IOException {
+        if (!alg.equals("unicode") && !alg.equals("shift")) {
+            throw new IllegalArgumentException("Only the unicode and shift algorithms can be cracked.");
+        }
+        if (in.equals("-")) {
+            throw new IllegalArgumentException("Cracking needs -data or an -in file, the standard input cannot be read twice.");
+        }
+        if (in.equals("")) {
+            KeyCracker.Result result = KeyCracker.crack(data, alg);
+            System.out.println("The data was cracked with " + alg + " algorithm, the " + result + ".");
+            text(data, alg, String.valueOf(result.key()), false);
+            return;
+        }
+        int workers = this.threads > 1 ? this.threads : Runtime.getRuntime().availableProcessors();
+        KeyCracker.Result result = KeyCracker.crack(new File(in), alg, this.charset, workers);
+        System.out.println("The file was cracked with " + alg + " algorithm, the " + result + ".");
+        file(in, out, alg, String.valueOf(result.key()), false);
     }
 
     /**
-     * Encrypts a file using a unicode cipher and writes the encrypted content to a new file.
+     * Encrypts or decrypts a file and writes the result to a new file, or to the console if there is no output file.
      *
-     * @param in :the file to be decrypted
-     * @param out :the file to write the decrypted content to
-     * @param key :the key to use for decryption
+     * @param in :the file to be encrypted or decrypted
+     * @param out :the file to write the result to
+     * @param alg :the name of a registered algorithm
+     * @param key :the key to use
+     * @param encrypt :{@code true} to encrypt, {@code false} to decrypt
      * @throws IOException if there is an error reading or writing the files
      */
-    private void unicodeFileEnc(String in, String out, int key) throws IOException {
+    private void file(String in, String out, String alg, String key, boolean encrypt) throws IOException {
+        if (encrypt) {
+            this.encryption = new Encryption(new File(in), new File(out), key);
+            this.encryption.setThreads(this.threads);
+            this.encryption.setCharset(this.charset);
+            this.encryption.setContainer(this.container);
+            this.encryption.setIncremental(this.incremental);
+            this.encryption.setCompress(this.compress);
+            this.encryption.setQueueDepth(this.queueDepth);
+            System.out.print("The file was encrypted successfully with " + alg + " algorithm, \nYou can find the encryption in : " + destination(this.encryption.getOutputFile()) );
+            this.encryption.fileEncryption(alg);
+        } else {
+            this.decryption = new Decryption(new File(in), new File(out), key);
+            this.decryption.setThreads(this.threads);
+            this.decryption.setCharset(this.charset);
+            this.decryption.setQueueDepth(this.queueDepth);
+            this.decryption.setCompress(this.compress);
+            System.out.print("The file was decrypted successfully with " + alg + " algorithm, \nYou can find the decryption in : " + destination(this.decryption.getOutputFile()) );
+            this.decryption.fileDecryption(alg);
+        }
+    }
+
+    /**
+     * Encrypts a file under every key of -keys, reading it once.
+     *
+     * @param in :the file to encrypt
+     * @param out :the output file, followed by each key to name the file of that key
+     * @param alg :the name of a registered algorithm
+     * @throws IOException if there is an error reading or writing the files
+     */
+    private void fanOut(String in, String out, String alg) throws IOException {
+        this.encryption = new Encryption(new File(in), new File(out), this.keys.get(0));
+        this.encryption.setThreads(this.threads);
+        this.encryption.setCharset(this.charset);
+        List<File> outputs = this.encryption.fileEncryption(alg, this.keys);
+        System.out.println("The file was encrypted successfully with " + alg + " algorithm under " + this.keys.size()
+                + " keys, \nYou can find the encryptions in : " + outputs.stream().map(File::getName).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * Encrypts a file as it grows, a log for instance, until the program is stopped.
+     * Nothing but the encryption is printed when there is no output file.
+     *
+     * @param in :the file to follow
+     * @param out :the file to write the encryption to, the console if it is empty
+     * @param alg :the name of a registered algorithm
+     * @param key :the key to use
+     * @throws IOException if there is an error reading or writing the files
+     */
+    private void follow(String in, String out, String alg, String key) throws IOException {
         this.encryption = new Encryption(new File(in), new File(out), key);
-        System.out.print("The file was encrypted successfully with unicode algorithm, \nYou can find the encryption in : " + this.encryption.getOutputFile().getName() );
-        this.encryption.unicodeFileEncryption();
+        this.encryption.setCharset(this.charset);
+        if (!out.equals("")) {
+            System.out.println("Following " + in + " with " + alg + " algorithm until the program is stopped, \nYou can find the encryption in : " + destination(this.encryption.getOutputFile()));
+        }
+        this.encryption.followFile(alg);
     }
 
     /**
-     * Decrypts the given data using the unicode decryption method with the specified key.
+     * Decrypts the -range of a file, a part of a huge log for instance, without decrypting the rest of it.
      *
-     * @param data the data to be decrypted
-     * @param key the key to be used for decryption
+     * @param in :the file to decrypt a part of
+     * @param out :the file to write the decryption to, the console if it is empty
+     * @param alg :the name of a registered algorithm
+     * @param key :the key to use
+     * @throws IOException if there is an error reading or writing the files
      */
-    private void unicodeDec(String data, int key) {
-        this.decryption = new Decryption(data,key);
-        System.out.print("The data was decrypted successfully with unicode algorithm, \nHere is the decryption : " );
-        this.decryption.unicodeTextDecryption();
+    private void range(String in, String out, String alg, String key) throws IOException {
+        String[] range = this.range.split(":");
+        long offset;
+        int length;
+        try {
+            if (range.length != 2) {
+                throw new NumberFormatException();
+            }
+            offset = Long.parseLong(range[0].trim());
+            length = Integer.parseInt(range[1].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The range " + this.range + " is not an offset and a length such as 1024:4096.");
+        }
+        this.decryption = new Decryption(new File(in), new File(out), key);
+        this.decryption.setThreads(this.threads);
+        this.decryption.setCharset(this.charset);
+        this.decryption.rangeDecryption(alg, offset, length);
     }
 
     /**
-     * Encrypts the given data using the unicode encryption method with the specified key.
+     * Encrypts or decrypts the given data and prints the result.
      *
-     * @param data the data to be decrypted
-     * @param key the key to be used for decryption
+     * @param data the data to be encrypted or decrypted
+     * @param alg the name of a registered algorithm
+     * @param key the key to be used
+     * @param encrypt {@code true} to encrypt, {@code false} to decrypt
+     * @throws IOException if the daemon cannot be reached
      */
-    private void unicodeEnc(String data, int key) {
-        this.encryption = new Encryption(data,key);
-        System.out.print("The data was encrypted successfully with unicode algorithm, \nHere is the encryption : " );
-        this.encryption.unicodeTextEncryption();
+    private void text(String data, String alg, String key, boolean encrypt) throws IOException {
+        String result = transform(data, alg, key, encrypt);
+        if (encrypt) {
+            System.out.print("The data was encrypted successfully with " + alg + " algorithm, \nHere is the encryption : " );
+        } else {
+            System.out.print("The data was decrypted successfully with " + alg + " algorithm, \nHere is the decryption : " );
+        }
+        System.out.println(result);
     }
 
     /**
@@ -192,11 +558,25 @@ public class Menu {
      */
     public void printMenu(){
         System.out.println("For more information on a specific command, type help command-name.");
-        System.out.println("-mode \t takes argument enc for encryption and dec for decryption.");
-        System.out.println("-key \t takes an integer argument and is used to encrypt/decrypt message/file.");
+        System.out.println("-mode \t takes argument enc for encryption, dec for decryption and crack to find the key of unicode or shift and decrypt.");
+        System.out.println("-key \t takes an integer argument for unicode and shift, taken modulo 26, a word for vigenere and the path of a text file for runningkey, and is used to encrypt/decrypt message/file.");
         System.out.println("-data \t takes in a text to be encrypt/decrypt as argument pls used for \"\" for text with spaces.");
-        System.out.println("-in \t takes as argument the relative/absolute path to the file you wish to encrypt/decrypt.");
-        System.out.println("-out \t takes as argument the file you want to store your encrypted data (it also creates a new file.");
-        System.out.println("-alg \t takes as argument unicode or shift, which are the algorithm used for encryption.");
+        System.out.println("-in \t takes as argument the relative/absolute path to the file you wish to encrypt/decrypt, - for the standard input.");
+        System.out.println("-out \t takes as argument the file you want to store your encrypted data (it also creates a new file, - for the standard output.");
+        System.out.println("-alg \t takes as argument " + String.join(", ", Algorithms.names()) + ", which are the algorithm used for encryption.");
+        System.out.println("-inplace \t takes no argument, the file given to -in is encrypted/decrypted in place.");
+        System.out.println("-batch \t takes as argument a directory, or a file listing one file per line, to encrypt/decrypt into the -out directory.");
+        System.out.println("-serve \t takes as argument a port or the path of a Unix domain socket, and serves requests on it as a daemon.");
+        System.out.println("-connect \t takes as argument the port or the socket of a daemon, the data is encrypted/decrypted by it.");
+        System.out.println("-threads \t takes an integer argument, the number of threads used to encrypt/decrypt a file.");
+        System.out.println("-charset \t takes as argument the charset of the files, UTF-8 or ISO-8859-1 for instance, the platform charset by default.");
+        System.out.println("-container \t takes no argument, files are encrypted into containers holding checked chunks, decrypted with any arguments.");
+        System.out.println("-range \t takes as argument offset:length, only these bytes of the -in file are decrypted.");
+        System.out.println("-incremental \t takes no argument, only what was appended to the -in file since the last run is encrypted and appended to the -out file.");
+        System.out.println("-follow \t takes no argument, the -in file is encrypted as it grows, rotations included, until the program is stopped.");
+        System.out.println("-compress \t takes no argument, the encryption of files is compressed in gzip format, and the files decrypted are decompressed, as are the ones starting with a valid gzip header without it.");
+        System.out.println("-keys \t takes as argument keys separated by commas, the -in file is read once and encrypted under each key into -out followed by the key.");
+        System.out.println("-async \t takes an integer argument, files are read and written with asynchronous I/O, that many chunks at a time.");
+        System.out.println("--stats \t takes no argument, prints what was read, transformed and how long it took when the program exits.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,448 @@
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Metrics} class counts what the program does, once {@link #enable()} has been called by
+ * {@code --stats}:
+ *  - bytes read and written, and how many bytes per second of operation that makes
+ *  - characters changed by the algorithm and characters it left as they were
+ *  - the latency of every operation, text, file, stream or daemon request, in a {@link LatencyHistogram}
+ *  - the time spent waiting on reads and writes, against the processor time of the threads doing the work
+ *  - the bytes allocated by those threads and the direct buffers held by the JVM
+ *  - the buffers taken from the {@link BufferPool}, and the ones never given back
+ *
+ * Counters are {@link LongAdder}s, so threads counting at the same time do not contend. When the metrics are
+ * disabled every call returns right after checking a static flag, and {@link #time(String)} returns a shared
+ * timer that does nothing, so the instrumented code costs next to nothing.
+ * The counters are also exposed over JMX by {@link MetricsMBean}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class Metrics implements MetricsMBean {
+    /**
+     * The name the metrics are registered under in the platform MBean server.
+     */
+    public static final String NAME = "EncryptionDecryption:type=Metrics";
+
+    /**
+     * Set once, before any work is started, and only read afterwards.
+     */
+    private static boolean enabled;
+
+    private static final LongAdder BYTES_READ = new LongAdder();
+    private static final LongAdder BYTES_WRITTEN = new LongAdder();
+    private static final LongAdder CHARS_TRANSFORMED = new LongAdder();
+    private static final LongAdder CHARS_PASSED = new LongAdder();
+    private static final LongAdder IO_WAIT = new LongAdder();
+    private static final LongAdder CPU = new LongAdder();
+    private static final LongAdder ALLOCATED = new LongAdder();
+    private static final LongAdder OPERATION_TIME = new LongAdder();
+    private static final Map<String, LatencyHistogram> LATENCIES = new ConcurrentSkipListMap<>();
+
+    /**
+     * The timer returned while the metrics are disabled.
+     */
+    private static final Timer DISABLED = new Timer(null, 0, 0, 0);
+
+    private Metrics() {
+    }
+
+    /**
+     * Starts counting and registers the metrics with the platform MBean server.
+     * Must be called before any work is started.
+     */
+    public static synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        enabled = true;
+        BufferPool.setLeakDetection(true);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), new ObjectName(NAME));
+        } catch (JMException e) {
+            System.err.println("The metrics could not be registered: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code true} if {@link #enable()} was called
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the time a read or a write starts at, to give to {@link #read(long, long)} or
+     * {@link #written(long, long)}, 0 when the metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts a read that started at {@code start}.
+     *
+     * @param start the value of {@link #start()} before the read
+     * @param bytes the number of bytes read
+     */
+    public static void read(long start, long bytes) {
+        if (start != 0) {
+            IO_WAIT.add(System.nanoTime() - start);
+            BYTES_READ.add(Math.max(0, bytes));
+        }
+    }
+
+    /**
+     * Counts a write that started at {@code start}.
+     *
+     * @param start the value of {@link #start()} before the write
+     * @param bytes the number of bytes written
+     */
+    public static void written(long start, long bytes) {
+        if (start != 0) {
+            IO_WAIT.add(System.nanoTime() - start);
+            BYTES_WRITTEN.add(bytes);
+        }
+    }
+
+    /**
+     * Counts bytes transformed without a read or a write, in a mapped file for instance.
+     *
+     * @param bytes the number of bytes read and written
+     */
+    public static void mapped(long bytes) {
+        if (enabled) {
+            BYTES_READ.add(bytes);
+            BYTES_WRITTEN.add(bytes);
+        }
+    }
+
+    /**
+     * Counts characters, only called when the metrics are enabled since telling them apart takes a pass of its own.
+     *
+     * @param transformed   the number of characters the algorithm changed
+     * @param passedThrough the number of characters the algorithm left as they were
+     */
+    public static void chars(long transformed, long passedThrough) {
+        CHARS_TRANSFORMED.add(transformed);
+        CHARS_PASSED.add(passedThrough);
+    }
+
+    /**
+     * Wraps a channel so that its writes are counted, returns it as it is when the metrics are disabled.
+     *
+     * @param channel the channel to count the writes of
+     * @return the channel to write to
+     */
+    public static WritableByteChannel counting(WritableByteChannel channel) {
+        if (!enabled) {
+            return channel;
+        }
+        return new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                long start = start();
+                int count = channel.write(src);
+                written(start, count);
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    /**
+     * Starts timing an operation, to be closed when the operation is done. The processor time and the bytes
+     * allocated by the current thread in between are counted as well.
+     *
+     * @param operation the name of the operation, its latencies are kept apart from the other operations
+     * @return the timer of the operation
+     */
+    public static Timer time(String operation) {
+        if (!enabled) {
+            return DISABLED;
+        }
+        return Timer.start(LATENCIES.computeIfAbsent(operation, name -> new LatencyHistogram()));
+    }
+
+    /**
+     * Times an operation that gives a result, the way {@link #time(String)} does.
+     *
+     * @param operation the name of the operation, its latencies are kept apart from the other operations
+     * @param body      the operation to run
+     * @param <T>       the result of the operation
+     * @param <E>       the exception the operation may throw
+     * @return the result of the operation
+     * @throws E if the operation throws it
+     */
+    public static <T, E extends Exception> T timed(String operation, Operation<T, E> body) throws E {
+        Timer timer = time(operation);
+        try {
+            return body.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Times an operation that gives no result, the way {@link #time(String)} does.
+     *
+     * @param operation the name of the operation, its latencies are kept apart from the other operations
+     * @param body      the operation to run
+     * @param <E>       the exception the operation may throw
+     * @throws E if the operation throws it
+     */
+    public static <E extends Exception> void timed(String operation, Task<E> body) throws E {
+        Timer timer = time(operation);
+        try {
+            body.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Starts counting the processor time and the bytes allocated by a thread working for an operation timed on
+     * another thread, a stage of a pipeline for instance.
+     *
+     * @return the timer of the work, to be closed when the work is done
+     */
+    public static Timer work() {
+        return enabled ? Timer.start(null) : DISABLED;
+    }
+
+    /**
+     * Wraps a task run by another thread so that its processor time and allocations are counted by {@link #work()}.
+     *
+     * @param task the task to count
+     * @param <T>  the result of the task
+     * @return the task to submit, {@code task} itself when the metrics are disabled
+     */
+    public static <T> Callable<T> counted(Callable<T> task) {
+        if (!enabled) {
+            return task;
+        }
+        return () -> {
+            Timer timer = work();
+            try {
+                return task.call();
+            } finally {
+                timer.close();
+            }
+        };
+    }
+
+    /**
+     * An operation timed by {@link #timed(String, Operation)}.
+     *
+     * @param <T> the result of the operation
+     * @param <E> the exception the operation may throw
+     */
+    @FunctionalInterface
+    public interface Operation<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * An operation without a result timed by {@link #timed(String, Task)}.
+     *
+     * @param <E> the exception the operation may throw
+     */
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    /**
+     * Times an operation or a part of it on the current thread.
+     */
+    public static final class Timer implements AutoCloseable {
+        private final LatencyHistogram histogram;
+        private final long start;
+        private final long cpu;
+        private final long allocated;
+
+        private Timer(LatencyHistogram histogram, long start, long cpu, long allocated) {
+            this.histogram = histogram;
+            this.start = start;
+            this.cpu = cpu;
+            this.allocated = allocated;
+        }
+
+        private static Timer start(LatencyHistogram histogram) {
+            return new Timer(histogram, System.nanoTime(), Threads.cpu(), Threads.allocated());
+        }
+
+        /**
+         * Counts the time since the timer was started.
+         */
+        @Override
+        public void close() {
+            if (this.start == 0) {
+                return;
+            }
+            CPU.add(Threads.cpu() - this.cpu);
+            ALLOCATED.add(Threads.allocated() - this.allocated);
+            if (this.histogram != null) {
+                long elapsed = System.nanoTime() - this.start;
+                this.histogram.record(elapsed);
+                OPERATION_TIME.add(elapsed);
+            }
+        }
+    }
+
+    /**
+     * The per thread counters of the JVM, only loaded once the metrics are enabled.
+     */
+    private static final class Threads {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final boolean CPU = THREADS.isCurrentThreadCpuTimeSupported();
+        private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+                THREADS instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()
+                        ? bean : null;
+
+        static long cpu() {
+            return CPU ? THREADS.getCurrentThreadCpuTime() : 0;
+        }
+
+        static long allocated() {
+            return ALLOCATIONS != null ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : 0;
+        }
+    }
+
+    @Override
+    public long getBytesRead() {
+        return BYTES_READ.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return BYTES_WRITTEN.sum();
+    }
+
+    @Override
+    public double getBytesReadPerSecond() {
+        long time = OPERATION_TIME.sum();
+        return time == 0 ? 0 : BYTES_READ.sum() * 1e9 / time;
+    }
+
+    @Override
+    public long getCharsTransformed() {
+        return CHARS_TRANSFORMED.sum();
+    }
+
+    @Override
+    public long getCharsPassedThrough() {
+        return CHARS_PASSED.sum();
+    }
+
+    @Override
+    public long getIoWaitNanos() {
+        return IO_WAIT.sum();
+    }
+
+    @Override
+    public long getCpuNanos() {
+        return CPU.sum();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return ALLOCATED.sum();
+    }
+
+    @Override
+    public long getDirectBufferBytes() {
+        return direct().getMemoryUsed();
+    }
+
+    @Override
+    public String[] getOperations() {
+        return LATENCIES.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long latencyNanos(String operation, double percentile) {
+        LatencyHistogram histogram = LATENCIES.get(operation);
+        return histogram == null ? 0 : histogram.getPercentile(percentile);
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> latency : LATENCIES.entrySet()) {
+            summary.append(String.format("%-8s %s%n", latency.getKey(), latency.getValue()));
+        }
+        summary.append(String.format("bytes    %d read, %d written, %.1f MB/s%n",
+                getBytesRead(), getBytesWritten(), getBytesReadPerSecond() / 1e6));
+        summary.append(String.format("chars    %d transformed, %d passed through%n",
+                getCharsTransformed(), getCharsPassedThrough()));
+        summary.append(String.format("time     %s processor, %s waiting on I/O%n",
+                LatencyHistogram.format(getCpuNanos()), LatencyHistogram.format(getIoWaitNanos())));
+        BufferPoolMXBean direct = direct();
+        summary.append(String.format("memory   %d bytes allocated, %d direct buffers of %d bytes%n",
+                getAllocatedBytes(), direct.getCount(), direct.getMemoryUsed()));
+        summary.append(String.format("pipeline %s%n", PipelinedFileEngine.stats()));
+        summary.append(String.format("buffers  %s%n", BufferPool.stats()));
+        for (Throwable leak : BufferPool.leaks()) {
+            // the first frame out of the pool is where the buffer was acquired
+            StackTraceElement site = Arrays.stream(leak.getStackTrace())
+                    .filter(frame -> !frame.getClassName().equals(BufferPool.class.getName()))
+                    .findFirst().orElse(null);
+            summary.append(String.format("leak     %s at %s%n", leak.getMessage(), site));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * @return the pool of the direct buffers of the JVM
+     */
+    private static BufferPoolMXBean direct() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool;
+            }
+        }
+        throw new IllegalStateException("No direct buffer pool");
+    }
+
+    /**
+     * @return the summary of the metrics
+     */
+    public static String summary() {
+        return new Metrics().getSummary();
+    }
+}
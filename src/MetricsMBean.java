@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The management interface of {@link Metrics}, registered under {@link Metrics#NAME} so that a running program,
+ * the daemon especially, can be watched with JConsole or any other JMX client.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public interface MetricsMBean {
+    /**
+     * @return the number of bytes read from files and streams
+     */
+    long getBytesRead();
+
+    /**
+     * @return the number of bytes written to files and streams
+     */
+    long getBytesWritten();
+
+    /**
+     * @return the number of bytes read per second spent in an operation
+     */
+    double getBytesReadPerSecond();
+
+    /**
+     * @return the number of characters changed by the algorithms
+     */
+    long getCharsTransformed();
+
+    /**
+     * @return the number of characters the algorithms left as they were
+     */
+    long getCharsPassedThrough();
+
+    /**
+     * @return the time spent waiting on reads and writes, in nanoseconds
+     */
+    long getIoWaitNanos();
+
+    /**
+     * @return the processor time used by the operations, in nanoseconds
+     */
+    long getCpuNanos();
+
+    /**
+     * @return the number of bytes allocated by the operations
+     */
+    long getAllocatedBytes();
+
+    /**
+     * @return the number of bytes used by the direct buffers of the JVM
+     */
+    long getDirectBufferBytes();
+
+    /**
+     * @return the names of the operations timed so far
+     */
+    String[] getOperations();
+
+    /**
+     * @param operation  the name of an operation, "text", "file", "stream" or "request"
+     * @param percentile the percentile, between 0 and 100
+     * @return the duration under which {@code percentile} percent of the operations fall, in nanoseconds
+     */
+    long latencyNanos(String operation, double percentile);
+
+    /**
+     * @return everything above in a readable form
+     */
+    String getSummary();
+}
@@ -0,0 +1,249 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code ParallelFileEngine} class encrypts or decrypts a file on several threads.
+ *
+ * Both algorithms transform every character on its own, so the input can be cut into chunks that are
+ * transformed independently on a {@link ForkJoinPool}. Each transformed chunk is then written at its own
+ * offset in the output, which ends up exactly the same as the one written by the {@link ChunkedFileEngine}.
+ *
+ * The input is processed in waves of a few chunks per thread, so the memory used stays bounded whatever
+ * the size of the file. Chunks can only be cut safely when the charset is a single-byte one or UTF-8,
+ * where a character boundary can be found by looking at the bytes alone; other charsets are streamed
+ * on a single thread.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class ParallelFileEngine {
+    /**
+     * The size in bytes of the chunks handed to each thread.
+     */
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * The number of chunks per thread read in each wave.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelFileEngine() {
+    }
+
+    /**
+     * A piece of the input: where it starts, its bytes and, once transformed, where its result goes.
+     */
+    private static final class Chunk {
+        private final long position;
+        private final int length;
+        private ByteBuffer result;
+        private long outputPosition;
+
+        private Chunk(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Transforms the input file into the output file using the given number of threads.
+     *
+     * @param inputFile  the file to read
+     * @param outputFile the file to write, it is created or truncated
+     * @param table      the substitution applied to every character
+     * @param threads    the number of threads to use
+     * @throws IOException if there is an error reading or writing the files
+     */
+    public static void transform(File inputFile, File outputFile, CipherTable table, int threads) throws IOException {
+        if (threads <= 1 || !(table.isSingleByte() || table.getCharset().equals(StandardCharsets.UTF_8))) {
+            ChunkedFileEngine.transform(inputFile, outputFile, table);
+            return;
+        }
+        ChunkedFileEngine.run(inputFile, outputFile, (input, output) -> parallel(input, output, table, threads));
+    }
+
+    /**
+     * Cuts the input into waves of chunks, transforms each wave in parallel and writes it.
+     */
+    private static void parallel(Path input, Path output, CipherTable table, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = in.size();
+            long position = 0;
+            long outputPosition = 0;
+
+            while (position < size) {
+                // cut the next wave, making sure no chunk ends in the middle of a character
+                List<Chunk> wave = new ArrayList<>();
+                while (wave.size() < threads * CHUNKS_PER_THREAD && position < size) {
+                    long end = Math.min(size, position + CHUNK_SIZE);
+                    if (end < size && !table.isSingleByte()) {
+                        end = characterStart(in, position, end);
+                    }
+                    wave.add(new Chunk(position, (int) (end - position)));
+                    position = end;
+                }
+
+                List<Callable<Void>> transforms = new ArrayList<>(wave.size());
+                for (Chunk chunk : wave) {
+                    transforms.add(Metrics.counted(() -> {
+                        chunk.result = transformChunk(in, chunk, table);
+                        return null;
+                    }));
+                }
+                invokeAll(pool, transforms);
+
+                // a chunk may be longer or shorter once transformed, so its offset is only known now
+                List<Callable<Void>> writes = new ArrayList<>(wave.size());
+                for (Chunk chunk : wave) {
+                    chunk.outputPosition = outputPosition;
+                    outputPosition += chunk.result.remaining();
+                    writes.add(Metrics.counted(() -> {
+                        writeFully(out, chunk.result, chunk.outputPosition);
+                        return null;
+                    }));
+                }
+                invokeAll(pool, writes);
+
+                for (Chunk chunk : wave) {
+                    BufferPool.release(chunk.result);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Reads a chunk and transforms it.
+     *
+     * @return the transformed bytes of the chunk, a buffer of the {@link BufferPool} given back once the wave is written
+     */
+    private static ByteBuffer transformChunk(FileChannel in, Chunk chunk, CipherTable table) throws IOException {
+        ByteBuffer buffer = BufferPool.acquire(chunk.length);
+        readFully(in, buffer, chunk.position);
+        buffer.flip();
+        ByteBuffer result = transform(buffer, chunk.position, table);
+        if (result != buffer) {
+            BufferPool.release(buffer);
+        }
+        return result;
+    }
+
+    /**
+     * Transforms a chunk that ends on a character boundary, in a single-byte charset or UTF-8.
+     *
+     * @param buffer   the bytes of the chunk, from its position to its limit, transformed in place when possible
+     * @param position the position of the chunk in the text
+     * @param table    the substitution to apply
+     * @return the transformed bytes of the chunk: {@code buffer} itself in a single-byte charset, otherwise a buffer
+     * of the {@link BufferPool} the caller releases once it is written
+     */
+    static ByteBuffer transform(ByteBuffer buffer, long position, CipherTable table) {
+        if (table.isSingleByte()) {
+            table.apply(buffer, buffer.position(), buffer.limit(), position);
+            return buffer;
+        }
+
+        // the chunk ends on a character boundary, so it is a complete input on its own
+        ByteBuffer result = BufferPool.acquire(buffer.remaining() + Utf8Transcoder.MIN_CAPACITY);
+        while (Utf8Transcoder.transform(buffer, result, table, true).isOverflow()) {
+            // characters can get longer once transformed
+            ByteBuffer bigger = BufferPool.acquire(2 * result.limit());
+            bigger.put(result.flip());
+            BufferPool.release(result);
+            result = bigger;
+        }
+        return result.flip();
+    }
+
+    /**
+     * Moves a chunk end back to the first byte of a UTF-8 character it cuts, as found by {@link Utf8Transcoder#complete}.
+     *
+     * @return the position of the first byte of the character cut by {@code end}, {@code end} if it cuts none
+     */
+    private static long characterStart(FileChannel in, long start, long end) throws IOException {
+        // a character is at most four bytes long, the chunk keeps at least one byte
+        long from = Math.max(start + 1, end - 4);
+        ByteBuffer probe = ByteBuffer.allocate((int) (end - from));
+        readFully(in, probe, from);
+        return from + Utf8Transcoder.complete(probe.flip());
+    }
+
+    /**
+     * Runs the tasks on the pool and waits for all of them, rethrowing the first I/O error.
+     */
+    private static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) throws IOException {
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while transforming the file", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Fills the buffer from the given position of the channel, or up to the end of the channel.
+     */
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            int read = in.read(buffer, position);
+            Metrics.read(start, read);
+            if (read == -1) {
+                break;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Writes the whole buffer at the given position of the channel.
+     */
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            long start = Metrics.start();
+            int written = out.write(buffer, position);
+            Metrics.written(start, written);
+            position += written;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code PipelinedFileEngine} class encrypts or decrypts a file in three stages running at the same time:
+ *  - the reader fills buffers from the input file
+ *  - the transformer applies the table to them
+ *  - the writer drains them into the output file
+ * so the disk reads, the work of the processor and the disk writes overlap instead of waiting for each other.
+ *
+ * The stages hand each other direct buffers through queues. The buffers come from the {@link BufferPool} and are recycled:
+ * a stage that runs ahead of the others waits for a buffer to come back, which bounds the memory used to
+ * {@link #DEPTH} buffers per direction whatever the size of the file. The time each stage spends waiting is
+ * added up in {@link #stats()}, a stage stalling often shows there as the others waiting on it.
+ *
+ * Single-byte charsets are transformed in place, the buffer read is the buffer written. UTF-8 is transcoded into
+ * separate buffers, the few bytes of a character cut at the end of a buffer are moved in front of the next one,
+ * in the room the reader leaves there. Other charsets are streamed by the {@link ChunkedFileEngine}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class PipelinedFileEngine {
+    /**
+     * The size in bytes of the buffers handed from one stage to the next.
+     */
+    public static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * The number of buffers in each direction, i.e. how far a stage may run ahead of the next one.
+     */
+    public static final int DEPTH = 4;
+
+    /**
+     * The room left at the start of every buffer read, for the end of a character cut by the previous buffer.
+     */
+    private static final int HEADROOM = Utf8Transcoder.MIN_CAPACITY;
+
+    /**
+     * Put in the queues after the last buffer.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private static final ExecutorService STAGES = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "cipher-pipeline-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final AtomicLong FILES = new AtomicLong();
+    private static final AtomicLong BYTES_READ = new AtomicLong();
+    private static final AtomicLong BYTES_WRITTEN = new AtomicLong();
+    private static final AtomicLong READ_STALL = new AtomicLong();
+    private static final AtomicLong TRANSFORM_STALL = new AtomicLong();
+    private static final AtomicLong WRITE_STALL = new AtomicLong();
+
+    private PipelinedFileEngine() {
+    }
+
+    /**
+     * What the pipelines did since the program started.
+     *
+     * @param files                   the number of files transformed
+     * @param bytesRead               the number of bytes read
+     * @param bytesWritten            the number of bytes written
+     * @param readStallNanos          the time the readers waited for a buffer to be written
+     * @param transformStallNanos     the time the transformers waited for a buffer to be read or written
+     * @param writeStallNanos         the time the writers waited for a buffer to be transformed
+     */
+    public record Stats(long files, long bytesRead, long bytesWritten,
+                        long readStallNanos, long transformStallNanos, long writeStallNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes read, %d bytes written, stalls: read %.3f s, transform %.3f s, write %.3f s",
+                    this.files, this.bytesRead, this.bytesWritten,
+                    this.readStallNanos / 1e9, this.transformStallNanos / 1e9, this.writeStallNanos / 1e9);
+        }
+    }
+
+    /**
+     * @return what the pipelines did since the program started
+     */
+    public static Stats stats() {
+        return new Stats(FILES.get(), BYTES_READ.get(), BYTES_WRITTEN.get(),
+                READ_STALL.get(), TRANSFORM_STALL.get(), WRITE_STALL.get());
+    }
+
+    /**
+     * @param table the table to apply
+     * @return {@code true} if files in the charset of the table can go through the pipeline
+     */
+    public static boolean supports(CipherTable table) {
+        return table.isSingleByte() || table.getCharset().equals(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Transforms the input file into the output file. A file that fits in a single buffer gains nothing from
+     * the stages and is streamed by the {@link ChunkedFileEngine}, like a charset that is not supported.
+     *
+     * @param inputFile  the file to read
+     * @param outputFile the file to write, it is created or truncated
+     * @param table      the substitution applied to every character
+     * @throws IOException if there is an error reading or writing the files
+     */
+    public static void transform(File inputFile, File outputFile, CipherTable table) throws IOException {
+        if (!supports(table) || Files.size(inputFile.toPath()) <= BUFFER_SIZE) {
+            ChunkedFileEngine.transform(inputFile, outputFile, table);
+            return;
+        }
+        ChunkedFileEngine.run(inputFile, outputFile, (input, output) -> pipeline(input, output, table));
+    }
+
+    /**
+     * Runs the three stages and waits for them, cancelling the others as soon as one of them fails.
+     */
+    private static void pipeline(Path input, Path output, CipherTable table) throws IOException {
+        boolean inPlace = table.isSingleByte();
+        // every buffer is in exactly one queue or stage, so putting into a queue never blocks
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(DEPTH + 1);
+        BlockingQueue<ByteBuffer> read = new ArrayBlockingQueue<>(DEPTH + 1);
+        BlockingQueue<ByteBuffer> spare = inPlace ? free : new ArrayBlockingQueue<>(DEPTH + 1);
+        BlockingQueue<ByteBuffer> transformed = new ArrayBlockingQueue<>(2 * DEPTH + 1);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < DEPTH; i++) {
+            buffers.add(BufferPool.acquire(BUFFER_SIZE));
+            free.add(buffers.get(buffers.size() - 1));
+            if (!inPlace) {
+                buffers.add(BufferPool.acquire(BUFFER_SIZE));
+                spare.add(buffers.get(buffers.size() - 1));
+            }
+        }
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            CompletionService<Void> stages = new ExecutorCompletionService<>(STAGES);
+            Future<?>[] futures = {
+                    stages.submit(Metrics.counted(() -> read(in, free, read, inPlace ? 0 : HEADROOM))),
+                    stages.submit(Metrics.counted(inPlace ? () -> transformInPlace(table, read, transformed)
+                            : () -> transcode(table, read, free, spare, transformed))),
+                    stages.submit(Metrics.counted(() -> write(out, transformed, spare)))
+            };
+            try {
+                for (int i = 0; i < futures.length; i++) {
+                    stages.take().get();
+                }
+                FILES.incrementAndGet();
+                // a failed stage may still hold a buffer, so they only go back to the pool when all succeeded
+                buffers.forEach(BufferPool::release);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while transforming the file", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * The reader: fills the free buffers from the input, leaving {@code headroom} bytes at their start.
+     */
+    private static Void read(FileChannel in, BlockingQueue<ByteBuffer> free, BlockingQueue<ByteBuffer> read,
+                             int headroom) throws IOException, InterruptedException {
+        while (true) {
+            ByteBuffer buffer = take(free, READ_STALL);
+            buffer.clear().position(headroom);
+            int count = 0;
+            while (buffer.hasRemaining() && (count = read(in, buffer)) != -1) {
+                BYTES_READ.addAndGet(count);
+            }
+            buffer.flip().position(headroom);
+            if (buffer.hasRemaining()) {
+                read.add(buffer);
+            } else {
+                free.add(buffer);
+            }
+            if (count == -1) {
+                read.add(END);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The transformer of a single-byte charset: transforms the buffers in place and hands them to the writer.
+     */
+    private static Void transformInPlace(CipherTable table, BlockingQueue<ByteBuffer> read,
+                                         BlockingQueue<ByteBuffer> transformed) throws InterruptedException {
+        long position = 0;
+        while (true) {
+            ByteBuffer buffer = take(read, TRANSFORM_STALL);
+            if (buffer != END) {
+                table.apply(buffer, buffer.position(), buffer.limit(), position);
+                position += buffer.remaining();
+            }
+            transformed.add(buffer);
+            if (buffer == END) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The transformer of UTF-8: transcodes the buffers read into spare buffers, hands the spare buffers to the
+     * writer once full and gives the buffers read back to the reader.
+     */
+    private static Void transcode(CipherTable table, BlockingQueue<ByteBuffer> read, BlockingQueue<ByteBuffer> free,
+                                  BlockingQueue<ByteBuffer> spare, BlockingQueue<ByteBuffer> transformed)
+            throws InterruptedException {
+        ByteBuffer output = take(spare, TRANSFORM_STALL).clear();
+        ByteBuffer leftover = null;
+        while (true) {
+            ByteBuffer buffer = take(read, TRANSFORM_STALL);
+            boolean end = buffer == END;
+            if (end) {
+                if (leftover == null) {
+                    break;
+                }
+                buffer = leftover;
+            } else if (leftover != null) {
+                // the character cut at the end of the previous buffer goes in front of this one
+                int length = leftover.remaining();
+                buffer.position(buffer.position() - length);
+                buffer.put(buffer.position(), leftover, leftover.position(), length);
+                free.add(leftover.clear());
+            }
+            leftover = null;
+
+            CoderResult result;
+            while ((result = Utf8Transcoder.transform(buffer, output, table, end)).isOverflow()
+                    || output.remaining() < Utf8Transcoder.MIN_CAPACITY) {
+                transformed.add(output.flip());
+                output = take(spare, TRANSFORM_STALL).clear();
+                if (result.isUnderflow()) {
+                    break;
+                }
+            }
+            if (buffer.hasRemaining() && !end) {
+                leftover = buffer;
+            } else {
+                free.add(buffer.clear());
+            }
+            if (end) {
+                break;
+            }
+        }
+        transformed.add(output.flip());
+        transformed.add(END);
+        return null;
+    }
+
+    /**
+     * The writer: drains the transformed buffers into the output and gives them back.
+     */
+    private static Void write(FileChannel out, BlockingQueue<ByteBuffer> transformed, BlockingQueue<ByteBuffer> spare)
+            throws IOException, InterruptedException {
+        while (true) {
+            ByteBuffer buffer = take(transformed, WRITE_STALL);
+            if (buffer == END) {
+                return null;
+            }
+            while (buffer.hasRemaining()) {
+                long start = Metrics.start();
+                int count = out.write(buffer);
+                Metrics.written(start, count);
+                BYTES_WRITTEN.addAndGet(count);
+            }
+            spare.add(buffer.clear());
+        }
+    }
+
+    /**
+     * Reads from {@code in} into {@code buffer}.
+     *
+     * @return the number of bytes read, or -1 at the end of the file
+     */
+    private static int read(FileChannel in, ByteBuffer buffer) throws IOException {
+        long start = Metrics.start();
+        int count = in.read(buffer);
+        Metrics.read(start, count);
+        return count;
+    }
+
+    /**
+     * Takes the next buffer of a queue, adding the time spent waiting for it to {@code stall}.
+     */
+    private static ByteBuffer take(BlockingQueue<ByteBuffer> queue, AtomicLong stall) throws InterruptedException {
+        ByteBuffer buffer = queue.poll();
+        if (buffer == null) {
+            long start = System.nanoTime();
+            buffer = queue.take();
+            stall.addAndGet(System.nanoTime() - start);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,353 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.CoderResult;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code Utf8Transcoder} class transforms UTF-8 bytes without going through a {@code CharsetDecoder},
+ * a {@code CharBuffer} and a {@code CharsetEncoder}.
+ *
+ * ASCII bytes, by far the most common ones, are transformed through the byte table of the {@link CipherTable}.
+ * Other characters are decoded, transformed and encoded on the spot, following the same rules as the JDK UTF-8
+ * decoder and encoder, malformed input and lone surrogates included, so the result is exactly the one of a
+ * {@link ChunkTranscoder} for UTF-8.
+ *
+ * The transcoder keeps no state: a character that is not complete at the end of the source, or whose result
+ * does not fit in the destination, is left in the source for the next call.
+ * A character can take up to seven bytes once transformed (a lone surrogate turned into '?' followed by a
+ * surrogate pair turned into two three-byte characters), so the destination should always have room for
+ * {@link #MIN_CAPACITY} bytes to be sure a call makes progress.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class Utf8Transcoder {
+    /**
+     * The room a destination buffer should have for every call to make progress.
+     */
+    public static final int MIN_CAPACITY = 16;
+
+    /**
+     * The character the decoder puts in place of malformed input.
+     */
+    private static final char MALFORMED = '\uFFFD';
+
+    /**
+     * The byte the encoder puts in place of a lone surrogate.
+     */
+    private static final byte UNMAPPABLE = '?';
+
+    /**
+     * Returned by {@link #decode} when the source ends in the middle of a character.
+     */
+    private static final long UNDERFLOW = -1;
+
+    private Utf8Transcoder() {
+    }
+
+    /**
+     * Transforms the bytes of {@code src} into {@code dst}, advancing both positions.
+     *
+     * @param src        the UTF-8 bytes to transform
+     * @param dst        the buffer the transformed UTF-8 bytes are written to
+     * @param table      the substitution to apply
+     * @param endOfInput {@code true} if {@code src} holds the last bytes of the input
+     * @return {@link CoderResult#OVERFLOW} if {@code dst} is full, {@link CoderResult#UNDERFLOW} if more input is needed
+     */
+    public static CoderResult transform(ByteBuffer src, ByteBuffer dst, CipherTable table, boolean endOfInput) {
+        int start = src.position();
+        int sp = start;
+        int sl = src.limit();
+        int dp = dst.position();
+        int dl = dst.limit();
+        boolean ascii = table.isAsciiPreserving();
+
+        // positions up to which the result is complete, a high surrogate may still wait for its low half after them
+        int committedSp = sp;
+        int committedDp = dp;
+        char pending = 0;
+        CoderResult result = CoderResult.UNDERFLOW;
+
+        loop:
+        while (sp < sl) {
+            if (ascii && pending == 0) {
+                // fast path: ASCII bytes are transformed through the byte table
+                int end = sp + Math.min(sl - sp, dl - dp);
+                while (sp < end) {
+                    byte b = src.get(sp);
+                    if (b < 0) {
+                        break;
+                    }
+                    dst.put(dp++, table.apply(b));
+                    sp++;
+                }
+                committedSp = sp;
+                committedDp = dp;
+                if (sp == sl) {
+                    break;
+                }
+                if (dp == dl && src.get(sp) >= 0) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+            }
+
+            long unit = decode(src, sp, sl, endOfInput);
+            if (unit == UNDERFLOW) {
+                break;
+            }
+            sp += (int) (unit >>> 40);
+
+            int count = (int) (unit >>> 32) & 0xFF;
+            for (int k = 0; k < count; k++) {
+                char c = table.apply((char) (unit >>> (16 * k)));
+
+                if (pending != 0) {
+                    if (Character.isLowSurrogate(c)) {
+                        if (dl - dp < 4) {
+                            result = CoderResult.OVERFLOW;
+                            break loop;
+                        }
+                        dp = put(dst, dp, Character.toCodePoint(pending, c));
+                        pending = 0;
+                        continue;
+                    }
+                    // a high surrogate followed by anything else is malformed
+                    if (dp == dl) {
+                        result = CoderResult.OVERFLOW;
+                        break loop;
+                    }
+                    dst.put(dp++, UNMAPPABLE);
+                    pending = 0;
+                }
+
+                if (Character.isHighSurrogate(c)) {
+                    pending = c;
+                } else if (dl - dp < length(c)) {
+                    result = CoderResult.OVERFLOW;
+                    break loop;
+                } else {
+                    dp = Character.isLowSurrogate(c) ? put(dst, dp, UNMAPPABLE) : put(dst, dp, c);
+                }
+            }
+
+            if (pending == 0) {
+                committedSp = sp;
+                committedDp = dp;
+            }
+        }
+
+        if (pending != 0 && result.isUnderflow() && sp == sl && endOfInput) {
+            // the input ends with a high surrogate
+            if (dp == dl) {
+                result = CoderResult.OVERFLOW;
+            } else {
+                dst.put(dp++, UNMAPPABLE);
+                committedSp = sp;
+                committedDp = dp;
+            }
+        }
+
+        if (Metrics.isEnabled()) {
+            count(src, start, committedSp, table);
+        }
+        src.position(committedSp);
+        dst.position(committedDp);
+        return result;
+    }
+
+    /**
+     * Counts the characters between {@code sp} and {@code sl} the table changes and the ones it leaves as they are,
+     * the bytes in between hold complete characters only.
+     */
+    private static void count(ByteBuffer src, int sp, int sl, CipherTable table) {
+        long transformed = 0;
+        long passed = 0;
+        while (sp < sl) {
+            byte b = src.get(sp);
+            if (b >= 0) {
+                if (table.apply((char) b) == b) {
+                    passed++;
+                } else {
+                    transformed++;
+                }
+                sp++;
+                continue;
+            }
+            long unit = decode(src, sp, sl, true);
+            sp += (int) (unit >>> 40);
+            int count = (int) (unit >>> 32) & 0xFF;
+            for (int k = 0; k < count; k++) {
+                char c = (char) (unit >>> (16 * k));
+                if (table.apply(c) == c) {
+                    passed++;
+                } else {
+                    transformed++;
+                }
+            }
+        }
+        Metrics.chars(transformed, passed);
+    }
+
+    /**
+     * Decodes the character starting at {@code sp}, the way the JDK UTF-8 decoder does with malformed input replaced.
+     *
+     * @return the one or two decoded characters in the low 32 bits, their count in the next 8 bits and the number
+     * of bytes read above them, or {@link #UNDERFLOW} if more bytes are needed
+     */
+    private static long decode(ByteBuffer src, int sp, int sl, boolean endOfInput) {
+        int remaining = sl - sp;
+        int b1 = src.get(sp);
+
+        if (b1 >= 0) {
+            return unit((char) b1, 1);
+        } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
+            // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
+            if (remaining < 2) {
+                return incomplete(remaining, endOfInput);
+            }
+            int b2 = src.get(sp + 1);
+            if (isNotContinuation(b2)) {
+                return malformed(1);
+            }
+            return unit((char) ((b1 & 0x1f) << 6 | b2 & 0x3f), 2);
+        } else if ((b1 >> 4) == -2) {
+            // 3 bytes, 16 bits: 1110xxxx 10xxxxxx 10xxxxxx
+            if (remaining < 3) {
+                if (remaining > 1 && isMalformed3(b1, src.get(sp + 1))) {
+                    return malformed(1);
+                }
+                return incomplete(remaining, endOfInput);
+            }
+            int b2 = src.get(sp + 1);
+            int b3 = src.get(sp + 2);
+            if (isMalformed3(b1, b2)) {
+                return malformed(1);
+            }
+            if (isNotContinuation(b3)) {
+                return malformed(2);
+            }
+            char c = (char) ((b1 & 0x0f) << 12 | (b2 & 0x3f) << 6 | b3 & 0x3f);
+            return Character.isSurrogate(c) ? malformed(3) : unit(c, 3);
+        } else if ((b1 >> 3) == -2) {
+            // 4 bytes, 21 bits: 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
+            int lead = b1 & 0xff;
+            if (lead > 0xf4 || remaining > 1 && isMalformed4(lead, src.get(sp + 1) & 0xff)) {
+                return malformed(1);
+            }
+            if (remaining > 2 && isNotContinuation(src.get(sp + 2))) {
+                return malformed(2);
+            }
+            if (remaining < 4) {
+                return incomplete(remaining, endOfInput);
+            }
+            int b2 = src.get(sp + 1);
+            int b3 = src.get(sp + 2);
+            int b4 = src.get(sp + 3);
+            if (isNotContinuation(b4)) {
+                return malformed(3);
+            }
+            int codePoint = (b1 & 0x07) << 18 | (b2 & 0x3f) << 12 | (b3 & 0x3f) << 6 | b4 & 0x3f;
+            if (!Character.isSupplementaryCodePoint(codePoint)) {
+                return malformed(1);
+            }
+            return (long) Character.highSurrogate(codePoint) | (long) Character.lowSurrogate(codePoint) << 16
+                    | 2L << 32 | 4L << 40;
+        }
+        return malformed(1);
+    }
+
+    /**
+     * Finds where a buffer of UTF-8 bytes can be cut so that the part before, transformed as if it were the end of
+     * the input, gives exactly what it gives within the whole input.
+     *
+     * @param buffer UTF-8 bytes from the start to the limit
+     * @return the limit of the buffer, or the position of its last character if the buffer ends in the middle of it
+     */
+    static int complete(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        for (int i = limit - 1; i >= Math.max(0, limit - 4); i--) {
+            int lead = buffer.get(i) & 0xff;
+            if (isNotContinuation(lead)) {
+                int length = lead >= 0xf0 ? 4 : lead >= 0xe0 ? 3 : lead >= 0xc0 ? 2 : 1;
+                return limit - i < length ? i : limit;
+            }
+        }
+        return limit;
+    }
+
+    private static boolean isNotContinuation(int b) {
+        return (b & 0xc0) != 0x80;
+    }
+
+    /**
+     * @return {@code true} if the second byte of a 3-byte character is not valid (overlong form included)
+     */
+    private static boolean isMalformed3(int b1, int b2) {
+        return b1 == (byte) 0xe0 && (b2 & 0xe0) == 0x80 || isNotContinuation(b2);
+    }
+
+    /**
+     * @return {@code true} if the second byte of a 4-byte character is not valid (overlong and too large forms included)
+     */
+    private static boolean isMalformed4(int b1, int b2) {
+        return b1 == 0xf0 && (b2 < 0x90 || b2 > 0xbf) || b1 == 0xf4 && (b2 & 0xf0) != 0x80 || isNotContinuation(b2);
+    }
+
+    /**
+     * @return the unit of a character that continues after the source, which is malformed at the end of the input
+     */
+    private static long incomplete(int remaining, boolean endOfInput) {
+        return endOfInput ? malformed(remaining) : UNDERFLOW;
+    }
+
+    private static long malformed(int length) {
+        return unit(MALFORMED, length);
+    }
+
+    private static long unit(char c, int length) {
+        return (long) c | 1L << 32 | (long) length << 40;
+    }
+
+    /**
+     * @return the number of bytes of a character that is not a surrogate in UTF-8
+     */
+    private static int length(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    /**
+     * Writes the UTF-8 form of a code point at {@code dp}.
+     *
+     * @return the position after the written bytes
+     */
+    private static int put(ByteBuffer dst, int dp, int codePoint) {
+        if (codePoint < 0x80) {
+            dst.put(dp++, (byte) codePoint);
+        } else if (codePoint < 0x800) {
+            dst.put(dp++, (byte) (0xc0 | codePoint >> 6));
+            dst.put(dp++, (byte) (0x80 | codePoint & 0x3f));
+        } else if (codePoint < 0x10000) {
+            dst.put(dp++, (byte) (0xe0 | codePoint >> 12));
+            dst.put(dp++, (byte) (0x80 | codePoint >> 6 & 0x3f));
+            dst.put(dp++, (byte) (0x80 | codePoint & 0x3f));
+        } else {
+            dst.put(dp++, (byte) (0xf0 | codePoint >> 18));
+            dst.put(dp++, (byte) (0x80 | codePoint >> 12 & 0x3f));
+            dst.put(dp++, (byte) (0x80 | codePoint >> 6 & 0x3f));
+            dst.put(dp++, (byte) (0x80 | codePoint & 0x3f));
+        }
+        return dp;
+    }
+}
@@ -0,0 +1,216 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * The {@code VectorTransform} class applies a {@link CipherTable} to a whole SIMD register of bytes or characters
+ * at a time with the incubating Vector API, 32 or 64 bytes per iteration depending on the processor.
+ *
+ * The shift and the unicode algorithms add the same amount to every character of a range: the shift encryption
+ * with key 3 adds 3 to 'A'..'W', subtracts 23 from 'X'..'`' and so on. The table is split into such runs:
+ *  - {@code from} and {@code width}: the first value of the run and the number of values after it
+ *  - {@code delta}: what is added to every value of the run, or {@code value} when the whole run turns into
+ *  the same value (the bytes a charset cannot decode for instance)
+ * and each run becomes a range compare and a blend. The runs are computed from the table itself, so the result
+ * is always the one of the table. A table made of too many runs is not worth vectorising: the characters of
+ * the unicode algorithm are then only vectorised over ASCII, and {@link #of(byte[], char[], CharTransform)}
+ * returns {@code null} when neither the bytes nor the characters are worth it.
+ *
+ * This class must only be loaded when the {@code jdk.incubator.vector} module is present, which is checked by
+ * {@link CipherTable}.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+public final class VectorTransform {
+    /**
+     * The largest number of runs worth a vector, each run costs a subtraction, a compare and a blend.
+     */
+    static final int MAX_RUNS = 8;
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+
+    private final byte[] table;
+    private final char[] chars;
+    private final CharTransform algorithm;
+    private final Runs byteRuns;
+    private final Runs charRuns;
+    private final short charLimit;
+
+    /**
+     * The runs of a table, one entry of each array per run.
+     */
+    private record Runs(int[] from, int[] width, int[] delta, boolean[] value) {
+
+        /**
+         * Splits a table into runs, leaving out the values that are not changed.
+         *
+         * @return the runs, or {@code null} if there are more than {@link #MAX_RUNS}
+         */
+        static Runs of(int[] table) {
+            int[] from = new int[MAX_RUNS];
+            int[] width = new int[MAX_RUNS];
+            int[] delta = new int[MAX_RUNS];
+            boolean[] value = new boolean[MAX_RUNS];
+            int count = 0;
+            int start = 0;
+            while (start < table.length) {
+                // keep whichever of a constant difference or a constant result covers the most values
+                int end = start;
+                while (end + 1 < table.length && table[end + 1] - (end + 1) == table[start] - start) {
+                    end++;
+                }
+                int same = start;
+                while (same + 1 < table.length && table[same + 1] == table[start]) {
+                    same++;
+                }
+                boolean constant = same > end;
+                end = Math.max(end, same);
+                if (constant || table[start] != start) {
+                    if (count == MAX_RUNS) {
+                        return null;
+                    }
+                    from[count] = start;
+                    width[count] = end - start;
+                    delta[count] = constant ? table[start] : table[start] - start;
+                    value[count] = constant;
+                    count++;
+                }
+                start = end + 1;
+            }
+            return new Runs(Arrays.copyOf(from, count), Arrays.copyOf(width, count),
+                    Arrays.copyOf(delta, count), Arrays.copyOf(value, count));
+        }
+    }
+
+    private VectorTransform(byte[] table, char[] chars, CharTransform algorithm, Runs byteRuns, Runs charRuns, int charLimit) {
+        this.table = table;
+        this.chars = chars;
+        this.algorithm = algorithm;
+        this.byteRuns = byteRuns;
+        this.charRuns = charRuns;
+        this.charLimit = (short) charLimit;
+    }
+
+    /**
+     * @param table     the byte table of a {@link CipherTable}
+     * @param chars     the Latin-1 characters of the same table
+     * @param algorithm the algorithm of the table, for the characters above Latin-1
+     * @return the vectorised form of the table, or {@code null} if neither its bytes nor its characters are worth it
+     */
+    static VectorTransform of(byte[] table, char[] chars, CharTransform algorithm) {
+        int[] bytes = new int[256];
+        int[] latin1 = new int[256];
+        for (int i = 0; i < 256; i++) {
+            bytes[i] = table[i] & 0xFF;
+            latin1[i] = chars[i];
+        }
+        Runs byteRuns = Runs.of(bytes);
+        // the unicode algorithm turns the accented letters into too many runs, ASCII is still worth it
+        int charLimit = 256;
+        Runs charRuns = Runs.of(latin1);
+        if (charRuns == null) {
+            charLimit = 128;
+            charRuns = Runs.of(Arrays.copyOf(latin1, charLimit));
+        }
+        if (byteRuns == null && charRuns == null) {
+            return null;
+        }
+        return new VectorTransform(table, chars, algorithm, byteRuns, charRuns, charLimit);
+    }
+
+    /**
+     * Transforms {@code len} bytes of {@code buf} in place, starting at {@code off}.
+     *
+     * @param buf the bytes to transform
+     * @param off the index of the first byte to transform
+     * @param len the number of bytes to transform
+     */
+    public void apply(byte[] buf, int off, int len) {
+        int i = off;
+        if (this.byteRuns != null) {
+            int[] from = this.byteRuns.from();
+            int[] width = this.byteRuns.width();
+            int[] delta = this.byteRuns.delta();
+            boolean[] value = this.byteRuns.value();
+            int bound = off + BYTES.loopBound(len);
+            for (; i < bound; i += BYTES.length()) {
+                ByteVector v = ByteVector.fromArray(BYTES, buf, i);
+                ByteVector result = v;
+                for (int r = 0; r < from.length; r++) {
+                    // v - from <= to - from, unsigned, is from <= v <= to with a single compare
+                    VectorMask<Byte> inRun = v.sub((byte) from[r]).compare(VectorOperators.UNSIGNED_LE, (byte) width[r]);
+                    ByteVector mapped = value[r] ? ByteVector.broadcast(BYTES, (byte) delta[r]) : v.add((byte) delta[r]);
+                    result = result.blend(mapped, inRun);
+                }
+                result.intoArray(buf, i);
+            }
+        }
+        for (; i < off + len; i++) {
+            buf[i] = this.table[buf[i] & 0xFF];
+        }
+    }
+
+    /**
+     * Transforms {@code len} characters of {@code buf} in place, starting at {@code off}. A register holding
+     * a character outside of the runs, above Latin-1 or ASCII, is transformed one character at a time.
+     *
+     * @param buf the characters to transform
+     * @param off the index of the first character to transform
+     * @param len the number of characters to transform
+     */
+    public void apply(char[] buf, int off, int len) {
+        int i = off;
+        if (this.charRuns != null) {
+            int[] from = this.charRuns.from();
+            int[] width = this.charRuns.width();
+            int[] delta = this.charRuns.delta();
+            boolean[] value = this.charRuns.value();
+            int bound = off + CHARS.loopBound(len);
+            for (; i < bound; i += CHARS.length()) {
+                ShortVector v = ShortVector.fromCharArray(CHARS, buf, i);
+                if (v.compare(VectorOperators.UNSIGNED_GE, this.charLimit).anyTrue()) {
+                    applyScalar(buf, i, i + CHARS.length());
+                    continue;
+                }
+                ShortVector result = v;
+                for (int r = 0; r < from.length; r++) {
+                    VectorMask<Short> inRun = v.sub((short) from[r]).compare(VectorOperators.UNSIGNED_LE, (short) width[r]);
+                    ShortVector mapped = value[r] ? ShortVector.broadcast(CHARS, (short) delta[r]) : v.add((short) delta[r]);
+                    result = result.blend(mapped, inRun);
+                }
+                result.intoCharArray(buf, i);
+            }
+        }
+        applyScalar(buf, i, off + len);
+    }
+
+    /**
+     * Transforms the characters of {@code buf} between {@code from} and {@code to} one at a time.
+     */
+    private void applyScalar(char[] buf, int from, int to) {
+        char[] latin1 = this.chars;
+        for (int i = from; i < to; i++) {
+            char c = buf[i];
+            buf[i] = c < 256 ? latin1[c] : this.algorithm.apply(c);
+        }
+    }
+}
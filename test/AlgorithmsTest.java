@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Checks the registry of {@link Algorithms}, the key schedules of the Vigenère and running key ciphers, and the
+ * keys of {@link Encryption} and {@link Decryption} that are not integers.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class AlgorithmsTest {
+    private static final String TEXT = "Attack at dawn, then retreat. Été, ça, 中文 😀 ZZ zz\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void anUnknownNameGivesTheShiftAlgorithm() {
+        assertTrue(Algorithms.names().containsAll(Arrays.asList("runningkey", "shift", "unicode", "vigenere")));
+        assertEquals("shift", Algorithms.get("rot13").name());
+    }
+
+    @Test
+    void integerKeysAreTakenModulo26() {
+        assertEquals("3", Algorithms.get("unicode").normalize("29"));
+        assertEquals("3", Algorithms.get("shift").normalize(" -23 "));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Algorithms.get("unicode").table("lemon", true, StandardCharsets.UTF_8));
+        assertEquals("The key of the unicode algorithm must be an integer, not lemon.", e.getMessage());
+    }
+
+    @Test
+    void theLettersOfAWordShiftTheTextInTurn() throws IOException {
+        CipherTable table = Algorithms.get("vigenere").table("LEMON", true, StandardCharsets.UTF_8);
+        assertEquals("LXFOPVEFRNHR", Cipher.of(table).apply("ATTACKATDAWN"));
+        // the key advances with every byte, the ones that are not letters included
+        assertEquals("Lxf nno", Cipher.of(table).apply("Att ack"));
+    }
+
+    @Test
+    void aKeyScheduleIsUndoneAndKeepsTheLength() throws IOException {
+        String encrypted = Cipher.of(Algorithms.get("vigenere").table("lemon", true, StandardCharsets.UTF_8)).apply(TEXT);
+        assertEquals(TEXT.length(), encrypted.length());
+        assertEquals(TEXT, Cipher.of(Algorithms.get("vigenere").table("lemon", false, StandardCharsets.UTF_8)).apply(encrypted));
+    }
+
+    @Test
+    void aRunningKeyIsReadFromAFile() throws IOException {
+        String letters = "It was the best of times, it was the worst of times";
+        Path key = Files.writeString(this.dir.resolve("key.txt"), letters);
+
+        CipherTable running = Algorithms.get("runningkey").table(key.toString(), true, StandardCharsets.UTF_8);
+        CipherTable vigenere = Algorithms.get("vigenere").table(letters, true, StandardCharsets.UTF_8);
+
+        assertEquals(Cipher.of(vigenere).apply(TEXT), Cipher.of(running).apply(TEXT));
+    }
+
+    @Test
+    void aKeyWithoutLettersIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Algorithms.get("vigenere").table("1234", true, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void theShiftOfAByteFollowsFromItsPosition() throws IOException {
+        CipherTable table = Algorithms.get("vigenere").table("lemon", true, StandardCharsets.UTF_8);
+        byte[] bytes = TEXT.repeat(20).getBytes(StandardCharsets.UTF_8);
+        byte[] whole = bytes.clone();
+        table.apply(whole, 0, whole.length, 0);
+
+        // pieces of any length, as the chunks of the file engines, each one at its position in the text
+        byte[] pieces = bytes.clone();
+        int position = 0;
+        for (int length = 1; position < pieces.length; length = length * 3 + 1) {
+            int piece = Math.min(length, pieces.length - position);
+            table.apply(pieces, position, piece, position);
+            position += piece;
+        }
+
+        assertArrayEquals(whole, pieces);
+        assertEquals(Cipher.of(table).apply(TEXT.repeat(20)), new String(whole, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void theKeyIsAnIntegerOrGivenAsItIs() {
+        assertEquals(7, new Encryption("abc", 7).getKey());
+        assertEquals("7", new Encryption("abc", 7).getKeyText());
+        assertEquals(7, new Decryption("abc", "7").getKey());
+        assertEquals("lemon", new Decryption("abc", "lemon").getKeyText());
+    }
+
+    @Test
+    void theTextMethodsRejectAWord() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new Encryption("abc", "lemon").unicodeTextEncryption());
+        assertEquals("The key of the unicode and shift algorithms must be an integer, not lemon.", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new Encryption("abc", "lemon").shiftTextEncryption());
+        assertThrows(IllegalArgumentException.class, () -> new Decryption("abc", "lemon").unicodeTextDecryption());
+        assertThrows(IllegalArgumentException.class, () -> new Decryption("abc", "lemon").getKey());
+    }
+}
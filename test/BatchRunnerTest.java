@@ -0,0 +1,132 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Runs batches over directory trees and manifests and checks the mirrored output tree and the summary.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class BatchRunnerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aDirectoryTreeIsMirrored() throws IOException {
+        Path in = this.dir.resolve("in");
+        write(in.resolve("a.txt"), "Attack at dawn");
+        write(in.resolve("sub/b.txt"), "Été à Paris");
+        write(in.resolve("sub/deeper/c.txt"), "");
+        Path out = this.dir.resolve("out");
+
+        run("-batch", in.toString(), "-out", out.toString(), "-mode", "enc", "-alg", "unicode", "-key", "3",
+                "-charset", "UTF-8", "-threads", "2");
+
+        Cipher cipher = Cipher.of("unicode", 3, true);
+        assertEquals(cipher.apply("Attack at dawn"), Files.readString(out.resolve("a.txt")));
+        assertEquals(cipher.apply("Été à Paris"), Files.readString(out.resolve("sub/b.txt")));
+        assertEquals("", Files.readString(out.resolve("sub/deeper/c.txt")));
+    }
+
+    @Test
+    void aManifestListsTheFilesRelativeToItself() throws IOException {
+        write(this.dir.resolve("data/one.txt"), "first");
+        Path absolute = write(this.dir.resolve("elsewhere/two.txt"), "second");
+        Path manifest = write(this.dir.resolve("data/manifest.txt"),
+                "# the files of the night\n\none.txt\n   \n" + absolute + "\n");
+        Path out = this.dir.resolve("out");
+
+        BatchRunner.Summary summary = BatchRunner.run(manifest, out, 2, BatchRunnerTest::copy);
+
+        assertEquals(2, summary.files());
+        assertEquals(0, summary.failures());
+        assertEquals("first".length() + "second".length(), summary.bytes());
+        assertEquals("first", Files.readString(out.resolve("one.txt")));
+        // absolute entries are mirrored from the root of their file system
+        assertEquals("second", Files.readString(out.resolve(absolute.getRoot().relativize(absolute))));
+    }
+
+    @Test
+    void aFailingFileIsCountedAndTheOthersGoOn() throws IOException {
+        Path in = this.dir.resolve("in");
+        for (int i = 0; i < 10; i++) {
+            write(in.resolve(i + ".txt"), "file " + i);
+        }
+        Path out = this.dir.resolve("out");
+
+        BatchRunner.Summary summary = BatchRunner.run(in, out, 3, (input, output) -> {
+            if (input.getName().equals("4.txt")) {
+                throw new IOException("cannot read " + input);
+            }
+            copy(input, output);
+        });
+
+        assertEquals(9, summary.files());
+        assertEquals(1, summary.failures());
+        assertFalse(Files.exists(out.resolve("4.txt")));
+        assertTrue(Files.exists(out.resolve("9.txt")));
+        assertTrue(summary.toString().startsWith("9 files (1 failed), 54 bytes in "), summary.toString());
+    }
+
+    @Test
+    void noMoreFilesThanWorkersAreProcessedAtATime() throws IOException {
+        Path in = this.dir.resolve("in");
+        for (int i = 0; i < 40; i++) {
+            write(in.resolve(i + ".txt"), "x");
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        BatchRunner.Summary summary = BatchRunner.run(in, this.dir.resolve("out"), 3, (input, output) -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+        });
+
+        assertEquals(40, summary.files());
+        assertTrue(peak.get() <= 3, () -> peak.get() + " files at a time");
+    }
+
+    private static Path write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, text, StandardCharsets.UTF_8);
+    }
+
+    private static void copy(File input, File output) throws IOException {
+        Files.copy(input.toPath(), output.toPath());
+    }
+
+    private static void run(String... args) throws IOException {
+        JobSpec job = JobSpec.parse(args);
+        job.check();
+        new Menu().run(job);
+    }
+}
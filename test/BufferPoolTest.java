@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Acquires and releases buffers of {@link BufferPool}, and checks that they are reused, sized and cleared as
+ * documented, and that the leak detection finds the buffers never released and the ones released twice.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class BufferPoolTest {
+    // the leak detection is shared by the whole program, --stats may have turned it on
+    private boolean leakDetection;
+
+    @BeforeEach
+    void saveLeakDetection() {
+        this.leakDetection = BufferPool.stats().outstanding() >= 0;
+    }
+
+    @AfterEach
+    void restoreLeakDetection() {
+        BufferPool.setLeakDetection(this.leakDetection);
+    }
+
+    @Test
+    void aReleasedBufferIsAcquiredAgainByTheSameThread() {
+        ByteBuffer buffer = BufferPool.acquire(5_000);
+        BufferPool.release(buffer);
+        assertSame(buffer, BufferPool.acquire(6_000));
+        BufferPool.release(buffer);
+
+        ByteBuffer heap = BufferPool.acquireHeap(5_000);
+        BufferPool.release(heap);
+        assertSame(heap, BufferPool.acquireHeap(6_000));
+        assertNotSame(buffer, heap);
+        BufferPool.release(heap);
+    }
+
+    @Test
+    void aBufferIsClearedAndLimitedToTheCapacityAsked() {
+        ByteBuffer buffer = BufferPool.acquire(5_000);
+        assertTrue(buffer.isDirect());
+        assertEquals(8 * 1024, buffer.capacity());
+        buffer.position(100).limit(200);
+        BufferPool.release(buffer);
+
+        ByteBuffer again = BufferPool.acquire(1_000);
+        assertEquals(0, again.position());
+        assertEquals(1_000, again.limit());
+        BufferPool.release(again);
+
+        ByteBuffer heap = BufferPool.acquireHeap(10);
+        assertFalse(heap.isDirect());
+        assertEquals(BufferPool.MIN_CAPACITY, heap.capacity());
+        assertEquals(0, heap.arrayOffset());
+        BufferPool.release(heap);
+    }
+
+    @Test
+    void aBufferLargerThanTheLargestClassIsNotPooled() {
+        ByteBuffer buffer = BufferPool.acquireHeap(BufferPool.MAX_CAPACITY + 1);
+        assertEquals(BufferPool.MAX_CAPACITY + 1, buffer.capacity());
+        BufferPool.release(buffer);
+        assertNotSame(buffer, BufferPool.acquireHeap(BufferPool.MAX_CAPACITY + 1));
+    }
+
+    @Test
+    void theStatsCountTheAcquisitionsAndReleases() {
+        BufferPool.setLeakDetection(false);
+        BufferPool.Stats before = BufferPool.stats();
+        BufferPool.release(BufferPool.acquire(100));
+        BufferPool.release(BufferPool.acquireHeap(100));
+        BufferPool.release(null);
+        BufferPool.Stats after = BufferPool.stats();
+
+        assertEquals(2, after.acquired() - before.acquired());
+        assertEquals(2, after.released() - before.released());
+        assertEquals(-1, after.outstanding());
+        assertTrue(after.toString().endsWith("no leak detection"), after.toString());
+    }
+
+    @Test
+    void aBufferNeverReleasedIsReportedWhereItWasAcquired() {
+        BufferPool.setLeakDetection(true);
+        ByteBuffer buffer = BufferPool.acquire(1_234);
+        List<Throwable> leaks = BufferPool.leaks();
+        assertEquals(1, leaks.size());
+        assertEquals("Buffer of 1234 bytes acquired", leaks.get(0).getMessage());
+        assertEquals(getClass().getName(), leaks.get(0).getStackTrace()[2].getClassName());
+        assertEquals(1, BufferPool.stats().outstanding());
+
+        BufferPool.release(buffer);
+        assertEquals(List.of(), BufferPool.leaks());
+        assertEquals(0, BufferPool.stats().outstanding());
+    }
+
+    @Test
+    void aBufferReleasedTwiceIsRejected() {
+        BufferPool.setLeakDetection(true);
+        ByteBuffer buffer = BufferPool.acquireHeap(100);
+        BufferPool.release(buffer);
+
+        assertThrows(IllegalStateException.class, () -> BufferPool.release(buffer));
+        assertThrows(IllegalStateException.class, () -> BufferPool.release(ByteBuffer.allocate(100)));
+    }
+
+    @Test
+    void theScratchArraysBelongToTheThreadAndGrow() {
+        char[] chars = BufferPool.chars(10);
+        assertSame(chars, BufferPool.chars(chars.length));
+        char[] larger = BufferPool.chars(chars.length + 1);
+        assertTrue(larger.length > chars.length);
+        assertSame(larger, BufferPool.chars(10));
+
+        byte[] bytes = BufferPool.bytes(10);
+        assertSame(bytes, BufferPool.bytes(bytes.length));
+        assertTrue(BufferPool.bytes(2 * 1024 * 1024).length >= 2 * 1024 * 1024);
+        // arrays larger than the largest kept are not kept
+        assertTrue(BufferPool.bytes(10).length <= 1024 * 1024);
+    }
+}
@@ -0,0 +1,188 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Encrypts files into containers and decrypts them back, whole or by range, and checks that a corrupted container
+ * or a wrong key is rejected instead of giving a wrong text.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class CipherContainerTest {
+    private static final int SIZE = 4 * CipherContainer.CHUNK_SIZE + 1234;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aUtf8ContainerDecryptsLikeTheChunkedEngine() throws IOException {
+        roundTrip("unicode", "3", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void aSingleByteContainerDecryptsLikeTheChunkedEngine() throws IOException {
+        roundTrip("shift", "11", StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void aContainerWithAKeyScheduleDecryptsLikeTheChunkedEngine() throws IOException {
+        roundTrip("vigenere", "lemon", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void aRangeIsDecryptedFromItsChunksOnly() throws IOException {
+        byte[] text = EngineDifferentialTest.text(StandardCharsets.US_ASCII, SIZE);
+        File input = Files.write(this.dir.resolve("in.txt"), text).toFile();
+        File container = encrypt(input, "shift", "7", StandardCharsets.US_ASCII);
+        byte[] decrypted = decrypt(container, "7");
+
+        long[][] ranges = {{0, 10}, {CipherContainer.CHUNK_SIZE - 5, 10}, {2 * CipherContainer.CHUNK_SIZE, 3 * CipherContainer.CHUNK_SIZE},
+                {SIZE - 3, 100}, {SIZE + 10, 5}};
+        for (long[] range : ranges) {
+            int from = (int) Math.min(range[0], SIZE);
+            int to = (int) Math.min(range[0] + range[1], SIZE);
+            assertArrayEquals(Arrays.copyOfRange(decrypted, from, to),
+                    CipherContainer.decryptRange(container, range[0], (int) range[1], "7", 2), () -> Arrays.toString(range));
+        }
+    }
+
+    @Test
+    void theHeaderDescribesTheOriginalFile() throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(StandardCharsets.UTF_8, SIZE)).toFile();
+        File container = encrypt(input, "shift", "7", StandardCharsets.UTF_8);
+
+        CipherContainer.Header header = CipherContainer.header(container);
+        assertEquals("shift", header.algorithm());
+        assertEquals(StandardCharsets.UTF_8, header.charset());
+        assertEquals(CipherContainer.CHUNK_SIZE, header.chunkSize());
+        assertEquals(SIZE, header.length());
+        assertTrue(CipherContainer.isContainer(container));
+        assertFalse(CipherContainer.isContainer(input));
+    }
+
+    @Test
+    void aWrongKeyIsRejected() throws IOException {
+        File input = Files.writeString(this.dir.resolve("in.txt"), "attack at dawn").toFile();
+        File container = encrypt(input, "shift", "7", StandardCharsets.UTF_8);
+
+        IOException e = assertThrows(IOException.class, () -> decrypt(container, "8"));
+        assertEquals("The key is not the one the container was encrypted with.", e.getMessage());
+        // the same key modulo 26 is the same key
+        assertArrayEquals(decrypt(container, "7"), decrypt(container, "33"));
+    }
+
+    @Test
+    void aRewrittenRunningKeyIsRejected() throws IOException {
+        File input = Files.writeString(this.dir.resolve("in.txt"), "attack at dawn").toFile();
+        Path key = Files.writeString(this.dir.resolve("key.txt"), "the first running key");
+        File container = encrypt(input, "runningkey", key.toString(), StandardCharsets.UTF_8);
+
+        Files.writeString(key, "another key altogether");
+        assertThrows(IOException.class, () -> decrypt(container, key.toString()));
+    }
+
+    @Test
+    void aCorruptedChunkIsRejected() throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(StandardCharsets.UTF_8, SIZE)).toFile();
+        File container = encrypt(input, "unicode", "3", StandardCharsets.UTF_8);
+        byte[] start = CipherContainer.decryptRange(container, 0, 100, "3", 1);
+
+        // the middle of the container is in the middle of a chunk, far from the header and the index
+        try (RandomAccessFile file = new RandomAccessFile(container, "rw")) {
+            long middle = file.length() / 2;
+            file.seek(middle);
+            int b = file.read();
+            file.seek(middle);
+            file.write(b ^ 0x20);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> decrypt(container, "3"));
+        assertTrue(e.getMessage().matches("Chunk \\d+ of the container is corrupted\\."), e.getMessage());
+        // the chunks left intact are still read
+        assertArrayEquals(start, CipherContainer.decryptRange(container, 0, 100, "3", 1));
+    }
+
+    @Test
+    void aTruncatedContainerIsRejected() throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(StandardCharsets.UTF_8, SIZE)).toFile();
+        File container = encrypt(input, "unicode", "3", StandardCharsets.UTF_8);
+        try (RandomAccessFile file = new RandomAccessFile(container, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        // it still starts like a container, the trailer is missing
+        assertTrue(CipherContainer.isContainer(container));
+        assertThrows(IOException.class, () -> decrypt(container, "3"));
+    }
+
+    @Test
+    void otherMultiByteCharsetsAreRejected() throws IOException {
+        File input = Files.writeString(this.dir.resolve("in.txt"), "Hello", StandardCharsets.UTF_16LE).toFile();
+        assertThrows(IOException.class, () -> encrypt(input, "shift", "3", StandardCharsets.UTF_16LE));
+    }
+
+    /**
+     * Checks that the chunks of the container hold the text the chunked engine encrypts, and that the decrypted
+     * container is the encrypted text the chunked engine decrypts.
+     */
+    private void roundTrip(String algorithm, String key, Charset charset) throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(charset, SIZE)).toFile();
+        File container = encrypt(input, algorithm, key, charset);
+
+        File encrypted = this.dir.resolve("encrypted.txt").toFile();
+        ChunkedFileEngine.transform(input, encrypted, Algorithms.get(algorithm).table(key, true, charset));
+        File decrypted = this.dir.resolve("decrypted.txt").toFile();
+        ChunkedFileEngine.transform(encrypted, decrypted, Algorithms.get(algorithm).table(key, false, charset));
+
+        assertArrayEquals(Files.readAllBytes(decrypted.toPath()), decrypt(container, key));
+        for (int threads : new int[]{1, 3}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CipherContainer.decrypt(container, out, key, threads);
+            assertArrayEquals(Files.readAllBytes(decrypted.toPath()), out.toByteArray());
+        }
+    }
+
+    private File encrypt(File input, String algorithm, String key, Charset charset) throws IOException {
+        File container = this.dir.resolve("container.bin").toFile();
+        try (OutputStream out = Files.newOutputStream(container.toPath())) {
+            CipherContainer.encrypt(input, out, algorithm, Algorithms.get(algorithm).table(key, true, charset));
+        }
+        return container;
+    }
+
+    private static byte[] decrypt(File container, String key) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CipherContainer.decrypt(container, out, key, 2);
+        return out.toByteArray();
+    }
+}
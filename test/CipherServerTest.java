@@ -0,0 +1,208 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Talks to a {@link CipherServer} over a local port: frames cut anywhere or sent back to back, frames larger
+ * than the buffers of a connection, a client that does not read its responses, and invalid frames.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class CipherServerTest {
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. Été, ça, 中文 😀\n";
+
+    private CipherServer server;
+    private Thread thread;
+    private SocketChannel client;
+    private DataInputStream in;
+
+    @BeforeEach
+    void start() throws IOException {
+        this.server = new CipherServer(CipherServer.address("0"));
+        this.thread = new Thread(() -> {
+            try {
+                this.server.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.thread.start();
+        connect();
+    }
+
+    private void connect() throws IOException {
+        this.client = SocketChannel.open(this.server.getAddress());
+        this.in = new DataInputStream(Channels.newInputStream(this.client));
+    }
+
+    @AfterEach
+    void stop() throws IOException, InterruptedException {
+        this.client.close();
+        this.server.close();
+        this.thread.join();
+    }
+
+    @Test
+    void requestsSentBackToBackAreAnsweredInOrder() throws IOException {
+        ByteBuffer frames = ByteBuffer.allocate(1024);
+        frames.put(request(CipherServer.ENCRYPT, CipherServer.UNICODE, 3, TEXT));
+        frames.put(request(CipherServer.DECRYPT, CipherServer.SHIFT, 7, TEXT));
+        frames.put(request(CipherServer.ENCRYPT, CipherServer.SHIFT, 25, ""));
+        send(frames.flip());
+
+        assertResponse(Cipher.of("unicode", 3, true, StandardCharsets.UTF_8).apply(TEXT));
+        assertResponse(Cipher.of("shift", 7, false, StandardCharsets.UTF_8).apply(TEXT));
+        assertResponse("");
+    }
+
+    @Test
+    void aFrameCutAnywhereIsAnswered() throws IOException {
+        ByteBuffer frame = request(CipherServer.ENCRYPT, CipherServer.SHIFT, 5, TEXT);
+        // one byte at a time through the length, the header and the middle of a character
+        while (frame.hasRemaining()) {
+            send(frame.slice(frame.position(), 1));
+            frame.position(frame.position() + 1);
+        }
+        assertResponse(Cipher.of("shift", 5, true, StandardCharsets.UTF_8).apply(TEXT));
+    }
+
+    @Test
+    void aFrameLargerThanTheBuffersIsAnswered() throws IOException {
+        String text = TEXT.repeat(200_000 / TEXT.length());
+        send(request(CipherServer.ENCRYPT, CipherServer.UNICODE, 11, text));
+        assertResponse(Cipher.of("unicode", 11, true, StandardCharsets.UTF_8).apply(text));
+    }
+
+    @Test
+    void aClientThatDoesNotReadGetsEveryResponseOnceItDoes() throws Exception {
+        // more responses than the server keeps waiting for a client
+        String text = "abcdefghijklmnopqrstuvwxyz\n".repeat(1024 * 1024 / 27);
+        int requests = CipherServer.MAX_PENDING / text.length() + 4;
+        CompletableFuture<Void> sent = CompletableFuture.runAsync(() -> {
+            try {
+                for (int i = 0; i < requests; i++) {
+                    send(request(CipherServer.ENCRYPT, CipherServer.SHIFT, i, text));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(500);
+
+        for (int i = 0; i < requests; i++) {
+            assertResponse(Cipher.of("shift", i, true, StandardCharsets.UTF_8).apply(text));
+        }
+        sent.get();
+    }
+
+    @Test
+    void keysAreTakenModulo26() throws IOException {
+        String expected = Cipher.of("unicode", 3, true, StandardCharsets.UTF_8).apply(TEXT);
+        for (int key : new int[]{3, 29, 3 + 26 * 1_000_000, -23}) {
+            send(request(CipherServer.ENCRYPT, CipherServer.UNICODE, key, TEXT));
+            assertResponse(expected);
+        }
+    }
+
+    @Test
+    void anUnknownAlgorithmIsAnErrorAndTheConnectionGoesOn() throws IOException {
+        send(request(CipherServer.ENCRYPT, (byte) 7, 3, TEXT));
+        assertEquals(CipherServer.ERROR, response()[0]);
+
+        send(request(CipherServer.DECRYPT, CipherServer.UNICODE, 3, TEXT));
+        assertResponse(Cipher.of("unicode", 3, false, StandardCharsets.UTF_8).apply(TEXT));
+    }
+
+    @Test
+    void anInvalidFrameLengthIsAnErrorAndClosesTheConnection() throws IOException {
+        for (int length : new int[]{2, CipherServer.MAX_FRAME + 1, -1}) {
+            this.client.close();
+            connect();
+            send(ByteBuffer.allocate(Integer.BYTES).putInt(length).flip());
+            byte[] response = response();
+            assertEquals(CipherServer.ERROR, response[0]);
+            assertEquals("Invalid frame length " + length, new String(response, 1, response.length - 1, StandardCharsets.UTF_8));
+            assertThrows(EOFException.class, this.in::readInt);
+        }
+    }
+
+    @Test
+    void aClientReadingLateGetsASingleErrorForAnInvalidFrame() throws Exception {
+        // responses larger than the socket buffers, so that the error waits behind them
+        String text = "abcdefghijklmnopqrstuvwxyz\n".repeat(1024 * 1024 / 27);
+        for (int i = 0; i < 3; i++) {
+            send(request(CipherServer.ENCRYPT, CipherServer.SHIFT, i, text));
+        }
+        send(ByteBuffer.allocate(Integer.BYTES).putInt(CipherServer.MAX_FRAME + 1).flip());
+        // bytes arriving while the error is not written yet must not make the server read the frame again
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(20);
+            try {
+                send(request(CipherServer.ENCRYPT, CipherServer.SHIFT, 3, TEXT));
+            } catch (IOException e) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertResponse(Cipher.of("shift", i, true, StandardCharsets.UTF_8).apply(text));
+        }
+        assertEquals(CipherServer.ERROR, response()[0]);
+        assertThrows(EOFException.class, this.in::readInt);
+    }
+
+    private static ByteBuffer request(byte mode, byte algorithm, int key, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Integer.BYTES + 6 + payload.length).putInt(6 + payload.length)
+                .put(mode).put(algorithm).putInt(key).put(payload).flip();
+    }
+
+    private void send(ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            this.client.write(frame);
+        }
+    }
+
+    /**
+     * @return the status and the payload of the next response
+     */
+    private byte[] response() throws IOException {
+        byte[] response = new byte[this.in.readInt()];
+        this.in.readFully(response);
+        return response;
+    }
+
+    private void assertResponse(String expected) throws IOException {
+        byte[] response = response();
+        assertEquals(CipherServer.OK, response[0]);
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), Arrays.copyOfRange(response, 1, response.length));
+    }
+}
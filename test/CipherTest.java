@@ -0,0 +1,182 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Checks that every form of the {@link Cipher} API gives what the per-character methods of {@link Encryption}
+ * and {@link Decryption} give, without printing anything.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class CipherTest {
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. Été, ça, naïve, 中文 😀 ZZ zz\n";
+
+    @Test
+    void aTextIsTransformedLikeOneCharacterAtATime() {
+        for (int key = 0; key < 26; key++) {
+            assertEquals(baseline(TEXT, "unicode", key, true), Cipher.of("unicode", key, true).apply(TEXT));
+            assertEquals(baseline(TEXT, "unicode", key, false), Cipher.of("unicode", key, false).apply(TEXT));
+            assertEquals(baseline(TEXT, "shift", key, true), Cipher.of("shift", key, true).apply(TEXT));
+            assertEquals(baseline(TEXT, "shift", key, false), Cipher.of("shift", key, false).apply(TEXT));
+        }
+    }
+
+    @Test
+    void anyCharSequenceIsTransformed() {
+        Cipher cipher = Cipher.of("unicode", 5, true);
+        String expected = cipher.apply(TEXT);
+        assertEquals(expected, cipher.apply(new StringBuilder(TEXT)));
+        assertEquals(expected, cipher.apply(CharBuffer.wrap(TEXT)));
+    }
+
+    @Test
+    void aTextIsWrittenAtTheOffsetOfTheCallerArray() {
+        Cipher cipher = Cipher.of("shift", 11, true);
+        char[] dst = new char[TEXT.length() + 10];
+        dst[4] = '#';
+        dst[5 + TEXT.length()] = '#';
+
+        assertEquals(TEXT.length(), cipher.apply(TEXT, dst, 5));
+
+        assertEquals(cipher.apply(TEXT), new String(dst, 5, TEXT.length()));
+        assertEquals('#', dst[4]);
+        assertEquals('#', dst[5 + TEXT.length()]);
+    }
+
+    @Test
+    void anArrayIsTransformedInPlace() {
+        Cipher cipher = Cipher.of("unicode", 7, false);
+        char[] chars = ("--" + TEXT).toCharArray();
+        cipher.apply(chars, 2, chars, 2, TEXT.length());
+        assertEquals("--" + cipher.apply(TEXT), new String(chars));
+    }
+
+    @Test
+    void bytesAreTransformedIntoASmallBufferOnePieceAtATime() {
+        Cipher cipher = Cipher.of("unicode", 3, true, StandardCharsets.UTF_8);
+        ByteBuffer src = ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        // room for a few characters at a time, the four bytes of the emoji included
+        ByteBuffer dst = ByteBuffer.allocate(8);
+        CoderResult result;
+        do {
+            result = cipher.apply(src, dst, true);
+            out.put(dst.flip());
+            dst.clear();
+        } while (result.isOverflow());
+
+        assertEquals(CoderResult.UNDERFLOW, result);
+        assertEquals(cipher.apply(TEXT), new String(out.array(), 0, out.position(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void anIncompleteCharacterIsLeftForTheNextCall() {
+        Cipher cipher = Cipher.of("shift", 3, true, StandardCharsets.UTF_8);
+        byte[] bytes = "aé".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer src = ByteBuffer.wrap(bytes, 0, 2);
+        ByteBuffer dst = ByteBuffer.allocate(16);
+
+        cipher.apply(src, dst, false);
+        assertEquals(1, src.position());
+        assertEquals(1, dst.position());
+
+        // at the end of the input, the lone byte is replaced
+        cipher.apply(src, dst, true);
+        assertEquals(cipher.apply("a�"), new String(dst.array(), 0, dst.position(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void otherMultiByteCharsetsAreLeftToTheStreams() throws IOException {
+        Cipher cipher = Cipher.of("unicode", 3, true, StandardCharsets.UTF_16LE);
+        assertThrows(UnsupportedOperationException.class,
+                () -> cipher.apply(ByteBuffer.allocate(4), ByteBuffer.allocate(4), true));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cipher.apply(new ByteArrayInputStream(TEXT.getBytes(StandardCharsets.UTF_16LE)), out);
+        assertEquals(cipher.apply(TEXT), out.toString(StandardCharsets.UTF_16LE));
+    }
+
+    @Test
+    void streamsAreTransformedAndLeftOpen() throws IOException {
+        Cipher cipher = Cipher.of("shift", 9, false, StandardCharsets.UTF_8);
+        byte[] bytes = TEXT.repeat(5_000).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(bytes.length, cipher.apply(new ByteArrayInputStream(bytes), out));
+
+        assertArrayEquals(cipher.apply(TEXT.repeat(5_000)).getBytes(StandardCharsets.UTF_8), out.toByteArray());
+        out.write('!');
+    }
+
+    @Test
+    void aCipherIsSharedByThreads() throws Exception {
+        Cipher cipher = Cipher.of("unicode", 13, true);
+        String expected = cipher.apply(TEXT);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = pool.invokeAll(IntStream.range(0, 64)
+                    .mapToObj(i -> (Callable<String>) () -> cipher.apply(TEXT)).toList());
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void theTextMethodsPrintWhatTheCipherReturns() throws IOException {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            new Encryption("Hello, World", 3).unicodeTextEncryption();
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals(Cipher.of("unicode", 3, true).apply("Hello, World"), printed.toString(StandardCharsets.UTF_8).strip());
+    }
+
+    private static String baseline(String text, String algorithm, int key, boolean encrypt) {
+        StringBuilder result = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (algorithm.equals("unicode")) {
+                result.append(encrypt ? Encryption.unicodeEncrypt(c, key) : Decryption.unicodeDecrypt(c, key));
+            } else {
+                result.append(encrypt ? Encryption.shiftEncrypt(c, key) : Decryption.shiftDecrypt(c, key));
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Compresses encryptions with {@code -compress} and checks when a decryption decompresses its input: always with
+ * the flag, and without it only for a file starting with a valid gzip header.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class CompressionTest {
+    private static final String TEXT = "Attack at dawn, then retreat. Été, ça, 中文 😀\n".repeat(5_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aCompressedEncryptionIsSmallerAndDecryptedWithOrWithoutTheFlag() throws IOException {
+        Path plain = Files.writeString(this.dir.resolve("plain.txt"), TEXT);
+        Path encrypted = this.dir.resolve("encrypted.gz");
+        run("-mode", "enc", "-alg", "vigenere", "-key", "lemon", "-charset", "UTF-8", "-compress",
+                "-in", plain.toString(), "-out", encrypted.toString());
+        assertEquals(0x1F, Files.readAllBytes(encrypted)[0]);
+        assertTrue(Files.size(encrypted) < Files.size(plain) / 10);
+
+        Path recognised = this.dir.resolve("recognised.txt");
+        run("-mode", "dec", "-alg", "vigenere", "-key", "lemon", "-charset", "UTF-8",
+                "-in", encrypted.toString(), "-out", recognised.toString());
+        assertEquals(TEXT, Files.readString(recognised));
+
+        Path flagged = this.dir.resolve("flagged.txt");
+        run("-mode", "dec", "-alg", "vigenere", "-key", "lemon", "-charset", "UTF-8", "-compress",
+                "-in", encrypted.toString(), "-out", flagged.toString());
+        assertEquals(TEXT, Files.readString(flagged));
+    }
+
+    @Test
+    void anEncryptionStartingWithTheGzipMagicNumberIsDecryptedAsItIs() throws IOException {
+        byte[] letters = "Attack at dawn, then retreat.\n".getBytes(StandardCharsets.ISO_8859_1);
+        byte[][] starts = {
+                {0x1F, (byte) 0x8B},
+                // not the deflate method
+                {0x1F, (byte) 0x8B, 'a', 0},
+                // a reserved flag
+                {0x1F, (byte) 0x8B, 8, (byte) 0x80},
+                // a header checksum that does not match, after the time, the extra flags and the system
+                {0x1F, (byte) 0x8B, 8, 2, 0, 0, 0, 0, 0, 3, 'x', 'y'},
+        };
+        for (byte[] start : starts) {
+            byte[] bytes = Arrays.copyOf(start, start.length + letters.length);
+            System.arraycopy(letters, 0, bytes, start.length, letters.length);
+            File input = Files.write(this.dir.resolve("encrypted.txt"), bytes).toFile();
+            File expected = this.dir.resolve("expected.txt").toFile();
+            File output = this.dir.resolve("decrypted.txt").toFile();
+            CipherTable table = Algorithms.get("vigenere").table("lemon", false, StandardCharsets.ISO_8859_1);
+            ChunkedFileEngine.transform(input, expected, table);
+
+            Decryption decryption = new Decryption(input, output, "lemon");
+            decryption.setCharset(StandardCharsets.ISO_8859_1);
+            decryption.fileDecryption("vigenere");
+
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(output.toPath()),
+                    () -> Arrays.toString(start));
+        }
+    }
+
+    @Test
+    void theFlagDecompressesWhateverTheFirstBytes() throws IOException {
+        File input = Files.writeString(this.dir.resolve("encrypted.txt"), "Attack at dawn\n").toFile();
+        Decryption decryption = new Decryption(input, this.dir.resolve("decrypted.txt").toFile(), "3");
+        decryption.setCompress(true);
+
+        assertThrows(IOException.class, () -> decryption.fileDecryption("unicode"));
+    }
+
+    private static void run(String... args) throws IOException {
+        JobSpec job = JobSpec.parse(args);
+        job.check();
+        new Menu().run(job);
+    }
+}
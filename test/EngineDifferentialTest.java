@@ -0,0 +1,310 @@
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Checks every engine against the baseline: the bytes decoded in the charset, every character transformed by
+ * {@link Encryption#shiftEncrypt(char, int)}, {@link Encryption#unicodeEncrypt(char, int)} or their
+ * {@link Decryption} counterparts, and the characters encoded back.
+ *
+ * The files are a little smaller, as large as or a little larger than the buffers of the engines, and hold
+ * malformed bytes, some of them cut by the end of a buffer.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class EngineDifferentialTest {
+    private static final int[] SIZES = {
+            64 * 1024 - 1, 64 * 1024, 64 * 1024 + 1,
+            256 * 1024 - 1, 256 * 1024 + 1,
+            1024 * 1024 - 1, 1024 * 1024, 1024 * 1024 + 1};
+
+    private static final Charset[] CHARSETS = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16LE};
+
+    /**
+     * The algorithm, the key and the direction of the tables compared.
+     */
+    private record Substitution(String algorithm, int key, boolean encrypt) {
+        char apply(char c) {
+            if (this.algorithm.equals("unicode")) {
+                return this.encrypt ? Encryption.unicodeEncrypt(c, this.key) : Decryption.unicodeDecrypt(c, this.key);
+            }
+            return this.encrypt ? Encryption.shiftEncrypt(c, this.key) : Decryption.shiftDecrypt(c, this.key);
+        }
+    }
+
+    private static final Substitution[] SUBSTITUTIONS = {
+            new Substitution("unicode", 3, true),
+            new Substitution("unicode", 13, false),
+            new Substitution("shift", 25, true),
+            new Substitution("shift", 7, false)};
+
+    /**
+     * An engine transforming a file into another.
+     */
+    @FunctionalInterface
+    private interface Engine {
+        void transform(File input, File output, CipherTable table) throws IOException;
+    }
+
+    @TempDir
+    Path dir;
+
+    static Stream<Arguments> files() {
+        return Stream.of(CHARSETS).flatMap(charset -> IntStream.of(SIZES).mapToObj(size -> Arguments.of(charset, size)));
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void chunkedMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, ChunkedFileEngine::transform, table -> false);
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void parallelMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, (input, output, table) -> ParallelFileEngine.transform(input, output, table, 3),
+                table -> false);
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void pipelinedMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, PipelinedFileEngine::transform, table -> false);
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void asyncMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, (input, output, table) -> AsyncFileEngine.transform(input, output, table, 4),
+                table -> false);
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void mappedMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, (input, output, table) -> {
+            Files.copy(input.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            boolean transformed = MappedFileEngine.transform(output, table);
+            // a character whose substitute has another length cannot be transformed in place
+            assertTrue(transformed || !MappedFileEngine.supports(table) || !table.isSingleByte());
+            if (!transformed) {
+                // left untouched, the other engines are the fallback
+                assertArrayEquals(Files.readAllBytes(input.toPath()), Files.readAllBytes(output.toPath()));
+                ChunkedFileEngine.transform(input, output, table);
+            }
+        }, table -> false);
+    }
+
+    @ParameterizedTest(name = "{0} bytes")
+    @ValueSource(ints = {64 * 1024 + 1, 1024 * 1024 + 1})
+    void mappedTransformsAsciiInPlace(int size) throws IOException {
+        byte[] text = text(StandardCharsets.US_ASCII, size);
+        for (int i = 0; i < text.length; i++) {
+            text[i] &= 0x7F;
+        }
+        File file = Files.write(this.dir.resolve("in.txt"), text).toFile();
+        for (Substitution substitution : SUBSTITUTIONS) {
+            CipherTable table = CipherTable.of(substitution.algorithm(), substitution.key(), substitution.encrypt(),
+                    StandardCharsets.UTF_8);
+            byte[] expected = baseline(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8, substitution);
+            assertEquals(MappedFileEngine.supports(table), MappedFileEngine.transform(file, table));
+            if (MappedFileEngine.supports(table)) {
+                assertArrayEquals(expected, Files.readAllBytes(file.toPath()), substitution::toString);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "lead byte {0}")
+    @ValueSource(ints = {0xF5, 0xF7, 0xF8, 0xFB, 0xFC, 0xFF})
+    void mappedLeavesLeadBytesAboveF4ToTheCopyPath(int lead) throws IOException {
+        // ASCII the mapped engine would transform in place, but for one lead byte no character starts with
+        byte[] text = "attack at dawn, XXXX then retreat\n".getBytes(StandardCharsets.US_ASCII);
+        int at = text.length / 2;
+        text[at] = (byte) lead;
+        text[at + 1] = (byte) 0x90;
+        text[at + 2] = (byte) 0x80;
+        text[at + 3] = (byte) 0x80;
+        File input = Files.write(this.dir.resolve("in.txt"), text).toFile();
+        File output = this.dir.resolve("out.txt").toFile();
+        for (Substitution substitution : SUBSTITUTIONS) {
+            CipherTable table = CipherTable.of(substitution.algorithm(), substitution.key(), substitution.encrypt(),
+                    StandardCharsets.UTF_8);
+            Files.copy(input.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            assertFalse(MappedFileEngine.transform(output, table), substitution::toString);
+            assertArrayEquals(text, Files.readAllBytes(output.toPath()));
+
+            ChunkedFileEngine.transform(input, output, table);
+            assertArrayEquals(baseline(text, StandardCharsets.UTF_8, substitution), Files.readAllBytes(output.toPath()));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void fanOutMatchesTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, (input, output, table) -> {
+            // a second lane with another table, checked against the baseline too
+            CipherTable inverse = CipherTable.of("shift", 7, true, table.getCharset());
+            File other = this.dir.resolve("other.txt").toFile();
+            FanOutFileEngine.transform(input, List.of(output, other), List.of(table, inverse), 2);
+            assertArrayEquals(baseline(Files.readAllBytes(input.toPath()), table.getCharset(),
+                    new Substitution("shift", 7, true)), Files.readAllBytes(other.toPath()));
+        }, EngineDifferentialTest::onlySingleByteOrUtf8);
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void incrementalMatchesTheBaseline(Charset charset, int size) throws IOException {
+        byte[] text = text(charset, size);
+        File input = Files.write(this.dir.resolve("in.txt"), text).toFile();
+        File output = this.dir.resolve("out.txt").toFile();
+        for (Substitution substitution : SUBSTITUTIONS) {
+            CipherTable table = CipherTable.of(substitution.algorithm(), substitution.key(), substitution.encrypt(), charset);
+            Files.deleteIfExists(output.toPath());
+            Files.deleteIfExists(IncrementalFileEngine.checkpoint(output.toPath()));
+            if (onlySingleByteOrUtf8(table)) {
+                assertThrows(IOException.class, () -> IncrementalFileEngine.transform(input, output, table, 0));
+                continue;
+            }
+            // a character cut by the end of the file may still be being written, it is left for the next run
+            int transformed = (int) IncrementalFileEngine.transform(input, output, table, CipherContainer.keyId("test", table));
+            assertTrue(size - transformed < 4, () -> size - transformed + " bytes left");
+            assertArrayEquals(baseline(Arrays.copyOf(text, transformed), charset, substitution),
+                    Files.readAllBytes(output.toPath()), () -> substitution + " in " + charset + " on " + size + " bytes");
+        }
+    }
+
+    @ParameterizedTest(name = "{0}, {1} bytes")
+    @MethodSource("files")
+    void streamsMatchTheBaseline(Charset charset, int size) throws IOException {
+        compare(charset, size, (input, output, table) -> {
+            try (InputStream in = new FileInputStream(input); OutputStream out = new FileOutputStream(output)) {
+                Cipher.of(table).apply(in, out);
+            }
+        }, table -> false);
+    }
+
+    private static boolean onlySingleByteOrUtf8(CipherTable table) {
+        return !table.isSingleByte() && !table.getCharset().equals(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Transforms the same file with every substitution and compares the output with the baseline, or checks that
+     * the engine rejects the table.
+     */
+    private void compare(Charset charset, int size, Engine engine, Predicate<CipherTable> rejected) throws IOException {
+        byte[] text = text(charset, size);
+        File input = Files.write(this.dir.resolve("in.txt"), text).toFile();
+        File output = this.dir.resolve("out.txt").toFile();
+        for (Substitution substitution : SUBSTITUTIONS) {
+            CipherTable table = CipherTable.of(substitution.algorithm(), substitution.key(), substitution.encrypt(), charset);
+            if (rejected.test(table)) {
+                assertThrows(IOException.class, () -> engine.transform(input, output, table));
+                continue;
+            }
+            engine.transform(input, output, table);
+            assertArrayEquals(baseline(text, charset, substitution), Files.readAllBytes(output.toPath()),
+                    () -> substitution + " in " + charset + " on " + size + " bytes");
+        }
+    }
+
+    /**
+     * @return the text decoded, transformed one character at a time, and encoded again
+     */
+    private static byte[] baseline(byte[] text, Charset charset, Substitution substitution) {
+        char[] chars = new String(text, charset).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = substitution.apply(chars[i]);
+        }
+        return new String(chars).getBytes(charset);
+    }
+
+    /**
+     * @return {@code size} bytes of words in the charset, with malformed bytes here and there and at the ends of
+     * the buffers of the engines
+     */
+    static byte[] text(Charset charset, int size) {
+        String[] words = {"The ", "quick ", "Brown ", "fox ", "jumps, ", "over ", "the ", "LAZY ", "dog.\n",
+                "été ", "ÇA ", "naïve ", "ß ", "中文 ", "😀 ", "Ωμέγα "};
+        Random random = new Random(size);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < size) {
+            builder.append(words[random.nextInt(words.length)]);
+        }
+        byte[] text = Arrays.copyOf(builder.toString().getBytes(charset), size);
+
+        byte[][] malformed = malformed(charset);
+        int[] boundaries = {64 * 1024, 256 * 1024, 1024 * 1024};
+        for (int boundary : boundaries) {
+            // cut by the end of a buffer, one byte before it or right after it
+            for (int shift = -2; shift <= 1; shift += 3) {
+                put(text, boundary + shift, malformed[random.nextInt(malformed.length)]);
+            }
+        }
+        for (int i = 0; i < size / 4096; i++) {
+            put(text, random.nextInt(size), malformed[random.nextInt(malformed.length)]);
+        }
+        return text;
+    }
+
+    private static byte[][] malformed(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            // invalid byte, lone continuation, overlong, surrogate, truncated sequences of three and four bytes,
+            // lead bytes above F4 followed by continuations
+            return new byte[][]{{(byte) 0xFF}, {(byte) 0x80}, {(byte) 0xC0, (byte) 0x80},
+                    {(byte) 0xF8, (byte) 0x90, (byte) 0x80, (byte) 0x80}, {(byte) 0xFC, (byte) 0x84, (byte) 0x80, (byte) 0x80},
+                    {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xE4, (byte) 0xB8}, {(byte) 0xF0, (byte) 0x9F, (byte) 0x98}};
+        }
+        if (charset.equals(StandardCharsets.UTF_16LE)) {
+            // lone high and low surrogates, a single byte shifting the rest of the text
+            return new byte[][]{{0x00, (byte) 0xD8, 'A', 0x00}, {0x00, (byte) 0xDC}, {'x'}};
+        }
+        // every byte is a character in a single-byte charset
+        return new byte[][]{{(byte) 0x00, (byte) 0x7F, (byte) 0x80, (byte) 0xFF}};
+    }
+
+    private static void put(byte[] text, int position, byte[] bytes) {
+        if (position >= 0 && position < text.length) {
+            System.arraycopy(bytes, 0, text, position, Math.min(bytes.length, text.length - position));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Encrypts a file under several keys in one read, with {@link FanOutFileEngine} and {@code -keys}, and checks every
+ * output against the file encrypted under its key alone.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class FanOutFileEngineTest {
+    // more than a block, so that the blocks follow each other in every output
+    private static final int SIZE = 2 * 1024 * 1024 + 12_345;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyOutputIsTheInputUnderItsKey() throws IOException {
+        assertFannedOut(StandardCharsets.UTF_8, 1);
+        assertFannedOut(StandardCharsets.UTF_8, 3);
+        assertFannedOut(StandardCharsets.ISO_8859_1, 3);
+    }
+
+    private void assertFannedOut(Charset charset, int threads) throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(charset, SIZE)).toFile();
+        List<CipherTable> tables = new ArrayList<>();
+        for (int key = 1; key <= 5; key++) {
+            tables.add(CipherTable.of("unicode", key, true, charset));
+        }
+        tables.add(CipherTable.of("shift", 11, true, charset));
+        tables.add(Algorithms.get("vigenere").table("lemon", true, charset));
+        List<File> outputs = new ArrayList<>();
+        for (int i = 0; i < tables.size(); i++) {
+            outputs.add(this.dir.resolve("out" + i + ".txt").toFile());
+        }
+
+        FanOutFileEngine.transform(input, outputs, tables, threads);
+
+        for (int i = 0; i < tables.size(); i++) {
+            File alone = this.dir.resolve("alone.txt").toFile();
+            ChunkedFileEngine.transform(input, alone, tables.get(i));
+            assertArrayEquals(Files.readAllBytes(alone.toPath()), Files.readAllBytes(outputs.get(i).toPath()),
+                    charset + ", table " + i);
+        }
+    }
+
+    @Test
+    void anEmptyFileGivesEmptyOutputs() throws IOException {
+        File input = Files.write(this.dir.resolve("in.txt"), new byte[0]).toFile();
+        File output = this.dir.resolve("out.txt").toFile();
+
+        FanOutFileEngine.transform(input, List.of(output), List.of(CipherTable.of("unicode", 3, true, StandardCharsets.UTF_8)), 2);
+
+        assertEquals(0, output.length());
+    }
+
+    @Test
+    void otherMultiByteCharsetsAreRejected() throws IOException {
+        File input = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn").toFile();
+        assertThrows(IOException.class, () -> FanOutFileEngine.transform(input, List.of(this.dir.resolve("out.txt").toFile()),
+                List.of(CipherTable.of("unicode", 3, true, StandardCharsets.UTF_16LE)), 2));
+    }
+
+    @Test
+    void theCommandLineWritesOneFilePerKey() throws IOException {
+        Path in = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn, Été.\n".repeat(1_000));
+        Path out = this.dir.resolve("out.txt");
+
+        JobSpec job = JobSpec.parse(new String[]{"-mode", "enc", "-alg", "unicode", "-keys", "3, 5,37", "-charset", "UTF-8",
+                "-in", in.toString(), "-out", out.toString()});
+        job.check();
+        new Menu().run(job);
+
+        // the keys are taken modulo 26 before they name the files
+        for (int key : new int[]{3, 5, 11}) {
+            assertEquals(Cipher.of("unicode", key, true).apply("Attack at dawn, Été.\n".repeat(1_000)),
+                    Files.readString(Path.of(out + "." + key)));
+        }
+    }
+
+    @Test
+    void aKeyFileIsNamedAfterTheOutputAndTheKey() {
+        assertEquals(new File("out.txt.lemon"), Encryption.keyFile(new File("out.txt"), "lemon"));
+        assertEquals(new File("out.txt._tmp_key_txt"), Encryption.keyFile(new File("out.txt"), "/tmp/key.txt"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> JobSpec.parse(new String[]{
+                "-mode", "dec", "-keys", "3,5", "-in", "in.txt", "-out", "out.txt"}).check());
+        assertEquals("The -keys argument encrypts an -in file into one -out file per key.", e.getMessage());
+    }
+}
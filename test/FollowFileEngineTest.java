@@ -0,0 +1,154 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Follows a file while it is appended to, rotated and truncated, and checks that what was written to it comes out
+ * transformed, each byte once.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class FollowFileEngineTest {
+    /**
+     * The longest time in milliseconds the output is waited for.
+     */
+    private static final long TIMEOUT = 10_000;
+
+    @TempDir
+    Path dir;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private Thread thread;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        if (this.thread != null) {
+            this.thread.interrupt();
+            this.thread.join();
+        }
+        assertNull(this.failure.get());
+    }
+
+    @Test
+    void appendedBytesAreTransformedAsTheyAreWritten() throws Exception {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "Attack at dawn\n");
+        CipherTable table = CipherTable.of("unicode", 3, true, StandardCharsets.UTF_8);
+        follow(file, table);
+        awaitOutput(Cipher.of(table).apply("Attack at dawn\n"));
+
+        append(file, "then retreat\n".getBytes(StandardCharsets.UTF_8));
+        awaitOutput(Cipher.of(table).apply("Attack at dawn\nthen retreat\n"));
+    }
+
+    @Test
+    void aCharacterWrittenInTwoPartsIsTransformedOnce() throws Exception {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "Été ");
+        CipherTable table = CipherTable.of("unicode", 5, true, StandardCharsets.UTF_8);
+        follow(file, table);
+        awaitOutput(Cipher.of(table).apply("Été "));
+
+        byte[] emoji = "😀".getBytes(StandardCharsets.UTF_8);
+        append(file, new byte[]{emoji[0], emoji[1]});
+        Thread.sleep(200);
+        append(file, new byte[]{emoji[2], emoji[3], '\n'});
+        awaitOutput(Cipher.of(table).apply("Été 😀\n"));
+    }
+
+    @Test
+    void aKeyScheduleGoesOnWithTheAppendedBytes() throws Exception {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "Attack at ");
+        CipherTable table = Algorithms.get("vigenere").table("lemon", true, StandardCharsets.UTF_8);
+        follow(file, table);
+        awaitOutput(Cipher.of(table).apply("Attack at "));
+
+        append(file, "dawn\n".getBytes(StandardCharsets.UTF_8));
+        awaitOutput(Cipher.of(table).apply("Attack at dawn\n"));
+    }
+
+    @Test
+    void aRotatedFileIsFinishedAndTheNewOneFollowed() throws Exception {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "first file\n");
+        CipherTable table = CipherTable.of("shift", 7, true, StandardCharsets.UTF_8);
+        follow(file, table);
+        awaitOutput(Cipher.of(table).apply("first file\n"));
+
+        append(file, "last line\n".getBytes(StandardCharsets.UTF_8));
+        Files.move(file, this.dir.resolve("app.log.1"));
+        Files.writeString(file, "second file\n");
+        awaitOutput(Cipher.of(table).apply("first file\nlast line\nsecond file\n"));
+    }
+
+    @Test
+    void aTruncatedFileIsFollowedFromItsStart() throws Exception {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "a rather long first line\n");
+        CipherTable table = CipherTable.of("shift", 7, true, StandardCharsets.ISO_8859_1);
+        follow(file, table);
+        awaitOutput(Cipher.of(table).apply("a rather long first line\n"));
+
+        Files.writeString(file, "again\n", StandardOpenOption.TRUNCATE_EXISTING);
+        awaitOutput(Cipher.of(table).apply("a rather long first line\nagain\n"));
+    }
+
+    @Test
+    void otherMultiByteCharsetsAreRejected() throws IOException {
+        Path file = Files.writeString(this.dir.resolve("app.log"), "");
+        assertThrows(IOException.class, () -> FollowFileEngine.follow(file.toFile(), this.out,
+                CipherTable.of("shift", 7, true, StandardCharsets.UTF_16LE)));
+    }
+
+    private void follow(Path file, CipherTable table) {
+        this.thread = new Thread(() -> {
+            try {
+                FollowFileEngine.follow(file.toFile(), this.out, table);
+            } catch (ClosedByInterruptException e) {
+                // stopped while reading
+            } catch (Throwable e) {
+                this.failure.set(e);
+            }
+        });
+        this.thread.start();
+    }
+
+    private static void append(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Waits until the output is {@code expected}, and fails if it is not after {@link #TIMEOUT}.
+     */
+    private void awaitOutput(String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!this.out.toString(StandardCharsets.UTF_8).equals(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, this.out.toString(StandardCharsets.UTF_8));
+    }
+}
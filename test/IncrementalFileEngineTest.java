@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Grows a file in several appends, encrypting it incrementally after each one, and checks that the output is
+ * the one a single pass over the whole file gives.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class IncrementalFileEngineTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsGiveTheOneShotEncryptionInUtf8() throws IOException {
+        grow(CipherTable.of("unicode", 3, true, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void appendsGiveTheOneShotEncryptionInASingleByteCharset() throws IOException {
+        grow(CipherTable.of("shift", 11, true, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void appendsGiveTheOneShotEncryptionWithAKeySchedule() throws IOException {
+        grow(Algorithms.get("vigenere").table("lemon", true, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void otherMultiByteCharsetsAreRejected() throws IOException {
+        Path input = Files.writeString(this.dir.resolve("in.txt"), "Hello", StandardCharsets.UTF_16LE);
+        CipherTable table = CipherTable.of("shift", 3, true, StandardCharsets.UTF_16LE);
+        assertThrows(IOException.class, () -> IncrementalFileEngine.transform(input.toFile(),
+                this.dir.resolve("out.txt").toFile(), table, CipherContainer.keyId("shift", table)));
+    }
+
+    @Test
+    void aRewrittenKeyFileTransformsTheWholeFile() throws IOException {
+        Path input = Files.writeString(this.dir.resolve("in.txt"), "attack at dawn, attack at dusk");
+        Path key = Files.writeString(this.dir.resolve("key.txt"), "the first running key");
+        File output = this.dir.resolve("out.txt").toFile();
+        Algorithm algorithm = Algorithms.get("runningkey");
+
+        CipherTable first = algorithm.table(key.toString(), true, StandardCharsets.UTF_8);
+        IncrementalFileEngine.transform(input.toFile(), output, first, CipherContainer.keyId("runningkey", first));
+
+        Files.writeString(key, "another key altogether");
+        CipherTable second = algorithm.table(key.toString(), true, StandardCharsets.UTF_8);
+        long transformed = IncrementalFileEngine.transform(input.toFile(), output, second,
+                CipherContainer.keyId("runningkey", second));
+
+        assertEquals(Files.size(input), transformed);
+        assertArrayEquals(oneShot(input, second), Files.readAllBytes(output.toPath()));
+    }
+
+    /**
+     * Appends the text in pieces cut anywhere, characters included, and compares the output after the last one.
+     */
+    private void grow(CipherTable table) throws IOException {
+        byte[] text = text(table.getCharset());
+        Path input = Files.write(this.dir.resolve("in.txt"), new byte[0]);
+        File output = this.dir.resolve("out.txt").toFile();
+        int keyId = CipherContainer.keyId("test", table);
+
+        // small pieces, then one larger than the buffer of the engine
+        int[] cuts = {1, 2, 3, 5, 64 * 1024 + 1, 64 * 1024 + 3, 300_000, text.length};
+        int from = 0;
+        long transformed = 0;
+        for (int cut : cuts) {
+            Files.write(input, Arrays.copyOfRange(text, from, cut), StandardOpenOption.APPEND);
+            transformed += IncrementalFileEngine.transform(input.toFile(), output, table, keyId);
+            from = cut;
+        }
+
+        assertEquals(text.length, transformed);
+        assertArrayEquals(oneShot(input, table), Files.readAllBytes(output.toPath()));
+        // nothing new, nothing transformed
+        assertEquals(0, IncrementalFileEngine.transform(input.toFile(), output, table, keyId));
+    }
+
+    private byte[] oneShot(Path input, CipherTable table) throws IOException {
+        File expected = this.dir.resolve("expected.txt").toFile();
+        ChunkedFileEngine.transform(input.toFile(), expected, table);
+        return Files.readAllBytes(expected.toPath());
+    }
+
+    /**
+     * @return about 1.5 MB of letters, punctuation and, when the charset has them, characters of two to four bytes
+     */
+    private static byte[] text(Charset charset) {
+        String[] words = {"The ", "quick ", "brown ", "fox ", "jumps, ", "over ", "the ", "lazy ", "dog.\n",
+                "été ", "ça ", "中文 ", "😀 "};
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 1_500_000) {
+            text.append(words[random.nextInt(words.length)]);
+        }
+        return text.toString().getBytes(charset);
+    }
+}
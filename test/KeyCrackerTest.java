@@ -0,0 +1,100 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Encrypts English under every key and checks that {@link KeyCracker} finds the key back, from a text, from a file
+ * counted in parallel blocks and from the command line.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class KeyCrackerTest {
+    private static final String ENGLISH = "It was the best of times, it was the worst of times, it was the age of wisdom, "
+            + "it was the age of foolishness, it was the epoch of belief, it was the epoch of incredulity, it was the "
+            + "season of Light, it was the season of Darkness, it was the spring of hope, it was the winter of despair, "
+            + "we had everything before us, we had nothing before us, we were all going direct to Heaven, we were all "
+            + "going direct the other way.\n";
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"unicode", "shift"})
+    void everyKeyOfATextIsFound(String algorithm) {
+        for (int key = 0; key < 26; key++) {
+            KeyCracker.Result result = KeyCracker.crack(Cipher.of(algorithm, key, true).apply(ENGLISH), algorithm);
+            assertEquals(key, result.key(), result::toString);
+        }
+    }
+
+    @Test
+    void onlyTheLettersAreScored() {
+        KeyCracker.Result result = KeyCracker.crack("Attack at dawn! 1234 Été", "unicode");
+        // the accented letters are not ASCII
+        assertEquals("Attackatdawnt".length(), result.letters());
+    }
+
+    @Test
+    void theBlocksOfAFileAddUpToTheWholeFile() throws IOException {
+        // a few blocks and a partial one, with bytes above ASCII that are not counted
+        byte[] bytes = (ENGLISH + "Été à Paris\n").repeat(3 * KeyCracker.BLOCK_SIZE / ENGLISH.length() + 7)
+                .getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(this.dir.resolve("in.txt"), bytes);
+        long[] expected = new long[128];
+        for (byte b : bytes) {
+            if (b >= 0) {
+                expected[b]++;
+            }
+        }
+
+        assertArrayEquals(expected, KeyCracker.count(file.toFile(), 1));
+        assertArrayEquals(expected, KeyCracker.count(file.toFile(), 4));
+    }
+
+    @Test
+    void theKeyOfAFileIsFound() throws IOException {
+        String encrypted = Cipher.of("shift", 17, true).apply(ENGLISH.repeat(20_000));
+        Path file = Files.writeString(this.dir.resolve("in.txt"), encrypted);
+
+        KeyCracker.Result result = KeyCracker.crack(file.toFile(), "shift", StandardCharsets.UTF_8, 4);
+
+        assertEquals(17, result.key());
+        assertEquals(KeyCracker.crack(encrypted, "shift").letters(), result.letters());
+    }
+
+    @Test
+    void aCrackedFileIsDecrypted() throws IOException {
+        Path in = Files.writeString(this.dir.resolve("in.txt"), Cipher.of("unicode", 9, true).apply(ENGLISH.repeat(100)));
+        Path out = this.dir.resolve("out.txt");
+
+        JobSpec job = JobSpec.parse(new String[]{"-mode", "crack", "-alg", "unicode", "-charset", "UTF-8",
+                "-in", in.toString(), "-out", out.toString()});
+        job.check();
+        new Menu().run(job);
+
+        assertEquals(ENGLISH.repeat(100), Files.readString(out));
+    }
+}
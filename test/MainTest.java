@@ -0,0 +1,120 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Runs the program in another JVM and checks its exit status and what it prints where: the result on the
+ * standard output, and the failures on the error stream with a status other than 0.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class MainTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aJobThatSucceedsExitsWith0() throws Exception {
+        Result result = main("-mode", "enc", "-alg", "unicode", "-key", "3", "-data", "Attack at dawn");
+        assertEquals(0, result.status());
+        assertTrue(result.out().strip().endsWith(Cipher.of("unicode", 3, true).apply("Attack at dawn")), result.out());
+        assertEquals("", result.err());
+    }
+
+    @Test
+    void anInvalidCommandLineExitsWith2() throws Exception {
+        Result result = main("-mode", "enc", "-alg", "unicode", "-key", "lemon", "-data", "Attack at dawn");
+        assertEquals(2, result.status());
+        assertEquals("", result.out());
+        assertEquals("The key of the unicode algorithm must be an integer, not lemon.", result.err().strip());
+    }
+
+    @Test
+    void aFailureWhileRunningExitsWith1() throws Exception {
+        Path in = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn\n");
+        Result result = main("-mode", "dec", "-alg", "unicode", "-key", "3", "-compress",
+                "-in", in.toString(), "-out", this.dir.resolve("out.txt").toString());
+        assertEquals(1, result.status());
+        assertEquals("Not in GZIP format", result.err().strip());
+    }
+
+    @Test
+    void aBatchWithAFailedFileExitsWith1() throws Exception {
+        Path in = this.dir.resolve("in");
+        Files.createDirectories(in);
+        Files.writeString(in.resolve("a.txt"), "Attack at dawn\n");
+        Files.writeString(in.resolve("b.txt"), "then retreat\n");
+        Path out = this.dir.resolve("out");
+        // a directory where the encryption of b.txt should be written
+        Files.createDirectories(out.resolve("b.txt"));
+
+        Result result = main("-batch", in.toString(), "-out", out.toString(), "-mode", "enc", "-alg", "shift", "-key", "3");
+
+        assertEquals(1, result.status());
+        assertTrue(result.out().contains("1 files (1 failed)"), result.out());
+        assertTrue(result.err().contains("b.txt"), result.err());
+        assertTrue(result.err().contains("1 files of the batch could not be processed."), result.err());
+        assertEquals(Cipher.of("shift", 3, true).apply("Attack at dawn\n"), Files.readString(out.resolve("a.txt")));
+    }
+
+    @Test
+    void aFailureIsThrownToTheCaller() throws IOException {
+        Path in = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn\n");
+        JobSpec job = JobSpec.parse(new String[]{"-mode", "dec", "-alg", "unicode", "-key", "3", "-compress",
+                "-in", in.toString(), "-out", this.dir.resolve("out.txt").toString()});
+        job.check();
+
+        assertThrows(IOException.class, () -> new Menu().run(job));
+    }
+
+    @Test
+    void argumentsThatDoNotGoTogetherAreRejectedBeforeRunning() throws IOException {
+        Path in = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn\n");
+        assertThrows(IllegalArgumentException.class,
+                () -> JobSpec.parse(new String[]{"-batch", this.dir.toString(), "-key", "3"}).check());
+        assertThrows(IllegalArgumentException.class,
+                () -> JobSpec.parse(new String[]{"-mode", "crack", "-alg", "vigenere", "-in", in.toString()}).check());
+    }
+
+    private record Result(int status, String out, String err) {
+    }
+
+    /**
+     * Runs the program with the arguments in a JVM of its own, so that it can exit.
+     */
+    private Result main(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), "Main"));
+        command.addAll(List.of(args));
+        File out = this.dir.resolve("stdout.txt").toFile();
+        File err = this.dir.resolve("stderr.txt").toFile();
+        Process process = new ProcessBuilder(command).redirectOutput(out).redirectError(err).start();
+        int status = process.waitFor();
+        return new Result(status, Files.readString(out.toPath(), StandardCharsets.UTF_8),
+                Files.readString(err.toPath(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Encrypts files over themselves from the command line, with {@code -inplace} or the same {@code -in} and
+ * {@code -out}, and checks that the file ends up as a copy would have been written.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class MappedFileEngineTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void aSingleByteFileIsTransformedInPlace() throws IOException {
+        Path file = Files.write(this.dir.resolve("in.txt"), EngineDifferentialTest.text(StandardCharsets.ISO_8859_1, 300_000));
+        byte[] expected = copy(file, "shift", 7, StandardCharsets.ISO_8859_1);
+        Object fileKey = fileKey(file);
+
+        run("-mode", "enc", "-alg", "shift", "-key", "7", "-charset", "ISO-8859-1", "-in", file.toString(), "-inplace");
+
+        assertArrayEquals(expected, Files.readAllBytes(file));
+        // written in the mapped file, not in a copy moved over it
+        assertEquals(fileKey, fileKey(file));
+    }
+
+    @Test
+    void theSameInputAndOutputAreTransformedInPlace() throws IOException {
+        Path file = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn, then retreat.\n".repeat(10_000));
+        byte[] expected = copy(file, "unicode", 3, StandardCharsets.UTF_8);
+        Object fileKey = fileKey(file);
+
+        run("-mode", "enc", "-alg", "unicode", "-key", "3", "-charset", "UTF-8", "-in", file.toString(), "-out", file.toString());
+
+        assertArrayEquals(expected, Files.readAllBytes(file));
+        assertEquals(fileKey, fileKey(file));
+    }
+
+    @Test
+    void aCharacterChangingLengthFallsBackToACopy() throws IOException {
+        // the unicode algorithm turns the two-byte é into an ASCII letter
+        Path file = Files.writeString(this.dir.resolve("in.txt"), "Attack at dawn, été.\n".repeat(10_000));
+        byte[] expected = copy(file, "unicode", 3, StandardCharsets.UTF_8);
+
+        run("-mode", "enc", "-alg", "unicode", "-key", "3", "-charset", "UTF-8", "-in", file.toString(), "-inplace");
+
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    void aLeadByteAboveF4FallsBackToACopy() throws IOException {
+        byte[] text = "Attack at dawn, XXXX then retreat.\n".getBytes(StandardCharsets.US_ASCII);
+        text[16] = (byte) 0xF8;
+        text[17] = (byte) 0x90;
+        text[18] = (byte) 0x80;
+        text[19] = (byte) 0x80;
+        Path file = Files.write(this.dir.resolve("in.txt"), text);
+        // the unicode algorithm leaves the surrogates alone, so a misread lead would give a character kept as is
+        byte[] expected = copy(file, "unicode", 3, StandardCharsets.UTF_8);
+
+        run("-mode", "enc", "-alg", "unicode", "-key", "3", "-charset", "UTF-8", "-in", file.toString(), "-inplace");
+
+        // the malformed bytes are replaced like in any other engine, not decoded as a character
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    /**
+     * @return the file encrypted into another file
+     */
+    private byte[] copy(Path file, String algorithm, int key, Charset charset) throws IOException {
+        Path copy = this.dir.resolve("copy.txt");
+        ChunkedFileEngine.transform(file.toFile(), copy.toFile(), CipherTable.of(algorithm, key, true, charset));
+        return Files.readAllBytes(copy);
+    }
+
+    private static Object fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    private static void run(String... args) throws IOException {
+        JobSpec job = JobSpec.parse(args);
+        job.check();
+        new Menu().run(job);
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Transforms long texts in another JVM where {@code -Dcipher.parallel} turns the parallel path on and the common
+ * pool has several workers, and checks them against the texts transformed on one thread here, where the path is
+ * off as by default.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class ParallelCipherTest {
+    // many slices, the last one shorter than the others
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. Été, ça, naïve, 中文 😀 ZZ zz\n"
+            .repeat(20_000) + "end";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aTextTransformedInParallelIsTheTextTransformedOnOneThread() throws Exception {
+        assertEquals(Integer.MAX_VALUE, Cipher.PARALLEL_THRESHOLD);
+        Path result = this.dir.resolve("parallel.txt");
+        List<String> command = List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dcipher.parallel=65536", "-XX:ActiveProcessorCount=4",
+                "-cp", System.getProperty("java.class.path"), Transform.class.getName(), result.toString());
+        File log = this.dir.resolve("log.txt").toFile();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        assertEquals(0, process.waitFor(), () -> read(log));
+
+        List<String> lines = Files.readAllLines(result, StandardCharsets.UTF_8);
+        assertEquals("3 workers", lines.get(0));
+        String expected = Cipher.of("unicode", 5, true).apply(TEXT) + Cipher.of("shift", 11, false).apply(TEXT);
+        assertEquals(expected, String.join("\n", lines.subList(1, lines.size())));
+    }
+
+    private static String read(File file) {
+        try {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+
+    /**
+     * Writes the number of workers of the common pool, then the text transformed by the two ciphers.
+     */
+    static final class Transform {
+        public static void main(String[] args) throws IOException {
+            StringBuilder result = new StringBuilder(ForkJoinPool.getCommonPoolParallelism() + " workers\n");
+            result.append(Cipher.of("unicode", 5, true).apply(TEXT));
+            result.append(Cipher.of("shift", 11, false).apply(new StringBuilder(TEXT)));
+            Files.writeString(Path.of(args[0]), result, StandardCharsets.UTF_8);
+        }
+    }
+}
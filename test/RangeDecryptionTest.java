@@ -0,0 +1,136 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+/*
+ * Copyright (c) 2022 Beaudelaire Tsoungui Nzodoumkouo. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under My consent.
+ *
+ * This code is shared on GitHub in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY OF FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * Please contact Me at +1 438 509 3906
+ * or LinkedIn: https://www.linkedin.com/in/beaudelaire-tsoungui-nzodoumkouo-809744231
+ * if you need additional information or have any questions.
+ */
+
+/**
+ * Decrypts parts of encrypted files with {@link Decryption#decryptRange(String, long, int)} and {@code -range},
+ * and checks them against the same part of the original file.
+ *
+ * @author Beaudelaire Tsoungui Nzodoumkouo
+ */
+class RangeDecryptionTest {
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. Été, ça, naïve, 中文 😀 Ωμέγα\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aRangeOfASingleByteFileIsDecryptedLikeTheWholeFile() throws IOException {
+        File file = encrypt(TEXT.repeat(2_000).getBytes(StandardCharsets.ISO_8859_1), "shift", "7", StandardCharsets.ISO_8859_1);
+        byte[] whole = decrypt(file, "shift", "7", StandardCharsets.ISO_8859_1);
+        Decryption decryption = decryption(file, "7", StandardCharsets.ISO_8859_1);
+
+        for (int[] range : new int[][]{{0, 10}, {1, 1}, {12_345, 6_789}, {whole.length - 3, 100}, {0, whole.length}}) {
+            int to = Math.min(whole.length, range[0] + range[1]);
+            assertArrayEquals(Arrays.copyOfRange(whole, range[0], to), decryption.decryptRange("shift", range[0], range[1]),
+                    () -> Arrays.toString(range));
+        }
+    }
+
+    @Test
+    void aKeyScheduleStartsAtThePositionOfTheRange() throws IOException {
+        // a schedule only changes ASCII letters, every byte stays where it is and no range is widened
+        byte[] plain = TEXT.repeat(2_000).getBytes(StandardCharsets.UTF_8);
+        File file = encrypt(plain, "vigenere", "lemon", StandardCharsets.UTF_8);
+        Decryption decryption = decryption(file, "lemon", StandardCharsets.UTF_8);
+
+        for (int offset = 0; offset < 12; offset++) {
+            assertArrayEquals(Arrays.copyOfRange(plain, 1000 + offset, 1100 + offset),
+                    decryption.decryptRange("vigenere", 1000 + offset, 100));
+        }
+    }
+
+    @Test
+    void aUtf8RangeIsWidenedToTheCharactersItCuts() throws IOException {
+        File file = encrypt(TEXT.repeat(50).getBytes(StandardCharsets.UTF_8), "unicode", "3", StandardCharsets.UTF_8);
+        byte[] encrypted = Files.readAllBytes(file.toPath());
+        Cipher cipher = Cipher.of("unicode", 3, false, StandardCharsets.UTF_8);
+        Decryption decryption = decryption(file, "3", StandardCharsets.UTF_8);
+
+        for (int offset = 0; offset < TEXT.getBytes(StandardCharsets.UTF_8).length; offset++) {
+            for (int length : new int[]{0, 1, 2, 5}) {
+                int first = offset;
+                while (first > 0 && (encrypted[first] & 0xC0) == 0x80) {
+                    first--;
+                }
+                int last = offset + length;
+                while (last > first && (encrypted[last] & 0xC0) == 0x80) {
+                    last++;
+                }
+                String characters = new String(encrypted, first, Math.max(0, last - first), StandardCharsets.UTF_8);
+                int from = first;
+                int to = last;
+                assertArrayEquals(cipher.apply(characters).getBytes(StandardCharsets.UTF_8),
+                        decryption.decryptRange("unicode", offset, length), () -> from + ".." + to);
+            }
+        }
+    }
+
+    @Test
+    void aRangeAfterTheEndIsEmpty() throws IOException {
+        File file = encrypt(TEXT.getBytes(StandardCharsets.UTF_8), "unicode", "3", StandardCharsets.UTF_8);
+        Decryption decryption = decryption(file, "3", StandardCharsets.UTF_8);
+
+        assertEquals(0, decryption.decryptRange("unicode", 1_000_000, 10).length);
+        assertThrows(IllegalArgumentException.class, () -> decryption.decryptRange("unicode", -1, 10));
+    }
+
+    @Test
+    void theCommandLineWritesTheRangeToTheOutputFile() throws IOException {
+        byte[] plain = TEXT.repeat(100).getBytes(StandardCharsets.UTF_8);
+        File file = encrypt(plain, "vigenere", "lemon", StandardCharsets.UTF_8);
+        Path out = this.dir.resolve("range.txt");
+
+        JobSpec job = JobSpec.parse(new String[]{"-mode", "dec", "-alg", "vigenere", "-key", "lemon", "-charset", "UTF-8",
+                "-in", file.getPath(), "-out", out.toString(), "-range", "4:15"});
+        job.check();
+        new Menu().run(job);
+
+        assertArrayEquals(Arrays.copyOfRange(plain, 4, 19), Files.readAllBytes(out));
+        assertThrows(IllegalArgumentException.class, () -> JobSpec.parse(new String[]{"-range", "4-15"}));
+    }
+
+    private File encrypt(byte[] plain, String algorithm, String key, Charset charset) throws IOException {
+        File input = Files.write(this.dir.resolve("plain.txt"), plain).toFile();
+        File output = this.dir.resolve("encrypted.txt").toFile();
+        ChunkedFileEngine.transform(input, output, Algorithms.get(algorithm).table(key, true, charset));
+        return output;
+    }
+
+    private byte[] decrypt(File file, String algorithm, String key, Charset charset) throws IOException {
+        File output = this.dir.resolve("decrypted.txt").toFile();
+        ChunkedFileEngine.transform(file, output, Algorithms.get(algorithm).table(key, false, charset));
+        return Files.readAllBytes(output.toPath());
+    }
+
+    private static Decryption decryption(File file, String key, Charset charset) {
+        Decryption decryption = new Decryption(file, new File(""), key);
+        decryption.setCharset(charset);
+        return decryption;
+    }
+}